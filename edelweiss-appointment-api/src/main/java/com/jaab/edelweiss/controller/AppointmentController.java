@@ -1,11 +1,18 @@
 package com.jaab.edelweiss.controller;
 
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
+import com.jaab.edelweiss.dto.Versioned;
 import com.jaab.edelweiss.service.AppointmentService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/physician")
 public class AppointmentController {
@@ -28,30 +35,60 @@ public class AppointmentController {
     }
 
     /**
-     * Retrieves a list of appointments from the appointment database based on the doctor's name and sends it
-     * to the doctor API
+     * Retrieves one page of a doctor's appointments from the appointment database and sends it to the doctor API.
+     * The version of the page is its ETag, and when it matches If-None-Match the response is a 304 without the
+     * appointments being loaded
      *
      * @param firstName - the first name of the doctor
      * @param lastName  - the last name of the doctor
-     * @return - the list of the doctor's appointments
+     * @param from      - the earliest appointment date to include
+     * @param to        - the latest appointment date to include
+     * @param cursor    - the nextCursor of the previous page
+     * @param size      - the maximum number of appointments in the page
+     * @param headers   - the request headers, which may contain If-None-Match
+     * @return - the page of the doctor's appointments, or a 304 if the doctor API's copy is current
      */
     @GetMapping(value = "/myAppointments/{firstName}/{lastName}")
-    public Flux<AppointmentDTO> getAppointmentsByDoctorName(@PathVariable String firstName,
-                                                            @PathVariable String lastName) {
-        return Flux.fromIterable(appointmentService.getAppointmentsByDoctorName(firstName, lastName));
+    public Mono<ResponseEntity<AppointmentPageDTO>> getAppointmentsByDoctorName(
+            @PathVariable String firstName, @PathVariable String lastName,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + AppointmentService.DEFAULT_PAGE_SIZE) int size,
+            @RequestHeader HttpHeaders headers) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+
+        if (!ifNoneMatch.isEmpty()) {
+            String version = appointmentService.getAppointmentPageVersion(firstName, lastName, from, to, cursor,
+                    size);
+
+            if (ETags.matches(ifNoneMatch, version))
+                return Mono.just(ETags.notModified(version));
+        }
+
+        Versioned<AppointmentPageDTO> page =
+                appointmentService.getAppointmentsByDoctorName(firstName, lastName, from, to, cursor, size);
+
+        return Mono.just(ETags.ok(page.version(), page.body()));
     }
 
     /**
-     * Updates the appointment with the specified ID and merges it to the appointment database
+     * Updates the appointment with the specified ID and merges it to the appointment database. When If-Match is
+     * present, the appointment is only updated if its version still matches, and a 412 is returned otherwise
      *
      * @param appointmentDTO - the AppointmentDTO payload from the doctor API
      * @param appointmentId  - the ID of the appointment
-     * @return - the updated appointment
+     * @param headers        - the request headers, which may contain If-Match
+     * @return - the updated appointment, with its new version as the ETag
      */
     @PatchMapping(value = "/updateAppointmentInfo/{appointmentId}")
-    public Mono<AppointmentDTO> updateAppointmentInfo(@RequestBody AppointmentDTO appointmentDTO,
-                                                      @PathVariable Long appointmentId) {
-        return Mono.just(appointmentService.updateAppointmentInfo(appointmentDTO, appointmentId));
+    public Mono<ResponseEntity<AppointmentDTO>> updateAppointmentInfo(@RequestBody AppointmentDTO appointmentDTO,
+                                                                      @PathVariable Long appointmentId,
+                                                                      @RequestHeader HttpHeaders headers) {
+        Versioned<AppointmentDTO> appointment = appointmentService.updateAppointmentInfo(appointmentDTO,
+                appointmentId, ETags.requiredVersion(headers.getIfMatch()));
+
+        return Mono.just(ETags.ok(appointment.version(), appointment.body()));
     }
 
     /**
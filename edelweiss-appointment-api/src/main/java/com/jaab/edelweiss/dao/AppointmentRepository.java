@@ -2,13 +2,105 @@ package com.jaab.edelweiss.dao;
 
 import com.jaab.edelweiss.model.Appointment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
 
 @Repository
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
-    List<Appointment> findByDoctorFirstNameAndDoctorLastNameOrderByAppointmentDate(String firstName, String lastName);
+    /**
+     * Retrieves the next appointments of a doctor's schedule that come after the specified position, in order of
+     * date, time and ID. The row comparison lets Postgres seek straight to the position through the
+     * idx_appointments_doctor_schedule index instead of skipping over earlier rows
+     *
+     * @param firstName - the first name of the doctor
+     * @param lastName  - the last name of the doctor
+     * @param from      - the earliest appointment date to include
+     * @param to        - the latest appointment date to include
+     * @param afterDate - the date of the last appointment already read
+     * @param afterTime - the time of the last appointment already read
+     * @param afterId   - the ID of the last appointment already read
+     * @param limit     - the maximum number of appointments to return
+     * @return - the list of appointments
+     */
+    @Query(value = """
+            select * from appointments
+            where doctor_last_name = :lastName and doctor_first_name = :firstName
+            and appointment_date between :from and :to
+            and (appointment_date, appointment_time, appointment_id) > (:afterDate, :afterTime, :afterId)
+            order by appointment_date, appointment_time, appointment_id
+            limit :limit""", nativeQuery = true)
+    List<Appointment> findScheduleAfter(@Param("firstName") String firstName, @Param("lastName") String lastName,
+                                        @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                        @Param("afterDate") LocalDate afterDate,
+                                        @Param("afterTime") LocalTime afterTime,
+                                        @Param("afterId") Long afterId, @Param("limit") int limit);
 
-}
\ No newline at end of file
+    /**
+     * Hashes the IDs and versions of the appointments that findScheduleAfter would return into the version of
+     * that page of the schedule. It reads only the idx_appointments_doctor_schedule range and the version column,
+     * and matches the hash that AppointmentService computes from the loaded appointments
+     *
+     * @param firstName - the first name of the doctor
+     * @param lastName  - the last name of the doctor
+     * @param from      - the earliest appointment date to include
+     * @param to        - the latest appointment date to include
+     * @param afterDate - the date of the last appointment already read
+     * @param afterTime - the time of the last appointment already read
+     * @param afterId   - the ID of the last appointment already read
+     * @param limit     - the maximum number of appointments to include
+     * @return - the version of the page
+     */
+    @Query(value = """
+            select md5(coalesce(string_agg(page.appointment_id || ':' || page.version, ','
+                order by page.appointment_date, page.appointment_time, page.appointment_id), ''))
+            from (select appointment_id, version, appointment_date, appointment_time from appointments
+                where doctor_last_name = :lastName and doctor_first_name = :firstName
+                and appointment_date between :from and :to
+                and (appointment_date, appointment_time, appointment_id) > (:afterDate, :afterTime, :afterId)
+                order by appointment_date, appointment_time, appointment_id
+                limit :limit) page""", nativeQuery = true)
+    String findScheduleVersionAfter(@Param("firstName") String firstName, @Param("lastName") String lastName,
+                                    @Param("from") LocalDate from, @Param("to") LocalDate to,
+                                    @Param("afterDate") LocalDate afterDate,
+                                    @Param("afterTime") LocalTime afterTime,
+                                    @Param("afterId") Long afterId, @Param("limit") int limit);
+
+    /**
+     * Reschedules the appointment with the specified ID or changes its patient in a single statement, without
+     * reading it first. Null values leave their column unchanged, and the appointment is only updated, and its
+     * version only incremented, when at least one column changes
+     *
+     * @param id               - the ID of the appointment
+     * @param patientFirstName - the new first name of the patient, or null
+     * @param patientLastName  - the new last name of the patient, or null
+     * @param appointmentDate  - the new date of the appointment, or null
+     * @param appointmentTime  - the new time of the appointment, or null
+     * @param version          - the version the appointment must have, or null to update any version
+     * @return - the number of appointments updated, which is 0 if the appointment is missing, has another version
+     * or would not change
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Appointment a
+            set a.patientFirstName = coalesce(:patientFirstName, a.patientFirstName),
+                a.patientLastName = coalesce(:patientLastName, a.patientLastName),
+                a.appointmentDate = coalesce(:appointmentDate, a.appointmentDate),
+                a.appointmentTime = coalesce(:appointmentTime, a.appointmentTime),
+                a.version = a.version + 1
+            where a.id = :id and (:version is null or a.version = :version)
+                and (coalesce(:patientFirstName, a.patientFirstName) <> a.patientFirstName
+                    or coalesce(:patientLastName, a.patientLastName) <> a.patientLastName
+                    or coalesce(:appointmentDate, a.appointmentDate) <> a.appointmentDate
+                    or coalesce(:appointmentTime, a.appointmentTime) <> a.appointmentTime)""")
+    int updateAppointmentInfo(@Param("id") Long id, @Param("patientFirstName") String patientFirstName,
+                              @Param("patientLastName") String patientLastName,
+                              @Param("appointmentDate") LocalDate appointmentDate,
+                              @Param("appointmentTime") LocalTime appointmentTime, @Param("version") Long version);
+}
@@ -0,0 +1,55 @@
+package com.jaab.edelweiss.dto;
+
+import com.jaab.edelweiss.exception.InvalidCursorException;
+import com.jaab.edelweiss.model.Appointment;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * This record is the position of an appointment in a doctor's schedule, ordered by date, time and ID. It is
+ * handed to clients as an opaque string so they can resume paging after the last appointment they received
+ *
+ * @author Joseph Barr
+ */
+public record AppointmentCursor(LocalDate appointmentDate, LocalTime appointmentTime, Long id) {
+
+    public AppointmentCursor(Appointment appointment) {
+        this(appointment.getAppointmentDate(), appointment.getAppointmentTime(), appointment.getId());
+    }
+
+    /**
+     * Encodes the cursor as a URL-safe string
+     *
+     * @return - the encoded cursor
+     */
+    public String encode() {
+        String position = appointmentDate + "," + appointmentTime + "," + id;
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a cursor previously produced by encode()
+     *
+     * @param cursor - the encoded cursor
+     * @return - the AppointmentCursor object
+     * @throws InvalidCursorException if the cursor is malformed
+     */
+    public static AppointmentCursor decode(String cursor) throws InvalidCursorException {
+        try {
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] keys = position.split(",");
+
+            if (keys.length != 3)
+                throw new InvalidCursorException("Invalid appointment cursor.");
+
+            return new AppointmentCursor(LocalDate.parse(keys[0]), LocalTime.parse(keys[1]), Long.valueOf(keys[2]));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException("Invalid appointment cursor.");
+        }
+    }
+}
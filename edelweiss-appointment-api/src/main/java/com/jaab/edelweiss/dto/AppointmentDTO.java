@@ -6,11 +6,12 @@ import java.time.LocalDate;
 import java.time.LocalTime;
 
 public record AppointmentDTO(Long id, String doctorFirstName, String doctorLastName, String patientFirstName,
-                             String patientLastName, LocalDate appointmentDate, LocalTime appointmentTime) {
+                             String patientLastName, LocalDate appointmentDate, LocalTime appointmentTime,
+                             Long version) {
 
     public AppointmentDTO(Appointment appointment) {
         this(appointment.getId(), appointment.getDoctorFirstName(), appointment.getDoctorLastName(),
                 appointment.getPatientFirstName(), appointment.getPatientLastName(),
-                appointment.getAppointmentDate(), appointment.getAppointmentTime());
+                appointment.getAppointmentDate(), appointment.getAppointmentTime(), appointment.getVersion());
     }
 }
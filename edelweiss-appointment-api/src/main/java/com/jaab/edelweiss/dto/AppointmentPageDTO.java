@@ -0,0 +1,6 @@
+package com.jaab.edelweiss.dto;
+
+import java.util.List;
+
+public record AppointmentPageDTO(List<AppointmentDTO> appointments, String nextCursor) {
+}
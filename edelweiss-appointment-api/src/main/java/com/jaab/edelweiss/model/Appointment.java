@@ -18,7 +18,9 @@ import java.time.LocalTime;
 public class Appointment {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "appointments_appointment_id_seq")
+    @SequenceGenerator(name = "appointments_appointment_id_seq", sequenceName = "appointments_appointment_id_seq",
+            allocationSize = 50)
     @Column(name = "appointment_id", nullable = false, updatable = false, unique = true)
     private Long id;
 
@@ -39,4 +41,8 @@ public class Appointment {
 
     @Column(name = "appointment_time", nullable = false)
     private LocalTime appointmentTime;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
@@ -1,20 +1,36 @@
 package com.jaab.edelweiss.service;
 
 import com.jaab.edelweiss.dao.AppointmentRepository;
+import com.jaab.edelweiss.dto.AppointmentCursor;
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
+import com.jaab.edelweiss.dto.Versioned;
+import com.jaab.edelweiss.exception.AppointmentModifiedException;
 import com.jaab.edelweiss.exception.AppointmentNotFoundException;
+import com.jaab.edelweiss.exception.InvalidCursorException;
 import com.jaab.edelweiss.model.Appointment;
 import org.springframework.beans.BeanUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.List;
-import java.util.function.Consumer;
-import java.util.function.Predicate;
-import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 @Service
 public class AppointmentService {
 
+    public static final int DEFAULT_PAGE_SIZE = 50;
+
+    public static final int MAX_PAGE_SIZE = 500;
+
+    private static final LocalDate EARLIEST_DATE = LocalDate.of(1, 1, 1);
+
+    private static final LocalDate LATEST_DATE = LocalDate.of(9999, 12, 31);
+
     private final AppointmentRepository appointmentRepository;
 
     public AppointmentService(AppointmentRepository appointmentRepository) {
@@ -29,7 +45,7 @@ public class AppointmentService {
      */
     public AppointmentDTO createAppointment(AppointmentDTO appointmentDTO) {
         Appointment appointment = new Appointment();
-        BeanUtils.copyProperties(appointmentDTO, appointment);
+        BeanUtils.copyProperties(appointmentDTO, appointment, "version");
 
         appointmentRepository.save(appointment);
 
@@ -37,49 +53,87 @@ public class AppointmentService {
     }
 
     /**
-     * Retrieves a list of appointments from the appointment database based on the doctor's name
+     * Retrieves one page of a doctor's appointments from the appointment database, in order of date, time and ID,
+     * along with the version of the page. Pages are read with a keyset on the position of the last appointment
+     * returned, so each page costs the same however far into the schedule it is
+     *
+     * @param firstName - the first name of the doctor
+     * @param lastName  - the last name of the doctor
+     * @param from      - the earliest appointment date to include, or null for no lower bound
+     * @param to        - the latest appointment date to include, or null for no upper bound
+     * @param cursor    - the nextCursor of the previous page, or null for the first page
+     * @param size      - the maximum number of appointments in the page
+     * @return - the page of appointments and the cursor of the next page, which is null on the last page, and
+     * the version of the page
+     * @throws InvalidCursorException if the cursor is malformed
+     */
+    public Versioned<AppointmentPageDTO> getAppointmentsByDoctorName(String firstName, String lastName,
+                                                                     LocalDate from, LocalDate to, String cursor,
+                                                                     int size) throws InvalidCursorException {
+        SchedulePage schedulePage = SchedulePage.of(from, to, cursor, size);
+        int pageSize = schedulePage.size();
+
+        List<Appointment> appointments = appointmentRepository.findScheduleAfter(firstName, lastName,
+                schedulePage.from(), schedulePage.to(), schedulePage.position().appointmentDate(),
+                schedulePage.position().appointmentTime(), schedulePage.position().id(), pageSize + 1);
+
+        boolean hasNextPage = appointments.size() > pageSize;
+        List<Appointment> page = hasNextPage ? appointments.subList(0, pageSize) : appointments;
+
+        String nextCursor = hasNextPage ? new AppointmentCursor(page.get(pageSize - 1)).encode() : null;
+
+        return new Versioned<>(new AppointmentPageDTO(page.stream().map(AppointmentDTO::new).toList(), nextCursor),
+                getScheduleVersion(appointments));
+    }
+
+    /**
+     * Retrieves only the version of one page of a doctor's appointments, which is the page's ETag. The version
+     * also covers the first appointment of the next page, since whether it exists decides the nextCursor
      *
      * @param firstName - the first name of the doctor
      * @param lastName  - the last name of the doctor
-     * @return - the list of appointments
+     * @param from      - the earliest appointment date to include, or null for no lower bound
+     * @param to        - the latest appointment date to include, or null for no upper bound
+     * @param cursor    - the nextCursor of the previous page, or null for the first page
+     * @param size      - the maximum number of appointments in the page
+     * @return - the version of the page
+     * @throws InvalidCursorException if the cursor is malformed
      */
-    public List<AppointmentDTO> getAppointmentsByDoctorName(String firstName, String lastName) {
-        List<Appointment> appointments =
-                appointmentRepository
-                        .findByDoctorFirstNameAndDoctorLastNameOrderByAppointmentDate(firstName, lastName);
-
-        return appointments.stream()
-                .map(AppointmentDTO::new)
-                .toList();
+    public String getAppointmentPageVersion(String firstName, String lastName, LocalDate from, LocalDate to,
+                                            String cursor, int size) throws InvalidCursorException {
+        SchedulePage schedulePage = SchedulePage.of(from, to, cursor, size);
+
+        return appointmentRepository.findScheduleVersionAfter(firstName, lastName, schedulePage.from(),
+                schedulePage.to(), schedulePage.position().appointmentDate(),
+                schedulePage.position().appointmentTime(), schedulePage.position().id(), schedulePage.size() + 1);
     }
 
     /**
-     * Updates the appointment with the specified ID and merges it to the appointment database
+     * Updates the appointment with the specified ID in a single conditional statement, so that concurrent updates
+     * cannot overwrite each other, and retrieves the updated appointment. An update that changes nothing keeps
+     * the current version
      *
      * @param appointmentDTO - the AppointmentDTO object from the doctor API
      * @param appointmentId  - the ID of the appointment
-     * @return - the updated appointment
+     * @param version        - the version the appointment must have, or null to update any version
+     * @return - the updated appointment and its new version
      * @throws AppointmentNotFoundException if the appointment with the specified ID is not found
+     * @throws AppointmentModifiedException if the appointment does not have the specified version
      */
-    public AppointmentDTO updateAppointmentInfo(AppointmentDTO appointmentDTO, Long appointmentId)
-            throws AppointmentNotFoundException {
-        Appointment appointment = getAppointmentById(appointmentId);
-
-        updateAppointmentIfNotNull(appointmentDTO.patientFirstName(), appointment::getPatientFirstName,
-                appointment::setPatientFirstName);
-
-        updateAppointmentIfNotNull(appointmentDTO.patientLastName(), appointment::getPatientLastName,
-                appointment::setPatientLastName);
+    @Transactional
+    public Versioned<AppointmentDTO> updateAppointmentInfo(AppointmentDTO appointmentDTO, Long appointmentId,
+                                                           Long version)
+            throws AppointmentNotFoundException, AppointmentModifiedException {
+        int updated = appointmentRepository.updateAppointmentInfo(appointmentId, appointmentDTO.patientFirstName(),
+                appointmentDTO.patientLastName(), appointmentDTO.appointmentDate(),
+                appointmentDTO.appointmentTime(), version);
 
-        updateAppointmentIfNotNull(appointmentDTO.appointmentDate(), appointment::getAppointmentDate,
-                appointment::setAppointmentDate);
-
-        updateAppointmentIfNotNull(appointmentDTO.appointmentTime(), appointment::getAppointmentTime,
-                appointment::setAppointmentTime);
+        Appointment appointment = getAppointmentById(appointmentId);
 
-        appointmentRepository.save(appointment);
+        if (updated == 0 && version != null && !version.equals(appointment.getVersion()))
+            throw new AppointmentModifiedException("The appointment has been modified since it was retrieved.");
 
-        return new AppointmentDTO(appointment);
+        return new Versioned<>(new AppointmentDTO(appointment), String.valueOf(appointment.getVersion()));
     }
 
     /**
@@ -95,20 +149,18 @@ public class AppointmentService {
     }
 
     /**
-     * Checks the fields of an Appointment payload object and updates the specified object if the specified field
-     * is not null and does not equal the current value of the field
+     * Hashes the IDs and versions of the appointments the same way as
+     * AppointmentRepository.findScheduleVersionAfter
      *
-     * @param attribute           - the field attribute to check
-     * @param appointmentSupplier - the Appointment entity to check
-     * @param appointmentConsumer - the Appointment entity to update if the requirements are met
-     * @param <T>                 - the type of the attribute
+     * @param appointments - the appointments, in schedule order
+     * @return - the version of the appointments
      */
-    private <T> void updateAppointmentIfNotNull(T attribute, Supplier<T> appointmentSupplier,
-                                                Consumer<T> appointmentConsumer) {
-        Predicate<T> predicate = input -> !input.equals(attribute);
+    private String getScheduleVersion(List<Appointment> appointments) {
+        String versions = appointments.stream()
+                .map(appointment -> appointment.getId() + ":" + appointment.getVersion())
+                .collect(Collectors.joining(","));
 
-        if (attribute != null && predicate.test(appointmentSupplier.get()))
-            appointmentConsumer.accept(attribute);
+        return DigestUtils.md5DigestAsHex(versions.getBytes(StandardCharsets.UTF_8));
     }
 
     /**
@@ -122,4 +174,20 @@ public class AppointmentService {
         return appointmentRepository.findById(appointmentId)
                 .orElseThrow(() -> new AppointmentNotFoundException("No appointment with the specified ID found."));
     }
+
+    /**
+     * The bounds, starting position and size of a page of a doctor's schedule, with the defaults applied
+     */
+    private record SchedulePage(LocalDate from, LocalDate to, AppointmentCursor position, int size) {
+
+        static SchedulePage of(LocalDate from, LocalDate to, String cursor, int size) throws InvalidCursorException {
+            LocalDate lowerBound = from != null ? from : EARLIEST_DATE;
+            LocalDate upperBound = to != null ? to : LATEST_DATE;
+
+            AppointmentCursor position = cursor != null ? AppointmentCursor.decode(cursor) :
+                    new AppointmentCursor(lowerBound, LocalTime.MIN, 0L);
+
+            return new SchedulePage(lowerBound, upperBound, position, Math.min(Math.max(size, 1), MAX_PAGE_SIZE));
+        }
+    }
 }
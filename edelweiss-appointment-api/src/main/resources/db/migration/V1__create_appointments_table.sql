@@ -0,0 +1,18 @@
+create table if not exists appointments (
+    appointment_id bigserial primary key,
+    doctor_first_name VARCHAR(20) not null,
+    doctor_last_name VARCHAR(30) not null,
+    patient_first_name VARCHAR(20) not null,
+    patient_last_name VARCHAR(30) not null,
+    appointment_date date not null,
+    appointment_time time not null
+);
+
+-- Databases created from sql/tables.sql have an integer appointment_id, while the entity maps it as a Long
+alter table appointments alter column appointment_id type bigint;
+
+do $$
+begin
+    execute format('alter sequence %s as bigint', pg_get_serial_sequence('appointments', 'appointment_id'));
+end
+$$;
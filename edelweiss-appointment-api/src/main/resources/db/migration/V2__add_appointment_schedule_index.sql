@@ -0,0 +1,4 @@
+-- Serves the keyset-paginated "my appointments" query: equality on the doctor's name, then the
+-- (appointment_date, appointment_time, appointment_id) row comparison and sort, read straight off the index
+create index if not exists idx_appointments_doctor_schedule
+    on appointments (doctor_last_name, doctor_first_name, appointment_date, appointment_time, appointment_id);
@@ -0,0 +1,6 @@
+-- Hibernate allocates appointment IDs 50 at a time, so the sequence must step by the same allocation size
+do $$
+begin
+    execute format('alter sequence %s increment by 50', pg_get_serial_sequence('appointments', 'appointment_id'));
+end
+$$;
@@ -0,0 +1,4 @@
+-- The version of each appointment row, bumped by Hibernate on every update. The versions of the appointments in
+-- a page of a doctor's schedule are hashed into the page's ETag, so a conditional read can be answered from
+-- idx_appointments_doctor_schedule and this column without loading the appointments
+alter table appointments add column version bigint not null default 0;
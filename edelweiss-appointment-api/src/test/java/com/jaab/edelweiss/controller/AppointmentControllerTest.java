@@ -1,12 +1,17 @@
 package com.jaab.edelweiss.controller;
 
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
+import com.jaab.edelweiss.dto.Versioned;
+import com.jaab.edelweiss.exception.AppointmentModifiedException;
 import com.jaab.edelweiss.exception.AppointmentNotFoundException;
 import com.jaab.edelweiss.service.AppointmentService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
@@ -15,6 +20,8 @@ import java.time.LocalTime;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @WebFluxTest(controllers = AppointmentController.class)
@@ -43,14 +50,34 @@ public class AppointmentControllerTest {
 
     @Test
     public void getAppointmentsByDoctorNameTest() {
-        when(appointmentService.getAppointmentsByDoctorName(anyString(), anyString()))
-                .thenReturn(getAppointmentDTOsByDoctorName());
+        when(appointmentService.getAppointmentsByDoctorName(anyString(), anyString(), any(), any(), any(), anyInt()))
+                .thenReturn(new Versioned<>(new AppointmentPageDTO(getAppointmentDTOsByDoctorName(), null), "5e"));
 
         webTestClient.get()
-                .uri("/physician/myAppointments/" + doctorFirstName + "/" + doctorLastName)
+                .uri("/physician/myAppointments/" + doctorFirstName + "/" + doctorLastName +
+                        "?from=" + YEAR + "-05-01&size=10")
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(AppointmentDTO.class).hasSize(2);
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5e\"")
+                .expectBody()
+                .jsonPath("$.appointments.length()").isEqualTo(2)
+                .jsonPath("$.nextCursor").isEmpty();
+    }
+
+    @Test
+    public void getAppointmentsByDoctorNameNotModifiedTest() {
+        when(appointmentService.getAppointmentPageVersion(anyString(), anyString(), any(), any(), any(), anyInt()))
+                .thenReturn("5e");
+
+        webTestClient.get()
+                .uri("/physician/myAppointments/" + doctorFirstName + "/" + doctorLastName + "?size=10")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"5e\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5e\"");
+
+        verify(appointmentService, never())
+                .getAppointmentsByDoctorName(anyString(), anyString(), any(), any(), any(), anyInt());
     }
 
     @Test
@@ -58,18 +85,37 @@ public class AppointmentControllerTest {
         AppointmentDTO appointmentDTO = new AppointmentDTO(juneAppointment.getId(),
                 juneAppointment.getDoctorFirstName(), juneAppointment.getDoctorLastName(),
                 juneAppointment.getPatientFirstName(), juneAppointment.getPatientLastName(),
-                LocalDate.of(YEAR, 6, 20), LocalTime.of(11, 30));
+                LocalDate.of(YEAR, 6, 20), LocalTime.of(11, 30), juneAppointment.getVersion());
 
-        when(appointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong()))
-                .thenReturn(appointmentDTO);
+        when(appointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong(), eq(3L)))
+                .thenReturn(new Versioned<>(appointmentDTO, "4"));
 
         webTestClient.patch()
                 .uri("/physician//updateAppointmentInfo/" + appointmentDTO.id())
                 .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
                 .bodyValue(appointmentDTO)
                 .accept(MediaType.APPLICATION_JSON)
                 .exchange()
-                .expectStatus().isOk();
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+    }
+
+    @Test
+    public void updateAppointmentInfoModifiedTest() {
+        AppointmentDTO appointmentDTO = new AppointmentDTO(juneAppointment);
+
+        when(appointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong(), eq(ETags.NO_VERSION)))
+                .thenThrow(AppointmentModifiedException.class);
+
+        webTestClient.patch()
+                .uri("/physician//updateAppointmentInfo/" + appointmentDTO.id())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "W/\"3\"")
+                .bodyValue(appointmentDTO)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
     }
 
     @Test
@@ -77,9 +123,9 @@ public class AppointmentControllerTest {
         AppointmentDTO appointmentDTO = new AppointmentDTO(juneAppointment.getId(),
                 juneAppointment.getDoctorFirstName(), juneAppointment.getDoctorLastName(),
                 juneAppointment.getPatientFirstName(), juneAppointment.getPatientLastName(),
-                LocalDate.of(YEAR, 6, 20), LocalTime.of(11, 30));
+                LocalDate.of(YEAR, 6, 20), LocalTime.of(11, 30), juneAppointment.getVersion());
 
-        when(appointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong()))
+        when(appointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong(), isNull()))
                 .thenThrow(AppointmentNotFoundException.class);
 
         webTestClient.patch()
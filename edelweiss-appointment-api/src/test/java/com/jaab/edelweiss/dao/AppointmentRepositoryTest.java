@@ -1,6 +1,7 @@
 package com.jaab.edelweiss.dao;
 
 import com.jaab.edelweiss.model.Appointment;
+import com.jaab.edelweiss.service.AppointmentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -14,6 +15,7 @@ import java.util.List;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -25,39 +27,111 @@ public class AppointmentRepositoryTest {
     @Autowired
     private TestEntityManager entityManager;
 
+    private static final LocalDate EARLIEST = LocalDate.of(1, 1, 1);
+
+    private static final LocalDate LATEST = LocalDate.of(9999, 12, 31);
+
     @BeforeEach
     void init() {
         Appointment appointment1 = new Appointment(null, doctorFirstName, doctorLastName,
                 "Squall", "Leonheart", LocalDate.of(YEAR, 5, 5),
-                LocalTime.of(10, 0));
+                LocalTime.of(10, 0), null);
 
         Appointment appointment2 = new Appointment(null, doctorFirstName, doctorLastName,
                 "Zidaine", "Tribal", LocalDate.of(YEAR, 5, 7),
-                LocalTime.of(10, 30));
+                LocalTime.of(10, 30), null);
 
         Appointment appointment3 = new Appointment(null, "Doctor", "Cid",
                 "Vayne", "Solidor", LocalDate.of(YEAR, 3, 6),
-                LocalTime.of(9, 0));
+                LocalTime.of(9, 0), null);
 
         entityManager.persist(appointment1);
         entityManager.persist(appointment2);
         entityManager.persist(appointment3);
     }
 
+    @Test
+    public void updateAppointmentInfoTest() {
+        Appointment appointment = appointmentRepository.findScheduleAfter(doctorFirstName, doctorLastName,
+                EARLIEST, LATEST, EARLIEST, LocalTime.MIN, 0L, 1).get(0);
+        entityManager.flush();
+
+        assertEquals(0, appointmentRepository.updateAppointmentInfo(appointment.getId(), null, null,
+                LocalDate.of(YEAR, 5, 20), null, 1L));
+        assertEquals(1, appointmentRepository.updateAppointmentInfo(appointment.getId(), null, null,
+                LocalDate.of(YEAR, 5, 20), null, 0L));
+        assertEquals(0, appointmentRepository.updateAppointmentInfo(appointment.getId(), "Squall", null,
+                LocalDate.of(YEAR, 5, 20), LocalTime.of(10, 0), 1L));
+        assertEquals(0, appointmentRepository.updateAppointmentInfo(appointment.getId(), null, null,
+                null, null, null));
+
+        Appointment updatedAppointment = appointmentRepository.findById(appointment.getId()).orElseThrow();
+
+        assertEquals(LocalDate.of(YEAR, 5, 20), updatedAppointment.getAppointmentDate());
+        assertEquals(LocalTime.of(10, 0), updatedAppointment.getAppointmentTime());
+        assertEquals("Squall", updatedAppointment.getPatientFirstName());
+        assertEquals(1L, updatedAppointment.getVersion());
+    }
+
     @Test
     public void getAppointmentsByDoctorNameTest() {
-        List<Appointment> appointments =
-                appointmentRepository
-                        .findByDoctorFirstNameAndDoctorLastNameOrderByAppointmentDate(doctorFirstName, doctorLastName);
+        List<Appointment> appointments = appointmentRepository.findScheduleAfter(doctorFirstName, doctorLastName,
+                EARLIEST, LATEST, EARLIEST, LocalTime.MIN, 0L, 10);
 
         assertEquals(2, appointments.size());
+        assertEquals("Squall", appointments.get(0).getPatientFirstName());
+    }
+
+    @Test
+    public void getAppointmentPageVersionTest() {
+        AppointmentService appointmentService = new AppointmentService(appointmentRepository);
+        entityManager.flush();
+
+        String version = appointmentRepository.findScheduleVersionAfter(doctorFirstName, doctorLastName,
+                EARLIEST, LATEST, EARLIEST, LocalTime.MIN, 0L, 2);
+
+        assertEquals(version, appointmentService.getAppointmentsByDoctorName(doctorFirstName, doctorLastName,
+                null, null, null, 1).version());
+
+        appointmentRepository.findScheduleAfter(doctorFirstName, doctorLastName, EARLIEST, LATEST, EARLIEST,
+                LocalTime.MIN, 0L, 2).get(1).setPatientLastName("Alexandros");
+        entityManager.flush();
+
+        String updatedVersion = appointmentService.getAppointmentPageVersion(doctorFirstName, doctorLastName,
+                null, null, null, 1);
+
+        assertNotEquals(version, updatedVersion);
+        assertEquals(updatedVersion, appointmentService.getAppointmentsByDoctorName(doctorFirstName,
+                doctorLastName, null, null, null, 1).version());
+    }
+
+    @Test
+    public void getAppointmentsByDoctorNameAfterPositionTest() {
+        Appointment first = appointmentRepository.findScheduleAfter(doctorFirstName, doctorLastName,
+                EARLIEST, LATEST, EARLIEST, LocalTime.MIN, 0L, 1).get(0);
+
+        List<Appointment> appointments = appointmentRepository.findScheduleAfter(doctorFirstName, doctorLastName,
+                EARLIEST, LATEST, first.getAppointmentDate(), first.getAppointmentTime(), first.getId(), 10);
+
+        assertEquals(1, appointments.size());
+        assertEquals("Zidaine", appointments.get(0).getPatientFirstName());
+    }
+
+    @Test
+    public void getAppointmentsByDoctorNameDateRangeTest() {
+        LocalDate date = LocalDate.of(YEAR, 5, 7);
+
+        List<Appointment> appointments = appointmentRepository.findScheduleAfter(doctorFirstName, doctorLastName,
+                date, date, date, LocalTime.MIN, 0L, 10);
+
+        assertEquals(1, appointments.size());
+        assertEquals("Zidaine", appointments.get(0).getPatientFirstName());
     }
 
     @Test
     public void getAppointmentsByDoctorNameEmptyListTest() {
-        List<Appointment> appointments =
-                appointmentRepository
-                        .findByDoctorFirstNameAndDoctorLastNameOrderByAppointmentDate("Solas", "Wolffe");
+        List<Appointment> appointments = appointmentRepository.findScheduleAfter("Solas", "Wolffe",
+                EARLIEST, LATEST, EARLIEST, LocalTime.MIN, 0L, 10);
 
         assertEquals(0, appointments.size());
     }
@@ -1,8 +1,14 @@
 package com.jaab.edelweiss.service;
 
 import com.jaab.edelweiss.dao.AppointmentRepository;
+import com.jaab.edelweiss.dto.AppointmentCursor;
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
+import com.jaab.edelweiss.dto.Versioned;
+import com.jaab.edelweiss.exception.AppointmentModifiedException;
 import com.jaab.edelweiss.exception.AppointmentNotFoundException;
+import com.jaab.edelweiss.exception.InvalidCursorException;
+import com.jaab.edelweiss.model.Appointment;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
@@ -11,14 +17,11 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.List;
 import java.util.Optional;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.ArgumentMatchers.anyString;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -42,41 +45,105 @@ public class AppointmentServiceTest {
 
     @Test
     public void getAppointmentsByDoctorNameTest() {
-        when(appointmentRepository
-                .findByDoctorFirstNameAndDoctorLastNameOrderByAppointmentDate(anyString(), anyString()))
+        when(appointmentRepository.findScheduleAfter(anyString(), anyString(), any(LocalDate.class),
+                any(LocalDate.class), any(LocalDate.class), any(LocalTime.class), anyLong(), anyInt()))
                 .thenReturn(getAppointmentsByDoctorName());
 
-        List<AppointmentDTO> appointments =
-                appointmentService.getAppointmentsByDoctorName(doctorFirstName, doctorLastName);
+        AppointmentPageDTO page = appointmentService.getAppointmentsByDoctorName(doctorFirstName, doctorLastName,
+                null, null, null, 10).body();
 
-        assertEquals(2, appointments.size());
+        assertEquals(2, page.appointments().size());
+        assertNull(page.nextCursor());
     }
 
     @Test
-    public void updateAppointmentInfoTest() {
-        assertEquals(LocalDate.of(YEAR, 6, 6), juneAppointment.getAppointmentDate());
-        assertEquals(LocalTime.of(10, 30), juneAppointment.getAppointmentTime());
+    public void getAppointmentsByDoctorNameNextPageTest() {
+        when(appointmentRepository.findScheduleAfter(anyString(), anyString(), any(LocalDate.class),
+                any(LocalDate.class), any(LocalDate.class), any(LocalTime.class), anyLong(), eq(2)))
+                .thenReturn(getAppointmentsByDoctorName());
+
+        AppointmentPageDTO page = appointmentService.getAppointmentsByDoctorName(doctorFirstName, doctorLastName,
+                null, null, null, 1).body();
+
+        assertEquals(1, page.appointments().size());
+        assertEquals(new AppointmentCursor(mayAppointment), AppointmentCursor.decode(page.nextCursor()));
+    }
+
+    @Test
+    public void getAppointmentsByDoctorNameFromCursorTest() {
+        String cursor = new AppointmentCursor(mayAppointment).encode();
+
+        appointmentService.getAppointmentsByDoctorName(doctorFirstName, doctorLastName,
+                null, null, cursor, 10);
 
+        verify(appointmentRepository, times(1)).findScheduleAfter(eq(doctorFirstName), eq(doctorLastName),
+                any(LocalDate.class), any(LocalDate.class), eq(mayAppointment.getAppointmentDate()),
+                eq(mayAppointment.getAppointmentTime()), eq(mayAppointment.getId()), eq(11));
+    }
+
+    @Test
+    public void getAppointmentsByDoctorNameInvalidCursorTest() {
+        assertThrows(InvalidCursorException.class,
+                () -> appointmentService.getAppointmentsByDoctorName(doctorFirstName, doctorLastName,
+                        null, null, "not-a-cursor", 10));
+    }
+
+    @Test
+    public void updateAppointmentInfoTest() {
         AppointmentDTO appointmentDTO = new AppointmentDTO(null, null, null,
                 null, null, LocalDate.of(YEAR, 6, 20),
-                LocalTime.of(11, 30));
+                LocalTime.of(11, 30), null);
 
+        when(appointmentRepository.updateAppointmentInfo(juneAppointment.getId(), null, null,
+                LocalDate.of(YEAR, 6, 20), LocalTime.of(11, 30), 3L)).thenReturn(1);
         when(appointmentRepository.findById(anyLong())).thenReturn(Optional.of(juneAppointment));
 
-        appointmentService.updateAppointmentInfo(appointmentDTO, juneAppointment.getId());
+        Versioned<AppointmentDTO> appointment =
+                appointmentService.updateAppointmentInfo(appointmentDTO, juneAppointment.getId(), 3L);
 
-        assertEquals(LocalDate.of(YEAR, 6, 20), juneAppointment.getAppointmentDate());
-        assertEquals(LocalTime.of(11, 30), juneAppointment.getAppointmentTime());
+        assertEquals(new AppointmentDTO(juneAppointment), appointment.body());
+        verify(appointmentRepository, never()).save(any(Appointment.class));
     }
 
     @Test
     public void updateAppointmentInfoExceptionTest() {
         AppointmentDTO appointmentDTO = new AppointmentDTO(null, null, null,
                 null, null, LocalDate.of(YEAR, 6, 20),
-                LocalTime.of(11, 30));
+                LocalTime.of(11, 30), null);
 
         assertThrows(AppointmentNotFoundException.class,
-                () -> appointmentService.updateAppointmentInfo(appointmentDTO, juneAppointment.getId()));
+                () -> appointmentService.updateAppointmentInfo(appointmentDTO, juneAppointment.getId(), null));
+    }
+
+    @Test
+    public void updateAppointmentInfoModifiedExceptionTest() {
+        AppointmentDTO appointmentDTO = new AppointmentDTO(null, null, null,
+                null, null, LocalDate.of(YEAR, 6, 20),
+                LocalTime.of(11, 30), null);
+
+        when(appointmentRepository.findById(anyLong())).thenReturn(Optional.of(juneAppointment));
+
+        assertThrows(AppointmentModifiedException.class,
+                () -> appointmentService.updateAppointmentInfo(appointmentDTO, juneAppointment.getId(), 3L));
+    }
+
+    @Test
+    public void updateAppointmentInfoUnchangedTest() {
+        AppointmentDTO appointmentDTO = new AppointmentDTO(null, null, null,
+                null, null, LocalDate.of(YEAR, 6, 6),
+                LocalTime.of(10, 30), null);
+
+        Appointment unchangedAppointment = new Appointment(juneAppointment.getId(), doctorFirstName, doctorLastName,
+                "Zidaine", "Tribal", LocalDate.of(YEAR, 6, 6),
+                LocalTime.of(10, 30), 3L);
+
+        when(appointmentRepository.findById(anyLong())).thenReturn(Optional.of(unchangedAppointment));
+
+        Versioned<AppointmentDTO> appointment =
+                appointmentService.updateAppointmentInfo(appointmentDTO, juneAppointment.getId(), 3L);
+
+        assertEquals(new AppointmentDTO(unchangedAppointment), appointment.body());
+        assertEquals("3", appointment.version());
     }
 
     @Test
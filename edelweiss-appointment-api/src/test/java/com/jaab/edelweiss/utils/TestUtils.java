@@ -19,15 +19,15 @@ public abstract class TestUtils {
 
     public static Appointment mayAppointment = new Appointment(1L, doctorFirstName, doctorLastName,
             "Squall", "Leonheart", LocalDate.of(YEAR, 5, 5),
-            LocalTime.of(10, 0));
+            LocalTime.of(10, 0), null);
 
     public static Appointment juneAppointment = new Appointment(2L, doctorFirstName, doctorLastName,
             "Zidaine", "Tribal", LocalDate.of(YEAR, 6, 6),
-            LocalTime.of(10, 30));
+            LocalTime.of(10, 30), null);
 
     public static Appointment julyAppointment = new Appointment(3L, "Doctor", "Cid",
             "Vayne", "Solidor", LocalDate.of(YEAR, 7, 9),
-            LocalTime.of(8, 0));
+            LocalTime.of(8, 0), null);
 
     public static List<Appointment> getAppointmentsByDoctorName() {
         List<Appointment> appointments = new ArrayList<>();
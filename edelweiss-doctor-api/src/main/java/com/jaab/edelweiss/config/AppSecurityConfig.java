@@ -29,7 +29,7 @@ public class AppSecurityConfig {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/newPhysician", "/login").permitAll()
+                        .requestMatchers("/newPhysician", "/login", "/physician/logout").permitAll()
                         .requestMatchers("/physician/**").hasRole(Role.PHYSICIAN.name())
                         .anyRequest().authenticated())
                 .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
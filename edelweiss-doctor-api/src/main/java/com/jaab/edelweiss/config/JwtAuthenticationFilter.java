@@ -2,11 +2,14 @@ package com.jaab.edelweiss.config;
 
 import com.jaab.edelweiss.service.JwtService;
 import com.jaab.edelweiss.service.LoginService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,9 +26,18 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final LoginService loginService;
 
-    public JwtAuthenticationFilter(JwtService jwtService, LoginService loginService) {
+    private final boolean statelessVerification;
+
+    private final boolean revocationCheck;
+
+    public JwtAuthenticationFilter(JwtService jwtService, LoginService loginService,
+                                   @Value("${edelweiss.jwt.stateless-verification:true}")
+                                   boolean statelessVerification,
+                                   @Value("${edelweiss.jwt.revocation-check:true}") boolean revocationCheck) {
         this.jwtService = jwtService;
         this.loginService = loginService;
+        this.statelessVerification = statelessVerification;
+        this.revocationCheck = revocationCheck;
     }
 
     @Override
@@ -33,34 +45,66 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
 
-        if (request.getCookies() != null) {
-            for (Cookie cookie : request.getCookies()) {
-                if (cookie.getName().equals("accessToken")) {
-                    String token = cookie.getValue();
+        String token = getAccessToken(request);
 
-                    if (token == null) {
-                        filterChain.doFilter(request, response);
-                        return;
-                    }
+        if (token != null) {
+            try {
+                UserDetails userDetails = getUserDetails(token);
 
-                    String email = jwtService.extractEmail(token);
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authToken =
+                            new UsernamePasswordAuthenticationToken(userDetails,
+                                    null, userDetails.getAuthorities());
+
+                    SecurityContextHolder.getContext().setAuthentication(authToken);
+                }
+            } catch (JwtException e) {
+                logger.debug("Rejected invalid access token", e);
+            }
+        }
 
-                    if (email != null) {
-                        UserDetails userDetails = loginService.loadUserByUsername(email);
+        filterChain.doFilter(request, response);
+    }
 
-                        if (jwtService.isTokenValid(token, userDetails)) {
-                            UsernamePasswordAuthenticationToken authToken =
-                                    new UsernamePasswordAuthenticationToken(userDetails,
-                                            null, userDetails.getAuthorities());
+    /**
+     * Resolves the authenticated user from the access token, whose claims are parsed only once. In stateless
+     * mode the user is rebuilt from the signed claims; otherwise the user is loaded from the doctor database
+     *
+     * @param token - the access token
+     * @return - the authenticated user, or null if the token is not valid
+     */
+    private UserDetails getUserDetails(String token) {
+        Claims claims = jwtService.parseClaims(token);
 
-                            SecurityContextHolder.getContext().setAuthentication(authToken);
-                        }
-                    }
+        if (revocationCheck && jwtService.isTokenRevoked(claims))
+            return null;
 
-                    filterChain.doFilter(request, response);
-                }
-            }
-        } else
-            filterChain.doFilter(request, response);
+        if (statelessVerification)
+            return jwtService.extractUserDetails(claims);
+
+        if (claims.getSubject() == null)
+            return null;
+
+        UserDetails userDetails = loginService.loadUserByUsername(claims.getSubject());
+
+        return jwtService.isTokenValid(claims, userDetails) ? userDetails : null;
+    }
+
+    /**
+     * Retrieves the access token from the request cookies
+     *
+     * @param request - the HTTP request
+     * @return - the access token, or null if the request has none
+     */
+    private String getAccessToken(HttpServletRequest request) {
+        if (request.getCookies() == null)
+            return null;
+
+        for (Cookie cookie : request.getCookies()) {
+            if (cookie.getName().equals("accessToken"))
+                return cookie.getValue();
+        }
+
+        return null;
     }
 }
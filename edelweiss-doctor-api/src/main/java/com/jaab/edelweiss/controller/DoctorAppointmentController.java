@@ -1,14 +1,19 @@
 package com.jaab.edelweiss.controller;
 
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
 import com.jaab.edelweiss.exception.AppointmentException;
 import com.jaab.edelweiss.service.DoctorAppointmentService;
+import com.jaab.edelweiss.utils.ETags;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.LocalDate;
+
 /**
  * This class is a controller for the endpoints that create and maintain appointment data
  *
@@ -37,26 +42,44 @@ public class DoctorAppointmentController {
     }
 
     /**
-     * Retrieves the specified doctor's appointments from the appointment API
+     * Retrieves one page of the doctor's appointments from the appointment API. If-None-Match is forwarded and the
+     * appointment API's ETag is passed back, so an unchanged page is answered with a 304
      *
-     * @return - HTTP status response with the list of the doctor's appointments
+     * @param from    - the earliest appointment date to include
+     * @param to      - the latest appointment date to include
+     * @param cursor  - the nextCursor of the previous page
+     * @param size    - the maximum number of appointments in the page
+     * @param headers - the request headers, which may contain If-None-Match
+     * @return - HTTP status response with the page of the doctor's appointments, or a 304 if the client's copy
+     * is current
      */
     @GetMapping(value = "/myAppointments")
-    public ResponseEntity<Flux<AppointmentDTO>> getAppointments() {
-        return ResponseEntity.ok(doctorAppointmentService.getAppointments());
+    public Mono<ResponseEntity<AppointmentPageDTO>> getAppointments(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer size,
+            @RequestHeader HttpHeaders headers) {
+        return doctorAppointmentService.getAppointments(from, to, cursor, size, headers.getIfNoneMatch())
+                .map(ETags::relay);
     }
 
     /**
-     * Updates an appointment with the corresponding ID and sends it to the appointment API
+     * Updates an appointment with the corresponding ID and sends it to the appointment API. If-Match is forwarded
+     * and the appointment API's ETag is passed back, so an appointment changed by someone else is answered with
+     * a 412
      *
      * @param appointmentDTO - the AppointmentDTO payload containing the updated information
      * @param appointmentId  - the ID of the appointment
+     * @param headers        - the request headers, which may contain If-Match
      * @return - HTTP status response with the updated information
      */
     @PatchMapping(value = "/updateAppointmentInfo/{appointmentId}")
-    public ResponseEntity<Mono<AppointmentDTO>> updateAppointmentInfo(@RequestBody AppointmentDTO appointmentDTO,
-                                                                      @PathVariable Long appointmentId) {
-        return ResponseEntity.ok(doctorAppointmentService.updateAppointmentInfo(appointmentDTO, appointmentId));
+    public Mono<ResponseEntity<AppointmentDTO>> updateAppointmentInfo(@RequestBody AppointmentDTO appointmentDTO,
+                                                                      @PathVariable Long appointmentId,
+                                                                      @RequestHeader HttpHeaders headers) {
+        return doctorAppointmentService.updateAppointmentInfo(appointmentDTO, appointmentId, headers.getIfMatch())
+                .map(ETags::relay);
     }
 
     /**
@@ -5,6 +5,7 @@ import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.model.Doctor;
 import com.jaab.edelweiss.service.DoctorService;
 import com.jaab.edelweiss.service.JwtService;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.*;
@@ -57,6 +58,40 @@ public class DoctorController {
             throw new BadCredentialsException("Invalid email or password");
     }
 
+    /**
+     * Revokes the doctor's access token and clears the access token cookie. A token that is expired or cannot be
+     * verified no longer authenticates anyone, so it counts as already logged out and only the cookie is cleared
+     *
+     * @param accessToken - the access token of the doctor
+     * @param response    - the HTTP response
+     * @return - HTTP status response
+     */
+    @PostMapping(value = "/physician/logout")
+    public ResponseEntity<String> logout(@CookieValue(value = "accessToken") String accessToken,
+                                         HttpServletResponse response) {
+        boolean revoked = true;
+
+        try {
+            jwtService.revokeToken(accessToken);
+        } catch (JwtException e) {
+            revoked = false;
+        }
+
+        ResponseCookie cookie = ResponseCookie.from("accessToken", "")
+                .httpOnly(true)
+                .secure(false)
+                .path("/physician/")
+                .maxAge(0)
+                .build();
+
+        response.setHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+
+        if (!revoked)
+            return ResponseEntity.noContent().build();
+
+        return ResponseEntity.ok("Successfully logged out.");
+    }
+
     /**
      * Saves a new doctor to the doctor database
      *
@@ -3,12 +3,17 @@ package com.jaab.edelweiss.controller;
 import com.jaab.edelweiss.dto.AddressDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
 import com.jaab.edelweiss.service.DoctorPatientService;
+import com.jaab.edelweiss.utils.ETags;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * This class is a controller for the endpoints that retrieve patient information from the patient API
  *
@@ -25,14 +30,30 @@ public class DoctorPatientController {
     }
 
     /**
-     * Retrieves a patient from the patient API based on the patient's ID
+     * Retrieves a patient from the patient API based on the patient's ID. The patient API's version of the patient
+     * is passed on as the ETag, and a 304 is returned when it matches If-None-Match
      *
      * @param patientId - the ID of the patient
-     * @return - HTTP status response with the patient data
+     * @param headers   - the request headers, which may contain If-None-Match
+     * @return - HTTP status response with the patient data, or a 304 if the client's copy is current
      */
     @GetMapping(value = "/getPatientById/{patientId}")
-    public ResponseEntity<Mono<PatientDTO>> getPatientById(@PathVariable Long patientId) {
-        return ResponseEntity.ok(doctorPatientService.getPatientById(patientId));
+    public Mono<ResponseEntity<PatientDTO>> getPatientById(@PathVariable Long patientId,
+                                                           @RequestHeader HttpHeaders headers) {
+        return doctorPatientService.getPatientById(patientId)
+                .map(patient -> ETags.conditional(headers.getIfNoneMatch(), patient.version(), patient));
+    }
+
+    /**
+     * Retrieves the patients with the specified IDs from the patient API in a single request
+     *
+     * @param patientIds - the IDs of the patients
+     * @return - HTTP status response with the list of patients
+     */
+    @PostMapping(value = "/getPatientsByIds", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<Flux<PatientDTO>> getPatientsByIds(@RequestBody List<Long> patientIds) {
+        return ResponseEntity.ok(doctorPatientService.getPatientsByIds(patientIds));
     }
 
     /**
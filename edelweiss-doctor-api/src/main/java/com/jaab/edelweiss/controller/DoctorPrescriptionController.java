@@ -4,9 +4,13 @@ import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.UpdatePrescriptionDTO;
 import com.jaab.edelweiss.exception.PrescriptionException;
 import com.jaab.edelweiss.service.DoctorPrescriptionService;
+import com.jaab.edelweiss.utils.AuthUtils;
+import com.jaab.edelweiss.utils.ETags;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
@@ -32,32 +36,42 @@ public class DoctorPrescriptionController {
      * @return - HTTP status response with the new prescription
      */
     @PostMapping(value = "/newPrescription")
-    public ResponseEntity<PrescriptionDTO> createPrescription(@RequestBody PrescriptionDTO prescription) {
+    public ResponseEntity<Mono<PrescriptionDTO>> createPrescription(@RequestBody PrescriptionDTO prescription) {
         return ResponseEntity.status(HttpStatus.CREATED)
-                .body(doctorPrescriptionService.createPrescription(prescription));
+                .body(doctorPrescriptionService.createPrescription(prescription)
+                        .contextWrite(AuthUtils.withSecurityContext()));
     }
 
     /**
-     * Retrieves the specified doctor's prescriptions from the prescription API
+     * Retrieves the specified doctor's prescriptions from the prescription API. If-None-Match is forwarded and the
+     * prescription API's ETag is passed back, so an unchanged list is answered with a 304
      *
-     * @return - HTTP status response with the list of the doctor's prescriptions
+     * @param headers - the request headers, which may contain If-None-Match
+     * @return - HTTP status response with the list of the doctor's prescriptions, or a 304 if the client's copy
+     * is current
      */
     @GetMapping(value = "/myPrescriptions")
-    public ResponseEntity<List<PrescriptionDTO>> getPrescriptions() {
-        return ResponseEntity.ok(doctorPrescriptionService.getPrescriptions());
+    public Mono<ResponseEntity<List<PrescriptionDTO>>> getPrescriptions(@RequestHeader HttpHeaders headers) {
+        return doctorPrescriptionService.getPrescriptions(headers.getIfNoneMatch())
+                .map(ETags::relay)
+                .contextWrite(AuthUtils.withSecurityContext());
     }
 
     /**
-     * Updates a prescription with the specified ID and sends it to the prescription API
+     * Updates a prescription with the specified ID and sends it to the prescription API. If-Match is forwarded and
+     * the prescription API's ETag is passed back, so a prescription changed by someone else is answered with a 412
      *
      * @param prescriptionDTO - the UpdatePrescriptionDTO payload containing the updated information
      * @param prescriptionId  - the ID of the prescription
+     * @param headers         - the request headers, which may contain If-Match
      * @return - HTTP status response with the updated information
      */
     @PatchMapping(value = "/updatePrescriptionInfo/{prescriptionId}")
-    public ResponseEntity<UpdatePrescriptionDTO> updatePrescriptionInfo(
-            @RequestBody UpdatePrescriptionDTO prescriptionDTO, @PathVariable Long prescriptionId) {
-        return ResponseEntity.ok(doctorPrescriptionService.updatePrescriptionInfo(prescriptionDTO, prescriptionId));
+    public Mono<ResponseEntity<UpdatePrescriptionDTO>> updatePrescriptionInfo(
+            @RequestBody UpdatePrescriptionDTO prescriptionDTO, @PathVariable Long prescriptionId,
+            @RequestHeader HttpHeaders headers) {
+        return doctorPrescriptionService.updatePrescriptionInfo(prescriptionDTO, prescriptionId, headers.getIfMatch())
+                .map(ETags::relay);
     }
 
     /**
@@ -67,7 +81,7 @@ public class DoctorPrescriptionController {
      * @return - the DELETE request
      */
     @DeleteMapping(value = "/deletePrescription/{prescriptionId}")
-    public ResponseEntity<String> deletePrescription(@PathVariable Long prescriptionId) {
+    public ResponseEntity<Mono<String>> deletePrescription(@PathVariable Long prescriptionId) {
         return ResponseEntity.ok(doctorPrescriptionService.deletePrescription(prescriptionId));
     }
 
@@ -21,4 +21,5 @@ public class AppointmentDTO {
     private String patientLastName;
     private LocalDate appointmentDate;
     private LocalTime appointmentTime;
+    private Long version;
 }
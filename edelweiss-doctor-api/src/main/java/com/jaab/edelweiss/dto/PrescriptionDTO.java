@@ -18,4 +18,5 @@ public class PrescriptionDTO {
     private String prescriptionName;
     private Byte prescriptionDosage;
     private Status prescriptionStatus;
+    private Long version;
 }
@@ -0,0 +1,12 @@
+package com.jaab.edelweiss.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.PRECONDITION_FAILED)
+public class PrescriptionModifiedException extends RuntimeException {
+
+    public PrescriptionModifiedException(String message) {
+        super(message);
+    }
+}
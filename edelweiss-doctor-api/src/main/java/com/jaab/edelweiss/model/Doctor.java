@@ -2,9 +2,11 @@ package com.jaab.edelweiss.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "doctors")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -12,7 +14,8 @@ import lombok.*;
 public class Doctor {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "doctors_doctor_id_seq")
+    @SequenceGenerator(name = "doctors_doctor_id_seq", sequenceName = "doctors_doctor_id_seq", allocationSize = 50)
     @Column(name = "doctor_id", nullable = false, updatable = false, unique = true)
     private Long id;
 
@@ -1,18 +1,24 @@
 package com.jaab.edelweiss.service;
 
+import com.jaab.edelweiss.config.DownstreamClientFactory;
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
 import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.exception.AppointmentException;
+import com.jaab.edelweiss.exception.AppointmentModifiedException;
 import com.jaab.edelweiss.utils.AuthUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.rmi.ServerException;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
 
 /**
  * This class is a service for creating new appointments and maintaining their information
@@ -24,8 +30,8 @@ public class DoctorAppointmentService {
 
     private final WebClient webClient;
 
-    public DoctorAppointmentService(WebClient.Builder builder) {
-        this.webClient = builder.baseUrl("http://localhost:8085/physician").build();
+    public DoctorAppointmentService(DownstreamClientFactory downstreamClientFactory) {
+        this.webClient = downstreamClientFactory.create("appointment");
     }
 
     /**
@@ -59,49 +65,77 @@ public class DoctorAppointmentService {
     }
 
     /**
-     * Retrieves the appointments from the appointment API for the doctor with the specified ID
+     * Retrieves one page of the logged in doctor's appointments from the appointment API
      *
-     * @return - the list of the doctor's appointments
+     * @param from        - the earliest appointment date to include, or null for no lower bound
+     * @param to          - the latest appointment date to include, or null for no upper bound
+     * @param cursor      - the nextCursor of the previous page, or null for the first page
+     * @param size        - the maximum number of appointments in the page, or null for the appointment API's default
+     * @param ifNoneMatch - the ETags of the client's If-None-Match header, which are forwarded
+     * @return - the response of the appointment API with the page of the doctor's appointments, the cursor of the
+     * next page and the ETag of the page, or a 304 without a body if the client's copy is current
      */
-    public Flux<AppointmentDTO> getAppointments() {
+    public Mono<ResponseEntity<AppointmentPageDTO>> getAppointments(LocalDate from, LocalDate to, String cursor,
+                                                                    Integer size, List<String> ifNoneMatch) {
         LoginDTO loginDTO = AuthUtils.getUserDetails();
 
         return webClient.get()
-                .uri("/myAppointments/" + loginDTO.firstName() + "/" + loginDTO.lastName())
+                .uri(uriBuilder -> uriBuilder
+                        .path("/myAppointments/{firstName}/{lastName}")
+                        .queryParamIfPresent("from", Optional.ofNullable(from))
+                        .queryParamIfPresent("to", Optional.ofNullable(to))
+                        .queryParamIfPresent("cursor", Optional.ofNullable(cursor))
+                        .queryParamIfPresent("size", Optional.ofNullable(size))
+                        .build(loginDTO.firstName(), loginDTO.lastName()))
                 .accept(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (!ifNoneMatch.isEmpty())
+                        headers.setIfNoneMatch(ifNoneMatch);
+                })
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(String.class).map(Exception::new))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToFlux(AppointmentDTO.class);
+                .toEntity(AppointmentPageDTO.class);
     }
 
     /**
-     * Updates an appointment with the specified ID and sends it to the appointment API
+     * Updates an appointment with the specified ID and sends it to the appointment API, along with the If-Match
+     * ETags so that the appointment is only updated if it has not changed since the doctor retrieved it
      *
      * @param appointmentDTO - the AppointmentDTO object containing the updated information
      * @param appointmentId  - the ID of the appointment
-     * @return - the updated appointment
-     * @throws AppointmentException if the doctor inputs an invalid date for the appointment
+     * @param ifMatch        - the ETags of the client's If-Match header, which may be empty
+     * @return - the response of the appointment API with the updated appointment and its ETag
+     * @throws AppointmentException         if the doctor inputs an invalid date for the appointment
+     * @throws AppointmentModifiedException if the appointment has changed since the doctor retrieved it
      */
-    public Mono<AppointmentDTO> updateAppointmentInfo(AppointmentDTO appointmentDTO, Long appointmentId)
-            throws AppointmentException {
+    public Mono<ResponseEntity<AppointmentDTO>> updateAppointmentInfo(AppointmentDTO appointmentDTO,
+                                                                      Long appointmentId, List<String> ifMatch)
+            throws AppointmentException, AppointmentModifiedException {
         if (appointmentDTO.getAppointmentDate() != null &&
                 appointmentDTO.getAppointmentDate().isBefore(LocalDate.now()))
             throw new AppointmentException("Appointment date must be today or later date.");
 
         return webClient.patch()
-                .uri("/updateAppointmentInfo/" + appointmentId)
+                .uri("/updateAppointmentInfo/{appointmentId}", appointmentId)
                 .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (!ifMatch.isEmpty())
+                        headers.setIfMatch(ifMatch);
+                })
                 .body(Mono.just(appointmentDTO), AppointmentDTO.class)
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
+                .onStatus(status -> status.isSameCodeAs(HttpStatus.PRECONDITION_FAILED),
+                        response -> Mono.just(new AppointmentModifiedException(
+                                "The appointment has been modified since it was retrieved.")))
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(String.class).map(Exception::new))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToMono(AppointmentDTO.class);
+                .toEntity(AppointmentDTO.class);
     }
 
     /**
@@ -112,7 +146,7 @@ public class DoctorAppointmentService {
      */
     public Mono<String> deleteAppointment(Long appointmentId) {
         return webClient.delete()
-                .uri("/deleteAppointment/" + appointmentId)
+                .uri("/deleteAppointment/{appointmentId}", appointmentId)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(String.class).map(Exception::new))
@@ -1,46 +1,116 @@
 package com.jaab.edelweiss.service;
 
+import com.jaab.edelweiss.config.DownstreamClientFactory;
 import com.jaab.edelweiss.dto.AddressDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.exception.PatientNotFoundException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.retry.Retry;
 
 import java.rmi.ServerException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
 
 /**
- * This class is a service for retrieving patient information from the patient API
+ * This class is a service for retrieving patient information from the patient API. Patients and addresses are
+ * cached, and evicted as the patient API reports changes to them
  *
  * @author Joseph Barr
  */
 @Service
 public class DoctorPatientService {
 
+    private static final String PATIENT_FEED_RESET_EVENT = "reset";
+
     private final WebClient webClient;
 
-    public DoctorPatientService(WebClient.Builder builder) {
-        this.webClient = builder.baseUrl("http://localhost:8083/physician").build();
+    private final Sinks.Many<PatientRequest> patientRequests = Sinks.many().unicast().onBackpressureBuffer();
+
+    private final Disposable patientBatcher;
+
+    private final PatientCache patientCache;
+
+    private final Duration changeFeedReconnectDelay;
+
+    private Disposable patientChangeWatcher;
+
+    public DoctorPatientService(DownstreamClientFactory downstreamClientFactory, PatientCache patientCache,
+                                @Value("${edelweiss.patient-batch.max-size:50}") int maxBatchSize,
+                                @Value("${edelweiss.patient-batch.window:10ms}") Duration batchWindow,
+                                @Value("${edelweiss.patient-cache.change-feed.reconnect-delay:1s}")
+                                Duration changeFeedReconnectDelay) {
+        this.webClient = downstreamClientFactory.create("patient");
+        this.patientCache = patientCache;
+        this.changeFeedReconnectDelay = changeFeedReconnectDelay;
+
+        this.patientBatcher = patientRequests.asFlux()
+                .bufferTimeout(maxBatchSize, batchWindow)
+                .flatMap(this::dispatchPatientBatch)
+                .subscribe();
     }
 
     /**
-     * Retrieves a patient from the patient API based on the patient's ID
+     * Retrieves a patient from the cache, or from the patient API based on the patient's ID on a miss
      *
      * @param patientId - the ID of the patient
      * @return - the patient's information
      */
     public Mono<PatientDTO> getPatientById(Long patientId) {
-        return webClient.get()
-                .uri("/getPatientById/" + patientId)
+        return patientCache.getPatient(patientId, this::requestPatient);
+    }
+
+    /**
+     * Requests a patient from the patient API based on the patient's ID. Concurrent requests are coalesced
+     * into a single batch lookup at the patient API
+     *
+     * @param patientId - the ID of the patient
+     * @return - the patient's information
+     */
+    private Mono<PatientDTO> requestPatient(Long patientId) {
+        return Mono.defer(() -> {
+            Sinks.One<PatientDTO> result = Sinks.one();
+
+            patientRequests.emitNext(new PatientRequest(patientId, result),
+                    Sinks.EmitFailureHandler.busyLooping(Duration.ofSeconds(1)));
+
+            return result.asMono();
+        });
+    }
+
+    /**
+     * Retrieves the patients with the specified IDs from the patient API in a single request
+     *
+     * @param patientIds - the IDs of the patients
+     * @return - the list of the patients found
+     */
+    public Flux<PatientDTO> getPatientsByIds(Collection<Long> patientIds) {
+        return webClient.post()
+                .uri("/getPatientsByIds")
+                .contentType(MediaType.APPLICATION_JSON)
                 .accept(MediaType.APPLICATION_JSON)
+                .bodyValue(patientIds)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(Exception.class).flatMap(Mono::error))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToMono(PatientDTO.class);
+                .bodyToFlux(PatientDTO.class);
     }
 
     /**
@@ -50,7 +120,7 @@ public class DoctorPatientService {
      * @return - the list of patients matching the criteria
      */
     public Flux<PatientDTO> getPatientsByFirstName(String firstName) {
-        return getPatientRequest("/getPatientsByFirstName/", firstName);
+        return getPatientRequest("/getPatientsByFirstName/{firstName}", firstName);
     }
 
     /**
@@ -60,7 +130,7 @@ public class DoctorPatientService {
      * @return - the list of patients matching the criteria
      */
     public Flux<PatientDTO> getPatientsByLastName(String lastName) {
-        return getPatientRequest("/getPatientsByLastName/", lastName);
+        return getPatientRequest("/getPatientsByLastName/{lastName}", lastName);
     }
 
     /**
@@ -70,18 +140,28 @@ public class DoctorPatientService {
      * @return - the list of patients matching the criteria
      */
     public Flux<PatientDTO> getPatientsByBloodType(String bloodType) {
-        return getPatientRequest("/getPatientsByBloodType/", bloodType);
+        return getPatientRequest("/getPatientsByBloodType/{bloodType}", bloodType);
     }
 
     /**
-     * Retrieves the address of the patient with the specified ID from the patient API
+     * Retrieves the address of the patient with the specified ID from the cache, or from the patient API on a miss
      *
      * @param patientId - the ID of the patient
      * @return - the patient's address
      */
     public Mono<AddressDTO> getPatientAddress(Long patientId) {
+        return patientCache.getAddress(patientId, this::requestPatientAddress);
+    }
+
+    /**
+     * Requests the address of the patient with the specified ID from the patient API
+     *
+     * @param patientId - the ID of the patient
+     * @return - the patient's address
+     */
+    private Mono<AddressDTO> requestPatientAddress(Long patientId) {
         return webClient.get()
-                .uri("/getPatientAddress/" + patientId)
+                .uri("/getPatientAddress/{patientId}", patientId)
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
@@ -99,25 +179,54 @@ public class DoctorPatientService {
      */
     public Mono<String> deletePatient(Long patientId) {
         return webClient.delete()
-                .uri("/deletePatient/" + patientId)
+                .uri("/deletePatient/{patientId}", patientId)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(Exception.class).flatMap(Mono::error))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToMono(String.class);
+                .bodyToMono(String.class)
+                .doFinally(signal -> patientCache.invalidate(patientId));
+    }
+
+    /**
+     * Subscribes to the patient change feed of the patient API and evicts each changed patient from the cache.
+     * Every patient API instance relays the changes made by all of them, so one subscription is enough. The whole
+     * cache is cleared every time the feed is (re)connected, and whenever the feed reports a reset, since changes
+     * may have been missed in the meantime
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void watchPatientChanges() {
+        patientChangeWatcher = webClient.get()
+                .uri("/patientChanges")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<Long>>() {
+                })
+                .doOnSubscribe(subscription -> patientCache.invalidateAll())
+                .doOnNext(event -> {
+                    if (PATIENT_FEED_RESET_EVENT.equals(event.event()))
+                        patientCache.invalidateAll();
+                    else if (event.data() != null)
+                        patientCache.invalidate(event.data());
+                })
+                .retryWhen(Retry.backoff(Long.MAX_VALUE, changeFeedReconnectDelay)
+                        .maxBackoff(changeFeedReconnectDelay.multipliedBy(30))
+                        .transientErrors(true))
+                .repeatWhen(completed -> completed.delayElements(changeFeedReconnectDelay))
+                .subscribe();
     }
 
     /**
      * Creates a GET request to send to the patient API
      *
-     * @param uri       - the specified URI at the patient API
+     * @param uri       - the URI template at the patient API
      * @param parameter - the search parameter for retrieving the specified data
      * @return - the GET request
      */
     private Flux<PatientDTO> getPatientRequest(String uri, String parameter) {
         return webClient.get()
-                .uri(uri + parameter)
+                .uri(uri, parameter)
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
@@ -126,4 +235,42 @@ public class DoctorPatientService {
                         response -> response.bodyToMono(String.class).map(ServerException::new))
                 .bodyToFlux(PatientDTO.class);
     }
+
+    /**
+     * Looks up a batch of coalesced patient requests and completes each request with its patient
+     *
+     * @param batch - the pending patient requests
+     * @return - the batch lookup
+     */
+    private Mono<Void> dispatchPatientBatch(List<PatientRequest> batch) {
+        Set<Long> patientIds = batch.stream()
+                .map(PatientRequest::patientId)
+                .collect(Collectors.toSet());
+
+        return getPatientsByIds(patientIds)
+                .collectMap(PatientDTO::id)
+                .doOnNext(patients -> batch.forEach(request -> {
+                    PatientDTO patient = patients.get(request.patientId());
+
+                    if (patient != null)
+                        request.result().tryEmitValue(patient);
+                    else
+                        request.result().tryEmitError(
+                                new PatientNotFoundException("No patient with the specified ID found."));
+                }))
+                .doOnError(e -> batch.forEach(request -> request.result().tryEmitError(e)))
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        patientBatcher.dispose();
+
+        if (patientChangeWatcher != null)
+            patientChangeWatcher.dispose();
+    }
+
+    private record PatientRequest(Long patientId, Sinks.One<PatientDTO> result) {
+    }
 }
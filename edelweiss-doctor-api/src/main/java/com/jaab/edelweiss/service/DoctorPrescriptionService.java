@@ -1,12 +1,15 @@
 package com.jaab.edelweiss.service;
 
-import com.jaab.edelweiss.dto.LoginDTO;
+import com.jaab.edelweiss.config.DownstreamClientFactory;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.UpdatePrescriptionDTO;
 import com.jaab.edelweiss.exception.PrescriptionException;
+import com.jaab.edelweiss.exception.PrescriptionModifiedException;
 import com.jaab.edelweiss.utils.AuthUtils;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Mono;
@@ -24,10 +27,8 @@ public class DoctorPrescriptionService {
 
     private final WebClient webClient;
 
-    public DoctorPrescriptionService(WebClient.Builder builder) {
-        this.webClient = builder
-                .baseUrl("http://localhost:8084/physician")
-                .build();
+    public DoctorPrescriptionService(DownstreamClientFactory downstreamClientFactory) {
+        this.webClient = downstreamClientFactory.create("prescription");
     }
 
     /**
@@ -37,7 +38,7 @@ public class DoctorPrescriptionService {
      * @return - the new prescription
      * @throws PrescriptionException if the doctor inputs invalid data for the prescription
      */
-    public PrescriptionDTO createPrescription(PrescriptionDTO newPrescription)
+    public Mono<PrescriptionDTO> createPrescription(PrescriptionDTO newPrescription)
             throws PrescriptionException {
         if (prescriptionNameIsNotValid(newPrescription))
             throw new PrescriptionException("Please specify prescription name.");
@@ -45,67 +46,79 @@ public class DoctorPrescriptionService {
         if (prescriptionDosageIsNotValid(newPrescription))
             throw new PrescriptionException("Prescription dosage must be between 1cc and 127cc.");
 
-        LoginDTO loginDTO = AuthUtils.getUserDetails();
-
-        newPrescription.setDoctorFirstName(loginDTO.firstName());
-        newPrescription.setDoctorLastName(loginDTO.lastName());
-
-        return webClient.post()
-                .uri("/newPrescription")
-                .contentType(MediaType.APPLICATION_JSON)
-                .body(Mono.just(newPrescription), PrescriptionDTO.class)
-                .accept(MediaType.APPLICATION_JSON)
-                .retrieve()
-                .onStatus(HttpStatusCode::is4xxClientError,
-                        response -> response.bodyToMono(Exception.class).flatMap(Mono::error))
-                .onStatus(HttpStatusCode::is5xxServerError,
-                        response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToMono(PrescriptionDTO.class)
-                .block();
+        return AuthUtils.getReactiveUserDetails().flatMap(loginDTO -> {
+            newPrescription.setDoctorFirstName(loginDTO.firstName());
+            newPrescription.setDoctorLastName(loginDTO.lastName());
+
+            return webClient.post()
+                    .uri("/newPrescription")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(Mono.just(newPrescription), PrescriptionDTO.class)
+                    .accept(MediaType.APPLICATION_JSON)
+                    .retrieve()
+                    .onStatus(HttpStatusCode::is4xxClientError,
+                            response -> response.bodyToMono(Exception.class).flatMap(Mono::error))
+                    .onStatus(HttpStatusCode::is5xxServerError,
+                            response -> response.bodyToMono(String.class).map(ServerException::new))
+                    .bodyToMono(PrescriptionDTO.class);
+        });
     }
 
     /**
-     * Retrieves the prescriptions from the prescription API for the doctor with the specified ID
+     * Retrieves the prescriptions from the prescription API for the doctor with the specified ID. If-None-Match is
+     * forwarded, so the response is a 304 without a body when the client's copy is current
      *
-     * @return - the list of the doctor's prescriptions
+     * @param ifNoneMatch - the ETags of the client's If-None-Match header
+     * @return - the response of the prescription API with the list of the doctor's prescriptions and its ETag
      */
-    public List<PrescriptionDTO> getPrescriptions() {
-        LoginDTO loginDTO = AuthUtils.getUserDetails();
-
-        return webClient.get()
-                .uri("/myPrescriptions/" + loginDTO.firstName() + "/" + loginDTO.lastName())
+    public Mono<ResponseEntity<List<PrescriptionDTO>>> getPrescriptions(List<String> ifNoneMatch) {
+        return AuthUtils.getReactiveUserDetails().flatMap(loginDTO -> webClient.get()
+                .uri("/myPrescriptions/{firstName}/{lastName}", loginDTO.firstName(), loginDTO.lastName())
                 .accept(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (!ifNoneMatch.isEmpty())
+                        headers.setIfNoneMatch(ifNoneMatch);
+                })
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(String.class).map(Exception::new))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToFlux(PrescriptionDTO.class)
-                .collectList()
-                .block();
+                .toEntityList(PrescriptionDTO.class));
     }
 
     /**
-     * Updates a prescription with the specified ID and sends it to the prescription API
+     * Updates a prescription with the specified ID and sends it to the prescription API, along with the If-Match
+     * ETags so that the prescription is only updated if it has not changed since the doctor retrieved it
      *
      * @param prescriptionDTO - the UpdatePrescriptionDTO object containing the updated information
      * @param prescriptionId  - the ID of the prescription
-     * @return - the updated prescription
+     * @param ifMatch         - the ETags of the client's If-Match header, which may be empty
+     * @return - the response of the prescription API with the updated prescription and its ETag
+     * @throws PrescriptionModifiedException if the prescription has changed since the doctor retrieved it
      */
-    public UpdatePrescriptionDTO updatePrescriptionInfo(UpdatePrescriptionDTO prescriptionDTO,
-                                                              Long prescriptionId) {
+    public Mono<ResponseEntity<UpdatePrescriptionDTO>> updatePrescriptionInfo(UpdatePrescriptionDTO prescriptionDTO,
+                                                                              Long prescriptionId,
+                                                                              List<String> ifMatch)
+            throws PrescriptionModifiedException {
         return webClient.patch()
-                .uri("/updatePrescriptionInfo/" + prescriptionId)
+                .uri("/updatePrescriptionInfo/{prescriptionId}", prescriptionId)
                 .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (!ifMatch.isEmpty())
+                        headers.setIfMatch(ifMatch);
+                })
                 .body(Mono.just(prescriptionDTO), UpdatePrescriptionDTO.class)
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
+                .onStatus(status -> status.isSameCodeAs(HttpStatus.PRECONDITION_FAILED),
+                        response -> Mono.just(new PrescriptionModifiedException(
+                                "The prescription has been modified since it was retrieved.")))
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(String.class).map(Exception::new))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToMono(UpdatePrescriptionDTO.class)
-                .block();
+                .toEntity(UpdatePrescriptionDTO.class);
     }
 
     /**
@@ -114,16 +127,15 @@ public class DoctorPrescriptionService {
      * @param prescriptionId - the ID of the prescription
      * @return - the DELETE request
      */
-    public String deletePrescription(Long prescriptionId) {
+    public Mono<String> deletePrescription(Long prescriptionId) {
         return webClient.delete()
-                .uri("/deletePrescription/" + prescriptionId)
+                .uri("/deletePrescription/{prescriptionId}", prescriptionId)
                 .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(String.class).map(Exception::new))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToMono(String.class)
-                .block();
+                .bodyToMono(String.class);
     }
 
     /**
@@ -3,14 +3,14 @@ package com.jaab.edelweiss.service;
 import com.jaab.edelweiss.dao.DoctorRepository;
 import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.exception.DoctorNotFoundException;
+import com.jaab.edelweiss.exception.InvalidFieldException;
 import com.jaab.edelweiss.model.Doctor;
 import com.jaab.edelweiss.utils.AuthUtils;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.transaction.annotation.Transactional;
 
-import java.lang.reflect.Field;
 import java.util.Map;
 
 /**
@@ -22,6 +22,12 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class DoctorService {
 
+    private static final PatchApplier<Doctor> DOCTOR_FIELDS = new PatchApplier<>(Map.of(
+            "lastName", PatchApplier.field(PatchApplier.TEXT, Doctor::setLastName),
+            "email", PatchApplier.field(PatchApplier.TEXT, Doctor::setEmail),
+            "password", PatchApplier.field(PatchApplier.TEXT, Doctor::setPassword),
+            "phoneNumber", PatchApplier.field(PatchApplier.LONG, Doctor::setPhoneNumber)));
+
     private final DoctorRepository doctorRepository;
 
     private final PasswordEncoder passwordEncoder;
@@ -40,24 +46,20 @@ public class DoctorService {
     }
 
     /**
-     * Updates the information of the doctor and merges it to the doctor database
+     * Updates the information of the doctor and merges it to the doctor database. Only the columns that changed
+     * are written
      *
      * @param fields - the updated information
      * @return - the updated doctor
+     * @throws InvalidFieldException if an updated value does not match the type of its field
      */
-    public Doctor updateDoctorInfo(Map<String, Object> fields) {
+    @Transactional
+    public Doctor updateDoctorInfo(Map<String, Object> fields) throws InvalidFieldException {
         LoginDTO loginDTO = AuthUtils.getUserDetails();
 
         Doctor doctor = getDoctorById(loginDTO.id());
 
-        fields.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(Doctor.class, key);
-
-            if (field != null) {
-                field.setAccessible(true);
-                ReflectionUtils.setField(field, doctor, value);
-            }
-        });
+        DOCTOR_FIELDS.apply(doctor, fields);
 
         if (fields.get("password") != null)
             doctor.setPassword(passwordEncoder.encode(fields.get("password").toString()));
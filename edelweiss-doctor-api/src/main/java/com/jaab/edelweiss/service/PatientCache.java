@@ -0,0 +1,88 @@
+package com.jaab.edelweiss.service;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jaab.edelweiss.dto.AddressDTO;
+import com.jaab.edelweiss.dto.PatientDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.function.Function;
+
+/**
+ * This class is a bounded, time-limited read-through cache of the patients and addresses retrieved from the
+ * patient API, keyed by patient ID. Concurrent misses for the same patient share a single lookup, and failed or
+ * empty lookups are not cached. Hit and miss counts are published as the cache.* metrics
+ *
+ * @author Joseph Barr
+ */
+@Component
+public class PatientCache {
+
+    private final AsyncCache<Long, PatientDTO> patients;
+
+    private final AsyncCache<Long, AddressDTO> addresses;
+
+    public PatientCache(MeterRegistry meterRegistry,
+                        @Value("${edelweiss.patient-cache.max-size:10000}") long maxSize,
+                        @Value("${edelweiss.patient-cache.ttl:5m}") Duration ttl) {
+        this.patients = CaffeineCacheMetrics.monitor(meterRegistry, buildCache(maxSize, ttl), "patients");
+        this.addresses = CaffeineCacheMetrics.monitor(meterRegistry, buildCache(maxSize, ttl), "patientAddresses");
+    }
+
+    /**
+     * Retrieves the cached patient with the specified ID, loading it on a miss
+     *
+     * @param patientId - the ID of the patient
+     * @param loader    - the lookup of the patient at the patient API
+     * @return - the patient's information
+     */
+    public Mono<PatientDTO> getPatient(Long patientId, Function<Long, Mono<PatientDTO>> loader) {
+        return get(patients, patientId, loader);
+    }
+
+    /**
+     * Retrieves the cached address of the patient with the specified ID, loading it on a miss
+     *
+     * @param patientId - the ID of the patient
+     * @param loader    - the lookup of the address at the patient API
+     * @return - the patient's address
+     */
+    public Mono<AddressDTO> getAddress(Long patientId, Function<Long, Mono<AddressDTO>> loader) {
+        return get(addresses, patientId, loader);
+    }
+
+    /**
+     * Removes the patient and the patient's address from the cache
+     *
+     * @param patientId - the ID of the patient
+     */
+    public void invalidate(Long patientId) {
+        patients.synchronous().invalidate(patientId);
+        addresses.synchronous().invalidate(patientId);
+    }
+
+    /**
+     * Removes every patient and address from the cache
+     */
+    public void invalidateAll() {
+        patients.synchronous().invalidateAll();
+        addresses.synchronous().invalidateAll();
+    }
+
+    private <T> Mono<T> get(AsyncCache<Long, T> cache, Long patientId, Function<Long, Mono<T>> loader) {
+        return Mono.fromFuture(() -> cache.get(patientId, (key, executor) -> loader.apply(key).toFuture()), true);
+    }
+
+    private <T> AsyncCache<Long, T> buildCache(long maxSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .buildAsync();
+    }
+}
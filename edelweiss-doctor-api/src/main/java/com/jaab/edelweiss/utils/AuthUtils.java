@@ -1,8 +1,13 @@
 package com.jaab.edelweiss.utils;
 
 import com.jaab.edelweiss.dto.LoginDTO;
+import org.springframework.security.authentication.AuthenticationCredentialsNotFoundException;
 import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.util.context.Context;
 
 public abstract class AuthUtils {
 
@@ -16,4 +21,28 @@ public abstract class AuthUtils {
 
         return (LoginDTO) authentication.getPrincipal();
     }
+
+    /**
+     * Retrieves the UserDetails information of an authenticated user from the Reactor context, so that it is
+     * available regardless of the thread the pipeline runs on
+     *
+     * @return - the UserDetails stored within the LoginDTO object
+     */
+    public static Mono<LoginDTO> getReactiveUserDetails() {
+        return ReactiveSecurityContextHolder.getContext()
+                .map(SecurityContext::getAuthentication)
+                .map(authentication -> (LoginDTO) authentication.getPrincipal())
+                .switchIfEmpty(Mono.error(() ->
+                        new AuthenticationCredentialsNotFoundException("No authenticated user in context.")));
+    }
+
+    /**
+     * Captures the security context of the current request so that it can be written to the Reactor context
+     * of a pipeline
+     *
+     * @return - the Reactor context containing the security context
+     */
+    public static Context withSecurityContext() {
+        return ReactiveSecurityContextHolder.withSecurityContext(Mono.just(SecurityContextHolder.getContext()));
+    }
 }
@@ -0,0 +1,72 @@
+package com.jaab.edelweiss.utils;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * This class evaluates If-None-Match against the ETags of the downstream APIs and passes their validators on to
+ * the client, so that a conditional request is answered with a 304 or a 412 end to end
+ *
+ * @author Joseph Barr
+ */
+public abstract class ETags {
+
+    /**
+     * Formats a version as a strong ETag, the same way as the downstream APIs
+     *
+     * @param version - the version of the resource
+     * @return - the quoted ETag
+     */
+    public static String of(Object version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Checks whether any of the ETags of an If-None-Match header matches the version. The comparison is weak,
+     * as RFC 9110 requires for If-None-Match
+     *
+     * @param ifNoneMatch - the ETags of the If-None-Match header
+     * @param version     - the current version of the resource
+     * @return - true if the client's copy is still current
+     */
+    public static boolean matches(List<String> ifNoneMatch, Object version) {
+        String eTag = of(version);
+
+        return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag));
+    }
+
+    /**
+     * Creates a 200 response carrying the ETag of the version, or a 304 if the version matches If-None-Match
+     *
+     * @param ifNoneMatch - the ETags of the If-None-Match header
+     * @param version     - the version of the resource
+     * @param body        - the resource
+     * @param <T>         - the type of the resource
+     * @return - the response
+     */
+    public static <T> ResponseEntity<T> conditional(List<String> ifNoneMatch, Object version, T body) {
+        if (matches(ifNoneMatch, version))
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(of(version)).build();
+
+        return ResponseEntity.ok().eTag(of(version)).body(body);
+    }
+
+    /**
+     * Passes the status and ETag of a downstream response on to the client. A 304 is passed on without a body
+     *
+     * @param downstream - the response of the downstream API
+     * @param <T>        - the type of the resource
+     * @return - the response
+     */
+    public static <T> ResponseEntity<T> relay(ResponseEntity<T> downstream) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.status(downstream.getStatusCode());
+
+        if (downstream.getHeaders().getETag() != null)
+            response.eTag(downstream.getHeaders().getETag());
+
+        return downstream.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) ?
+                response.build() : response.body(downstream.getBody());
+    }
+}
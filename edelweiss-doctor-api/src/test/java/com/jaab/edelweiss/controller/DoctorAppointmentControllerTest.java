@@ -1,24 +1,32 @@
 package com.jaab.edelweiss.controller;
 
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
 import com.jaab.edelweiss.exception.AppointmentException;
 import com.jaab.edelweiss.service.DoctorAppointmentService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.reactive.server.WebTestClient;
-import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockUser;
 
 @WebFluxTest(controllers = DoctorAppointmentController.class)
 public class DoctorAppointmentControllerTest {
@@ -33,9 +41,11 @@ public class DoctorAppointmentControllerTest {
     public void createAppointmentTest() {
         AppointmentDTO appointmentDTO = new AppointmentDTO(ID, "Rinoa", "Heartily",
                 "Squall", "Leonheart",
-                LocalDate.of(YEAR, 10, 25), LocalTime.of(14, 30));
+                LocalDate.of(YEAR, 10, 25), LocalTime.of(14, 30), null);
 
-        webTestClient.post()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .post()
                 .uri("/physician/newAppointment")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(appointmentDTO)
@@ -48,12 +58,14 @@ public class DoctorAppointmentControllerTest {
     public void createAppointmentExceptionTest() {
         AppointmentDTO appointmentDTO = new AppointmentDTO(ID, "Rinoa", "Heartily",
                 "Squall", "Leonheart",
-                LocalDate.of(2023, 10, 25), LocalTime.of(14, 30));
+                LocalDate.of(2023, 10, 25), LocalTime.of(14, 30), null);
 
         when(doctorAppointmentService.createAppointment(any(AppointmentDTO.class)))
                 .thenThrow(AppointmentException.class);
 
-        webTestClient.post()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .post()
                 .uri("/physician/newAppointment")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(appointmentDTO)
@@ -64,25 +76,48 @@ public class DoctorAppointmentControllerTest {
 
     @Test
     public void getAppointmentsTest() {
-        when(doctorAppointmentService.getAppointments())
-                .thenReturn(Flux.fromIterable(getAppointments()));
-
-        webTestClient.get()
-                .uri("/physician/myAppointments")
+        when(doctorAppointmentService.getAppointments(any(), any(), any(), any(), anyList()))
+                .thenReturn(Mono.just(ResponseEntity.ok().eTag("5e")
+                        .body(new AppointmentPageDTO(getAppointments(), null))));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
+                .uri("/physician/myAppointments?from=" + YEAR + "-01-01&size=10")
                 .exchange()
                 .expectStatus().isOk()
-                .expectBodyList(AppointmentDTO.class).hasSize(2);
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5e\"")
+                .expectBody()
+                .jsonPath("$.appointments.length()").isEqualTo(2);
+    }
+
+    @Test
+    public void getAppointmentsNotModifiedTest() {
+        when(doctorAppointmentService.getAppointments(any(), any(), any(), any(), eq(List.of("\"5e\""))))
+                .thenReturn(Mono.just(ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag("5e").build()));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
+                .uri("/physician/myAppointments?size=10")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"5e\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"5e\"")
+                .expectBody().isEmpty();
     }
 
     @Test
     public void updateAppointmentInfoTest() {
         AppointmentDTO updatedAppointment = new AppointmentDTO(ID, null, null,
-                null, null, null, LocalTime.of(15, 0));
+                null, null, null, LocalTime.of(15, 0), null);
 
-        when(doctorAppointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong()))
-                .thenReturn(Mono.just(updatedAppointment));
+        when(doctorAppointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong(), anyList()))
+                .thenReturn(Mono.just(ResponseEntity.ok().eTag("4").body(updatedAppointment)));
 
-        webTestClient.patch()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .patch()
                 .uri("/physician/updateAppointmentInfo/" + updatedAppointment.getId())
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(updatedAppointment)
@@ -95,12 +130,14 @@ public class DoctorAppointmentControllerTest {
     public void updateAppointmentInfoExceptionTest() {
         AppointmentDTO updatedAppointment = new AppointmentDTO(ID, null, null,
                 null, null, LocalDate.of(2023, 10, 25),
-                null);
+                null, null);
 
-        when(doctorAppointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong()))
+        when(doctorAppointmentService.updateAppointmentInfo(any(AppointmentDTO.class), anyLong(), anyList()))
                 .thenThrow(AppointmentException.class);
 
-        webTestClient.patch()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .patch()
                 .uri("/physician/updateAppointmentInfo/" + updatedAppointment.getId())
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(updatedAppointment)
@@ -111,7 +148,9 @@ public class DoctorAppointmentControllerTest {
 
     @Test
     public void deleteAppointmentTest() {
-        webTestClient.delete()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .delete()
                 .uri("/physician/deleteAppointment/" + ID)
                 .exchange()
                 .expectStatus().isOk();
@@ -3,22 +3,35 @@ package com.jaab.edelweiss.controller;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jaab.edelweiss.model.Doctor;
 import com.jaab.edelweiss.service.DoctorService;
+import com.jaab.edelweiss.service.JwtService;
+import com.jaab.edelweiss.service.LoginService;
 import com.jaab.edelweiss.utils.TestUtils;
+import io.jsonwebtoken.ExpiredJwtException;
+import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = DoctorController.class)
+@WithMockUser(roles = "PHYSICIAN")
 public class DoctorControllerTest {
 
     @Autowired
@@ -30,6 +43,15 @@ public class DoctorControllerTest {
     @MockBean
     private DoctorService doctorService;
 
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private LoginService loginService;
+
+    @MockBean
+    private AuthenticationManager authenticationManager;
+
     private Doctor doctor;
 
     @BeforeEach
@@ -42,6 +64,7 @@ public class DoctorControllerTest {
         when(doctorService.createDoctor(any(Doctor.class))).thenReturn(doctor);
 
         this.mockMvc.perform(post("/newPhysician")
+                        .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(doctor)))
@@ -56,7 +79,8 @@ public class DoctorControllerTest {
 
         when(doctorService.updateDoctorInfo(anyMap())).thenReturn(updatedInfo);
 
-        this.mockMvc.perform(patch("/physician/" + doctor.getId() + "/updatePhysicianInfo")
+        this.mockMvc.perform(patch("/physician/updatePhysicianInfo")
+                        .with(csrf())
                         .contentType(MediaType.APPLICATION_JSON)
                         .accept(MediaType.APPLICATION_JSON)
                         .content(objectMapper.writeValueAsString(updatedInfo)))
@@ -66,7 +90,30 @@ public class DoctorControllerTest {
 
     @Test
     public void deleteDoctorTest() throws Exception {
-        this.mockMvc.perform(delete("/physician/deleteDoctor/" + doctor.getId()))
+        this.mockMvc.perform(delete("/physician/deleteDoctor/" + doctor.getId())
+                        .with(csrf()))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    public void logoutTest() throws Exception {
+        this.mockMvc.perform(post("/physician/logout")
+                        .with(csrf())
+                        .cookie(new Cookie("accessToken", "token")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.SET_COOKIE, containsString("Max-Age=0")));
+
+        verify(jwtService).revokeToken("token");
+    }
+
+    @Test
+    public void logoutWithExpiredTokenTest() throws Exception {
+        doThrow(new ExpiredJwtException(null, null, "JWT expired")).when(jwtService).revokeToken(anyString());
+
+        this.mockMvc.perform(post("/physician/logout")
+                        .with(csrf())
+                        .cookie(new Cookie("accessToken", "expired")))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.SET_COOKIE, containsString("Max-Age=0")));
+    }
 }
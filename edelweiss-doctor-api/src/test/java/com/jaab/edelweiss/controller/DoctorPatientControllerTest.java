@@ -8,14 +8,21 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 import static com.jaab.edelweiss.utils.TestUtils.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockUser;
 
 @WebFluxTest(controllers = DoctorPatientController.class)
 public class DoctorPatientControllerTest {
@@ -29,23 +36,61 @@ public class DoctorPatientControllerTest {
     @Test
     public void getPatientByIdTest() {
         PatientDTO patientDTO = new PatientDTO(ID, "Squall", "Leonheart",
-                "finalfantasy8@gmail.com", 3304589971L, "Rinoa Heartily", "A+");
+                "finalfantasy8@gmail.com", 3304589971L, "Rinoa Heartily", "A+", 4L);
 
         when(doctorPatientService.getPatientById(anyLong())).thenReturn(Mono.just(patientDTO));
 
-        webTestClient.get()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
                 .uri("/physician/getPatientById/" + patientDTO.id())
                 .exchange()
                 .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"")
                 .expectBody().jsonPath("$.lastName", Matchers.is("Leonheart"));
     }
 
+    @Test
+    public void getPatientByIdNotModifiedTest() {
+        PatientDTO patientDTO = new PatientDTO(ID, "Squall", "Leonheart",
+                "finalfantasy8@gmail.com", 3304589971L, "Rinoa Heartily", "A+", 4L);
+
+        when(doctorPatientService.getPatientById(anyLong())).thenReturn(Mono.just(patientDTO));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
+                .uri("/physician/getPatientById/" + patientDTO.id())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"4\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void getPatientsByIdsTest() {
+        when(doctorPatientService.getPatientsByIds(anyCollection()))
+                .thenReturn(Flux.fromIterable(getPatientsByLastName()));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .post()
+                .uri("/physician/getPatientsByIds")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(1L, 2L, 3L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PatientDTO.class).hasSize(3);
+    }
+
     @Test
     public void getPatientsByFirstNameTest() {
         when(doctorPatientService.getPatientsByFirstName(anyString()))
                 .thenReturn(Flux.fromIterable(getPatientsByFirstName()));
 
-        webTestClient.get()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
                 .uri("/physician/getPatientsByFirstName/" + firstNameTestParameter)
                 .exchange()
                 .expectStatus().isOk()
@@ -57,7 +102,9 @@ public class DoctorPatientControllerTest {
         when(doctorPatientService.getPatientsByLastName(anyString()))
                 .thenReturn(Flux.fromIterable(getPatientsByLastName()));
 
-        webTestClient.get()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
                 .uri("/physician/getPatientsByLastName/" + lastNameTestParameter)
                 .exchange()
                 .expectStatus().isOk()
@@ -69,7 +116,9 @@ public class DoctorPatientControllerTest {
         when(doctorPatientService.getPatientsByBloodType(anyString()))
                 .thenReturn(Flux.fromIterable(getPatientsByBloodType()));
 
-        webTestClient.get()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
                 .uri("/physician/getPatientsByBloodType/" + bloodTypeTestParameter)
                 .exchange()
                 .expectStatus().isOk()
@@ -83,7 +132,9 @@ public class DoctorPatientControllerTest {
 
         when(doctorPatientService.getPatientAddress(anyLong())).thenReturn(Mono.just(addressDTO));
 
-        webTestClient.get()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
                 .uri("/physician/getPatientAddress/" + ID)
                 .exchange()
                 .expectStatus().isOk()
@@ -92,7 +143,9 @@ public class DoctorPatientControllerTest {
 
     @Test
     public void deletePatientTest() {
-        webTestClient.delete()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .delete()
                 .uri("/physician/deletePatient/" + ID)
                 .exchange()
                 .expectStatus().isOk();
@@ -10,13 +10,18 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Mono;
 
 import static com.jaab.edelweiss.utils.TestUtils.ID;
 import static com.jaab.edelweiss.utils.TestUtils.getPrescriptions;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockUser;
 
 @WebFluxTest(controllers = DoctorPrescriptionController.class)
 public class DoctorPrescriptionControllerTest {
@@ -30,10 +35,15 @@ public class DoctorPrescriptionControllerTest {
     @Test
     public void createPrescriptionTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(ID, "Rinoa",
-                "Heartily", "X-Potion", (byte) 50, null);
+                "Heartily", "X-Potion", (byte) 50, null, null);
 
-        webTestClient.post()
-                .uri("/physician/" + ID + "/newPrescription")
+        when(doctorPrescriptionService.createPrescription(any(PrescriptionDTO.class)))
+                .thenReturn(Mono.just(prescriptionDTO));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .post()
+                .uri("/physician/newPrescription")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(prescriptionDTO)
                 .accept(MediaType.APPLICATION_JSON)
@@ -44,12 +54,14 @@ public class DoctorPrescriptionControllerTest {
     @Test
     public void createPrescriptionExceptionTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(ID, "Rinoa",
-                "Heartily", null, (byte) 50, null);
+                "Heartily", null, (byte) 50, null, null);
 
         when(doctorPrescriptionService.createPrescription(any(PrescriptionDTO.class)))
                 .thenThrow(PrescriptionException.class);
 
-        webTestClient.post()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .post()
                 .uri("/physician/newPrescription")
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(prescriptionDTO)
@@ -60,10 +72,12 @@ public class DoctorPrescriptionControllerTest {
 
     @Test
     public void getPrescriptionsTest() {
-        when(doctorPrescriptionService.getPrescriptions())
-                .thenReturn(getPrescriptions());
+        when(doctorPrescriptionService.getPrescriptions(anyList()))
+                .thenReturn(Mono.just(ResponseEntity.ok(getPrescriptions())));
 
-        webTestClient.get()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .get()
                 .uri("/physician/myPrescriptions")
                 .exchange()
                 .expectStatus().isOk()
@@ -75,10 +89,12 @@ public class DoctorPrescriptionControllerTest {
         UpdatePrescriptionDTO updatedPrescription =
                 new UpdatePrescriptionDTO(TestUtils.ID, "Ambrosia", (byte) 40);
 
-        when(doctorPrescriptionService.updatePrescriptionInfo(any(UpdatePrescriptionDTO.class), anyLong()))
-                .thenReturn(updatedPrescription);
+        when(doctorPrescriptionService.updatePrescriptionInfo(any(UpdatePrescriptionDTO.class), anyLong(), anyList()))
+                .thenReturn(Mono.just(ResponseEntity.ok().eTag("4").body(updatedPrescription)));
 
-        webTestClient.patch()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .patch()
                 .uri("/physician/updatePrescriptionInfo/" + updatedPrescription.id())
                 .contentType(MediaType.APPLICATION_JSON)
                 .bodyValue(updatedPrescription)
@@ -89,7 +105,9 @@ public class DoctorPrescriptionControllerTest {
 
     @Test
     public void deletePrescriptionTest() {
-        webTestClient.delete()
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .delete()
                 .uri("/physician/deletePrescription/" + ID)
                 .exchange()
                 .expectStatus().isOk();
@@ -3,6 +3,8 @@ package com.jaab.edelweiss.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jaab.edelweiss.dto.AppointmentDTO;
+import com.jaab.edelweiss.dto.AppointmentPageDTO;
+import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.exception.AppointmentException;
 import com.jaab.edelweiss.model.Doctor;
 import jakarta.persistence.EntityManager;
@@ -10,18 +12,23 @@ import jakarta.transaction.Transactional;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
 import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
-import reactor.core.publisher.Flux;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
 
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
 import java.util.Objects;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
@@ -62,17 +69,28 @@ public class DoctorAppointmentServiceTest {
         doctor = createDoctor(null);
 
         entityManager.persist(doctor);
+
+        LoginDTO loginDTO = new LoginDTO(doctor);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(loginDTO, null, loginDTO.getAuthorities()));
+    }
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
     }
 
     @Test
     public void createAppointmentTest() throws JsonProcessingException {
         AppointmentDTO appointmentDTO = new AppointmentDTO(ID, doctor.getFirstName(), doctor.getLastName(),
                 "Dane", "Cousland",
-                LocalDate.of(YEAR, 10, 25), LocalTime.of(14, 30));
+                LocalDate.of(YEAR, 10, 25), LocalTime.of(14, 30), null);
 
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(appointmentDTO)));
+                .body(objectMapper.writeValueAsString(appointmentDTO))
+                .build());
 
         Mono<AppointmentDTO> newAppointment =
                 doctorAppointmentService.createAppointment(appointmentDTO);
@@ -89,7 +107,7 @@ public class DoctorAppointmentServiceTest {
     public void createAppointmentDateTimeExceptionTest() {
         AppointmentDTO appointmentDTO = new AppointmentDTO(ID, doctor.getFirstName(), doctor.getLastName(),
                 "Dane", "Cousland", LocalDate.of(2023, 6, 10),
-                LocalTime.of(13, 30));
+                LocalTime.of(13, 30), null);
 
         assertThrows(AppointmentException.class, () ->
                 doctorAppointmentService.createAppointment(appointmentDTO).block());
@@ -98,13 +116,34 @@ public class DoctorAppointmentServiceTest {
     @Test
     public void getAppointmentsTest() throws JsonProcessingException {
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(getAppointments())));
+                .body(objectMapper.writeValueAsString(new AppointmentPageDTO(getAppointments(), null)))
+                .build());
+
+        Mono<AppointmentPageDTO> getAppointments =
+                doctorAppointmentService.getAppointments(null, null, null, null, List.of())
+                        .mapNotNull(ResponseEntity::getBody);
+
+        StepVerifier.create(getAppointments)
+                .expectNextMatches(page -> page.appointments().size() == 2 && page.nextCursor() == null)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getAppointmentsNotModifiedTest() {
+        mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
+                .code(304)
+                .addHeader("ETag", "\"5e\"")
+                .build());
 
-        Flux<AppointmentDTO> getAppointments = doctorAppointmentService.getAppointments();
+        Mono<ResponseEntity<AppointmentPageDTO>> getAppointments =
+                doctorAppointmentService.getAppointments(null, null, null, null, List.of("\"5e\""));
 
         StepVerifier.create(getAppointments)
-                .expectNextCount(2)
+                .expectNextMatches(response -> response.getStatusCode().isSameCodeAs(HttpStatus.NOT_MODIFIED) &&
+                        Objects.equals(response.getHeaders().getETag(), "\"5e\"") && response.getBody() == null)
                 .verifyComplete();
     }
 
@@ -112,14 +151,17 @@ public class DoctorAppointmentServiceTest {
     public void updateAppointmentInfoTest() throws JsonProcessingException {
         AppointmentDTO appointmentDTO = new AppointmentDTO(ID, null, null,
                 null, null, LocalDate.of(YEAR, 9, 4),
-                LocalTime.of(11, 30));
+                LocalTime.of(11, 30), null);
 
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(appointmentDTO)));
+                .body(objectMapper.writeValueAsString(appointmentDTO))
+                .build());
 
-        Mono<AppointmentDTO> updatedAppointment =
-                doctorAppointmentService.updateAppointmentInfo(appointmentDTO, appointmentDTO.getId());
+        Mono<AppointmentDTO> updatedAppointment = doctorAppointmentService
+                .updateAppointmentInfo(appointmentDTO, appointmentDTO.getId(), List.of())
+                .mapNotNull(ResponseEntity::getBody);
 
         StepVerifier.create(updatedAppointment)
                 .expectNextMatches(a -> Objects.equals(a.getAppointmentDate(),
@@ -131,15 +173,15 @@ public class DoctorAppointmentServiceTest {
     public void updateAppointmentInfoDateTimeExceptionTest() {
         AppointmentDTO appointmentDTO = new AppointmentDTO(ID, null, null,
                 null, null, LocalDate.of(2023, 5, 4),
-                null);
+                null, null);
 
         assertThrows(AppointmentException.class, () ->
-                doctorAppointmentService.updateAppointmentInfo(appointmentDTO, doctor.getId()).block());
+                doctorAppointmentService.updateAppointmentInfo(appointmentDTO, doctor.getId(), List.of()).block());
     }
 
     @Test
     public void deleteAppointmentTest() {
-        mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).build());
 
         Mono<String> deleteAppointment = doctorAppointmentService.deleteAppointment(ID);
 
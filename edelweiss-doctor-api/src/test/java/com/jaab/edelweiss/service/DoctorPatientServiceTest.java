@@ -4,11 +4,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jaab.edelweiss.dto.AddressDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
 import jakarta.transaction.Transactional;
 import mockwebserver3.MockResponse;
 import mockwebserver3.MockWebServer;
+import mockwebserver3.QueueDispatcher;
+import mockwebserver3.RecordedRequest;
+import mockwebserver3.SocketPolicy;
 import org.junit.jupiter.api.AfterAll;
 import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -21,6 +27,7 @@ import java.util.List;
 import java.util.Objects;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 
 @SpringBootTest
 @Transactional
@@ -29,9 +36,15 @@ public class DoctorPatientServiceTest {
     @Autowired
     private DoctorPatientService doctorPatientService;
 
+    @Autowired
+    private PatientCache patientCache;
+
     @Autowired
     private ObjectMapper objectMapper;
 
+    @Autowired
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
     private static MockWebServer mockWebServer;
 
     private static final int PATIENT_API_PORT = 8083;
@@ -39,6 +52,7 @@ public class DoctorPatientServiceTest {
     @BeforeAll
     static void init() throws IOException {
         mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new PatientApiDispatcher());
         mockWebServer.start(PATIENT_API_PORT);
     }
 
@@ -47,15 +61,23 @@ public class DoctorPatientServiceTest {
         mockWebServer.shutdown();
     }
 
+    @BeforeEach
+    void clearCache() {
+        patientCache.invalidateAll();
+        circuitBreakerRegistry.getAllCircuitBreakers().forEach(CircuitBreaker::reset);
+    }
+
     @Test
     public void getPatientByIdTest() throws JsonProcessingException {
         PatientDTO patientDTO = new PatientDTO(ID, "Dane", "Cousland",
                 "heroofferelden@gmail.com", 8853694771L,
-                "Wynne Langrene", "B+");
+                "Wynne Langrene", "B+", 0L);
 
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(patientDTO)));
+                .body(objectMapper.writeValueAsString(List.of(patientDTO)))
+                .build());
 
         Mono<PatientDTO> getPatient = doctorPatientService.getPatientById(patientDTO.id());
 
@@ -65,13 +87,55 @@ public class DoctorPatientServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void getPatientByIdBatchTest() throws JsonProcessingException {
+        List<PatientDTO> patients = getPatientsByLastName();
+
+        mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
+                .addHeader("Content-Type", "application/json")
+                .body(objectMapper.writeValueAsString(patients))
+                .build());
+
+        int requestCount = mockWebServer.getRequestCount();
+
+        Flux<PatientDTO> getPatients = Flux.fromIterable(patients)
+                .flatMap(p -> doctorPatientService.getPatientById(p.id()));
+
+        StepVerifier.create(getPatients)
+                .expectNextCount(3)
+                .verifyComplete();
+
+        assertEquals(requestCount + 1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void getPatientsByIdsTest() throws JsonProcessingException {
+        List<PatientDTO> patients = getPatientsByLastName();
+
+        mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
+                .addHeader("Content-Type", "application/json")
+                .body(objectMapper.writeValueAsString(patients))
+                .build());
+
+        Flux<PatientDTO> getPatients =
+                doctorPatientService.getPatientsByIds(patients.stream().map(PatientDTO::id).toList());
+
+        StepVerifier.create(getPatients)
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
     @Test
     public void getPatientsByFirstNameTest() throws JsonProcessingException {
         List<PatientDTO> patients = getPatientsByFirstName();
 
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(patients)));
+                .body(objectMapper.writeValueAsString(patients))
+                .build());
 
         Flux<PatientDTO> getPatients =
                 doctorPatientService.getPatientsByFirstName(firstNameTestParameter);
@@ -86,8 +150,10 @@ public class DoctorPatientServiceTest {
         List<PatientDTO> patients = getPatientsByLastName();
 
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(patients)));
+                .body(objectMapper.writeValueAsString(patients))
+                .build());
 
         Flux<PatientDTO> getPatients =
                 doctorPatientService.getPatientsByLastName(lastNameTestParameter);
@@ -102,8 +168,10 @@ public class DoctorPatientServiceTest {
         List<PatientDTO> patients = getPatientsByBloodType();
 
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(patients)));
+                .body(objectMapper.writeValueAsString(patients))
+                .build());
 
         Flux<PatientDTO> getPatients =
                 doctorPatientService.getPatientsByBloodType(bloodTypeTestParameter);
@@ -119,8 +187,10 @@ public class DoctorPatientServiceTest {
                 "OH", 22354);
 
         mockWebServer.enqueue(new MockResponse()
+                .newBuilder()
                 .addHeader("Content-Type", "application/json")
-                .setBody(objectMapper.writeValueAsString(addressDTO)));
+                .body(objectMapper.writeValueAsString(addressDTO))
+                .build());
 
         Mono<AddressDTO> patientAddress = doctorPatientService.getPatientAddress(ID);
 
@@ -132,11 +202,29 @@ public class DoctorPatientServiceTest {
 
     @Test
     public void deletePatientTest() {
-        mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+        mockWebServer.enqueue(new MockResponse().newBuilder().code(200).build());
 
         Mono<String> deletePatient = doctorPatientService.deletePatient(ID);
 
         StepVerifier.create(deletePatient)
                 .verifyComplete();
     }
+
+    /**
+     * Holds the patient change feed open without sending any changes, so it does not take the responses
+     * enqueued for the tests
+     */
+    private static class PatientApiDispatcher extends QueueDispatcher {
+
+        @Override
+        public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+            if (Objects.equals(request.getPath(), "/physician/patientChanges"))
+                return new MockResponse()
+                        .newBuilder()
+                        .socketPolicy(SocketPolicy.NoResponse.INSTANCE)
+                        .build();
+
+            return super.dispatch(request);
+        }
+    }
 }
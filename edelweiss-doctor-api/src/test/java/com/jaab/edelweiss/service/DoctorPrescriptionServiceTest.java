@@ -2,6 +2,7 @@ package com.jaab.edelweiss.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.UpdatePrescriptionDTO;
 import com.jaab.edelweiss.exception.PrescriptionException;
@@ -18,16 +19,19 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+import reactor.util.context.Context;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.Objects;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
-import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
-import static org.mockito.Mockito.when;
 
 @SpringBootTest
 @Transactional
@@ -70,7 +74,7 @@ public class DoctorPrescriptionServiceTest {
     @Test
     public void createPrescriptionTest() throws JsonProcessingException {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(ID, doctor.getFirstName(), doctor.getLastName(),
-                "Felandris", (byte) 20, null);
+                "Felandris", (byte) 20, null, null);
 
         mockWebServer.enqueue(new MockResponse()
                 .newBuilder()
@@ -78,20 +82,19 @@ public class DoctorPrescriptionServiceTest {
                 .body(objectMapper.writeValueAsString(prescriptionDTO))
                 .build());
 
-        PrescriptionDTO newPrescription =
-                doctorPrescriptionService.createPrescription(prescriptionDTO);
+        Mono<PrescriptionDTO> newPrescription = doctorPrescriptionService.createPrescription(prescriptionDTO)
+                .contextWrite(withDoctor());
 
-        when(doctorPrescriptionService.createPrescription(any(PrescriptionDTO.class)))
-                .thenReturn(newPrescription);
-
-        assertEquals(newPrescription.getDoctorFirstName(), doctor.getFirstName());
-        assertEquals(newPrescription.getDoctorLastName(), doctor.getLastName());
+        StepVerifier.create(newPrescription)
+                .expectNextMatches(p -> Objects.equals(p.getDoctorFirstName(), doctor.getFirstName()) &&
+                        Objects.equals(p.getDoctorLastName(), doctor.getLastName()))
+                .verifyComplete();
     }
 
     @Test
     public void createPrescriptionNameExceptionTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(ID, doctor.getFirstName(), doctor.getLastName(),
-                null, (byte) 20, null);
+                null, (byte) 20, null, null);
 
         assertThrows(PrescriptionException.class, () ->
                 doctorPrescriptionService.createPrescription(prescriptionDTO));
@@ -100,7 +103,7 @@ public class DoctorPrescriptionServiceTest {
     @Test
     public void createPrescriptionDosageExceptionTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(ID, doctor.getFirstName(), doctor.getLastName(),
-                "Felandris", null, null);
+                "Felandris", null, null, null);
 
         assertThrows(PrescriptionException.class, () ->
                 doctorPrescriptionService.createPrescription(prescriptionDTO));
@@ -114,9 +117,12 @@ public class DoctorPrescriptionServiceTest {
                 .body(objectMapper.writeValueAsString(getPrescriptions()))
                 .build());
 
-        List<PrescriptionDTO> getPrescriptions = doctorPrescriptionService.getPrescriptions();
+        Mono<ResponseEntity<List<PrescriptionDTO>>> getPrescriptions =
+                doctorPrescriptionService.getPrescriptions(List.of()).contextWrite(withDoctor());
 
-        assertEquals(2, getPrescriptions.size());
+        StepVerifier.create(getPrescriptions)
+                .expectNextMatches(response -> response.getBody() != null && response.getBody().size() == 2)
+                .verifyComplete();
     }
 
     @Test
@@ -130,12 +136,13 @@ public class DoctorPrescriptionServiceTest {
                 .body(objectMapper.writeValueAsString(updatedPrescription))
                 .build());
 
-        UpdatePrescriptionDTO updatePrescription =
-                doctorPrescriptionService.updatePrescriptionInfo(updatedPrescription, updatedPrescription.id());
+        Mono<UpdatePrescriptionDTO> updatePrescription = doctorPrescriptionService
+                .updatePrescriptionInfo(updatedPrescription, updatedPrescription.id(), List.of())
+                .mapNotNull(ResponseEntity::getBody);
 
-        when(doctorPrescriptionService
-                .updatePrescriptionInfo(any(UpdatePrescriptionDTO.class), anyLong()))
-                .thenReturn(updatePrescription);
+        StepVerifier.create(updatePrescription)
+                .expectNextMatches(p -> Objects.equals(p.prescriptionName(), "Dragon's Blood"))
+                .verifyComplete();
     }
 
     @Test
@@ -152,14 +159,21 @@ public class DoctorPrescriptionServiceTest {
 
     @Test
     public void deletePrescriptionTest() {
-        String deletePrescription = doctorPrescriptionService.deletePrescription(ID);
-
-        MockResponse response = new MockResponse()
+        mockWebServer.enqueue(new MockResponse()
                 .newBuilder()
                 .code(200)
-                .body(deletePrescription)
-                .build();
+                .body("Prescription successfully deleted.")
+                .build());
+
+        StepVerifier.create(doctorPrescriptionService.deletePrescription(ID))
+                .expectNext("Prescription successfully deleted.")
+                .verifyComplete();
+    }
+
+    private Context withDoctor() {
+        LoginDTO loginDTO = new LoginDTO(doctor);
 
-        assertEquals(200, response.getCode());
+        return ReactiveSecurityContextHolder.withAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(loginDTO, null, loginDTO.getAuthorities()));
     }
 }
@@ -1,15 +1,20 @@
 package com.jaab.edelweiss.service;
 
 import com.jaab.edelweiss.dao.DoctorRepository;
+import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.exception.DoctorNotFoundException;
 import com.jaab.edelweiss.model.Doctor;
 import com.jaab.edelweiss.utils.TestUtils;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,19 +34,34 @@ public class DoctorServiceTest {
     @Mock
     private DoctorRepository doctorRepository;
 
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
     private Doctor doctor;
 
     @BeforeEach
     void init() {
         doctor = TestUtils.createDoctor(TestUtils.ID);
+
+        LoginDTO loginDTO = new LoginDTO(doctor);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(loginDTO, null, loginDTO.getAuthorities()));
+    }
+
+    @AfterEach
+    void cleanup() {
+        SecurityContextHolder.clearContext();
     }
 
     @Test
     public void createDoctorTest() {
+        when(passwordEncoder.encode("spiritoffaith")).thenReturn("encodedspiritoffaith");
+
         Doctor newDoctor = doctorService.createDoctor(doctor);
 
         assertEquals(1L, newDoctor.getId());
         assertEquals("Wynne", newDoctor.getFirstName());
+        assertEquals("encodedspiritoffaith", newDoctor.getPassword());
     }
 
     @Test
@@ -54,11 +74,12 @@ public class DoctorServiceTest {
         updatedInfo.put("password", "aneirin");
 
         when(doctorRepository.findById(anyLong())).thenReturn(Optional.of(doctor));
+        when(passwordEncoder.encode("aneirin")).thenReturn("encodedaneirin");
 
         doctorService.updateDoctorInfo(updatedInfo);
 
         assertEquals("archmage@aol.com", doctor.getEmail());
-        assertEquals("aneirin", doctor.getPassword());
+        assertEquals("encodedaneirin", doctor.getPassword());
     }
 
     @Test
@@ -0,0 +1,70 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.dto.LoginDTO;
+import com.jaab.edelweiss.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.jaab.edelweiss.utils.TestUtils.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class JwtServiceTest {
+
+    private JwtService jwtService;
+
+    private LoginDTO loginDTO;
+
+    @BeforeEach
+    void init() {
+        jwtService = new JwtService(new TokenDenyList(), 100);
+
+        loginDTO = new LoginDTO(createDoctor(ID));
+    }
+
+    @Test
+    public void extractUserDetailsTest() {
+        String token = jwtService.generateToken(loginDTO);
+
+        LoginDTO userDetails = jwtService.extractUserDetails(token);
+
+        assertEquals(ID, userDetails.id());
+        assertEquals(doctorFirstName, userDetails.firstName());
+        assertEquals(doctorLastName, userDetails.lastName());
+        assertEquals("seniorenchanter@aol.com", userDetails.email());
+        assertEquals(Role.PHYSICIAN, userDetails.role());
+        assertNull(userDetails.password());
+    }
+
+    @Test
+    public void revokeTokenTest() {
+        String token = jwtService.generateToken(loginDTO);
+        String otherToken = jwtService.generateToken(loginDTO);
+
+        assertFalse(jwtService.isTokenRevoked(token));
+
+        jwtService.revokeToken(token);
+
+        assertTrue(jwtService.isTokenRevoked(token));
+        assertFalse(jwtService.isTokenRevoked(otherToken));
+    }
+
+    @Test
+    public void parseClaimsTest() {
+        String token = jwtService.generateToken(loginDTO);
+
+        Claims claims = jwtService.parseClaims(token);
+
+        assertSame(claims, jwtService.parseClaims(token));
+        assertEquals(loginDTO.email(), claims.getSubject());
+    }
+
+    @Test
+    public void parseTamperedClaimsTest() {
+        String token = jwtService.generateToken(loginDTO);
+        String tamperedToken = token.substring(0, token.length() - 2) + "xx";
+
+        assertThrows(JwtException.class, () -> jwtService.parseClaims(tamperedToken));
+    }
+}
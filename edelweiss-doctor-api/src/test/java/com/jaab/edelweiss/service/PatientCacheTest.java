@@ -0,0 +1,83 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.dto.AddressDTO;
+import com.jaab.edelweiss.dto.PatientDTO;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static com.jaab.edelweiss.utils.TestUtils.getPatientsByFirstName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class PatientCacheTest {
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final AtomicInteger lookups = new AtomicInteger();
+
+    private final PatientDTO patientDTO = getPatientsByFirstName().get(0);
+
+    private final AddressDTO addressDTO = new AddressDTO("Hawke Estate", "Kirkwall", "Free Marches", 77024);
+
+    private PatientCache patientCache;
+
+    @BeforeEach
+    public void init() {
+        patientCache = new PatientCache(meterRegistry, 100, Duration.ofMinutes(5));
+    }
+
+    @Test
+    public void getPatientCachesLookupTest() {
+        for (int i = 0; i < 3; i++)
+            StepVerifier.create(patientCache.getPatient(patientDTO.id(), countingLoader(Mono.just(patientDTO))))
+                    .expectNext(patientDTO)
+                    .verifyComplete();
+
+        assertEquals(1, lookups.get());
+        assertEquals(2, meterRegistry.get("cache.gets").tag("cache", "patients").tag("result", "hit")
+                .functionCounter().count());
+        assertEquals(1, meterRegistry.get("cache.gets").tag("cache", "patients").tag("result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    public void getAddressDoesNotCacheFailuresTest() {
+        StepVerifier.create(patientCache.getAddress(1L, countingLoader(Mono.error(new IllegalStateException()))))
+                .expectError(IllegalStateException.class)
+                .verify();
+
+        StepVerifier.create(patientCache.getAddress(1L, countingLoader(Mono.just(addressDTO))))
+                .expectNext(addressDTO)
+                .verifyComplete();
+
+        assertEquals(2, lookups.get());
+    }
+
+    @Test
+    public void invalidateTest() {
+        patientCache.getPatient(patientDTO.id(), countingLoader(Mono.just(patientDTO))).block();
+        patientCache.getAddress(patientDTO.id(), countingLoader(Mono.just(addressDTO))).block();
+
+        patientCache.invalidate(patientDTO.id());
+
+        patientCache.getPatient(patientDTO.id(), countingLoader(Mono.just(patientDTO))).block();
+        patientCache.getAddress(patientDTO.id(), countingLoader(Mono.just(addressDTO))).block();
+
+        assertEquals(4, lookups.get());
+    }
+
+    private <T> Function<Long, Mono<T>> countingLoader(Mono<T> result) {
+        return patientId -> Mono.defer(() -> {
+            lookups.incrementAndGet();
+
+            return result;
+        });
+    }
+}
@@ -74,15 +74,15 @@ public abstract class TestUtils {
     private static List<PatientDTO> createPatients() {
         PatientDTO james = new PatientDTO(1L, "James", "Hawke",
                 "championofkirkwall@gmail.com", 7130042356L,
-                "Varric Tethras", "AB+");
+                "Varric Tethras", "AB+", 0L);
 
         PatientDTO bethany = new PatientDTO(2L, "Bethany", "Hawke",
                 "circlemage@yahoo.com", 7130042357L,
-                "Varric Tethras", "AB-");
+                "Varric Tethras", "AB-", 0L);
 
         PatientDTO carver = new PatientDTO(3L, "Carver", "Hawke",
                 "templarknight@aol.com", 7130042357L,
-                "Varric Tethras", "AB-");
+                "Varric Tethras", "AB-", 0L);
 
         List<PatientDTO> patients = new ArrayList<>();
 
@@ -95,13 +95,13 @@ public abstract class TestUtils {
 
     private static List<PrescriptionDTO> createPrescriptions() {
         PrescriptionDTO felandris = new PrescriptionDTO(1L, doctorFirstName, doctorLastName,
-                "Felandris", (byte) 50, Status.PENDING);
+                "Felandris", (byte) 50, Status.PENDING, 0L);
 
         PrescriptionDTO ambrosia = new PrescriptionDTO(2L, doctorFirstName, doctorLastName,
-                "Ambrosia", (byte) 60, Status.PENDING);
+                "Ambrosia", (byte) 60, Status.PENDING, 0L);
 
         PrescriptionDTO lyrium = new PrescriptionDTO(3L, "Solas", "Wolffe",
-                "Lyrium", (byte) 75, Status.PENDING);
+                "Lyrium", (byte) 75, Status.PENDING, 0L);
 
         List<PrescriptionDTO> prescriptions = new ArrayList<>();
 
@@ -115,15 +115,15 @@ public abstract class TestUtils {
     private static List<AppointmentDTO> createAppointments() {
         AppointmentDTO firstAppointment = new AppointmentDTO(1L, doctorFirstName, doctorLastName,
                 "Dane", "Cousland", LocalDate.of((YEAR + 1), 10, 5),
-                LocalTime.of(10, 30));
+                LocalTime.of(10, 30), 0L);
 
         AppointmentDTO secondAppointment = new AppointmentDTO(2L, "Solas", "Wolffe",
                 "Evelyn", "Trevelyan", LocalDate.of((YEAR + 1), 10, 5),
-                LocalTime.of(10, 30));
+                LocalTime.of(10, 30), 0L);
 
         AppointmentDTO thirdAppointment = new AppointmentDTO(3L, doctorFirstName, doctorLastName,
                 "Alistair", "Theirin", LocalDate.of((YEAR + 1), 10, 8),
-                LocalTime.of(13, 45));
+                LocalTime.of(13, 45), 0L);
 
         List<AppointmentDTO> appointments = new ArrayList<>();
 
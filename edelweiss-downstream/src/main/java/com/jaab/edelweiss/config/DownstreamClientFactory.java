@@ -0,0 +1,172 @@
+package com.jaab.edelweiss.config;
+
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.netty.channel.ChannelOption;
+import jakarta.annotation.PreDestroy;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.*;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Mono;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.http.client.HttpClientRequest;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.util.retry.Retry;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * This class builds the WebClient for each downstream API from its DownstreamProperties settings. Every client gets
+ * its own connection pool, so a slow downstream can only exhaust its own connections, along with connect and
+ * response timeouts, a circuit breaker, and jittered retries for GET requests. Base URLs with the lb scheme name a
+ * service registered with Eureka, and are resolved to one of its instances on every attempt, so a retry can land
+ * on a different instance
+ *
+ * @author Joseph Barr
+ */
+@Component
+public class DownstreamClientFactory {
+
+    private static final String LOAD_BALANCED_SCHEME = "lb";
+
+    private final WebClient.Builder webClientBuilder;
+
+    private final DownstreamProperties downstreamProperties;
+
+    private final CircuitBreakerRegistry circuitBreakerRegistry;
+
+    private final ReactorLoadBalancerExchangeFilterFunction loadBalancerFilter;
+
+    private final OutstandingRequestCounter outstandingRequestCounter;
+
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    public DownstreamClientFactory(WebClient.Builder webClientBuilder, DownstreamProperties downstreamProperties,
+                                   CircuitBreakerRegistry circuitBreakerRegistry,
+                                   ReactorLoadBalancerExchangeFilterFunction loadBalancerFilter,
+                                   OutstandingRequestCounter outstandingRequestCounter) {
+        this.webClientBuilder = webClientBuilder;
+        this.downstreamProperties = downstreamProperties;
+        this.circuitBreakerRegistry = circuitBreakerRegistry;
+        this.loadBalancerFilter = loadBalancerFilter;
+        this.outstandingRequestCounter = outstandingRequestCounter;
+    }
+
+    /**
+     * Builds the WebClient for the downstream API with the specified name
+     *
+     * @param name - the name of the downstream API under edelweiss.downstream.clients
+     * @return - the WebClient for the downstream API
+     * @throws IllegalStateException if no downstream API with the specified name is configured
+     */
+    public WebClient create(String name) throws IllegalStateException {
+        DownstreamProperties.Client client = downstreamProperties.clients().get(name);
+
+        if (client == null || client.baseUrl() == null)
+            throw new IllegalStateException("No base URL configured for downstream API " + name + ".");
+
+        ConnectionProvider connectionProvider = ConnectionProvider.builder(name)
+                .maxConnections(client.maxConnections())
+                .pendingAcquireMaxCount(client.pendingAcquireMaxCount())
+                .pendingAcquireTimeout(client.pendingAcquireTimeout())
+                .maxIdleTime(client.maxIdleTime())
+                .metrics(true)
+                .build();
+
+        connectionProviders.add(connectionProvider);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) client.connectTimeout().toMillis())
+                .responseTimeout(client.responseTimeout());
+
+        URI baseUrl = URI.create(client.baseUrl());
+        boolean loadBalanced = LOAD_BALANCED_SCHEME.equals(baseUrl.getScheme());
+
+        WebClient.Builder builder = webClientBuilder.clone()
+                .baseUrl(loadBalanced ? UriComponentsBuilder.fromUri(baseUrl).scheme("http").toUriString() :
+                        client.baseUrl())
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .filter(routeTimeouts(client.routeTimeouts()))
+                .filter(resilience(name, client));
+
+        if (loadBalanced)
+            builder.filter(loadBalancerFilter).filter(outstandingRequestCounter.filter());
+
+        return builder.build();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+
+    /**
+     * Applies the response timeout of the longest configured path prefix that matches the request
+     *
+     * @param routeTimeouts - the response timeouts keyed by path prefix
+     * @return - the filter that sets the response timeout
+     */
+    private ExchangeFilterFunction routeTimeouts(Map<String, Duration> routeTimeouts) {
+        return (request, next) -> {
+            String path = request.url().getPath();
+
+            return routeTimeouts.entrySet().stream()
+                    .filter(route -> path.startsWith(route.getKey()))
+                    .max(Comparator.comparingInt(route -> route.getKey().length()))
+                    .map(route -> ClientRequest.from(request)
+                            .httpRequest(httpRequest -> httpRequest.<HttpClientRequest>getNativeRequest()
+                                    .responseTimeout(route.getValue()))
+                            .build())
+                    .map(next::exchange)
+                    .orElseGet(() -> next.exchange(request));
+        };
+    }
+
+    /**
+     * Runs every request through the downstream's circuit breaker, and retries GET requests that failed to connect
+     * or timed out. Other methods are not retried because they are not idempotent
+     *
+     * @param name   - the name of the downstream API
+     * @param client - the settings of the downstream API
+     * @return - the filter that applies the circuit breaker and retries
+     */
+    private ExchangeFilterFunction resilience(String name, DownstreamProperties.Client client) {
+        CircuitBreaker circuitBreaker = circuitBreakerRegistry.circuitBreaker(name, circuitBreakerConfig(client));
+
+        return (request, next) -> {
+            Mono<ClientResponse> response = next.exchange(request)
+                    .transformDeferred(CircuitBreakerOperator.of(circuitBreaker));
+
+            if (request.method() != HttpMethod.GET)
+                return response;
+
+            return response.retryWhen(Retry.backoff(client.retry().maxAttempts(), client.retry().backoff())
+                    .jitter(client.retry().jitter())
+                    .filter(WebClientRequestException.class::isInstance)
+                    .onRetryExhaustedThrow((retrySpec, signal) -> signal.failure()));
+        };
+    }
+
+    private CircuitBreakerConfig circuitBreakerConfig(DownstreamProperties.Client client) {
+        return CircuitBreakerConfig.custom()
+                .failureRateThreshold(client.circuitBreaker().failureRateThreshold())
+                .slowCallRateThreshold(client.circuitBreaker().slowCallRateThreshold())
+                .slowCallDurationThreshold(client.circuitBreaker().slowCallDuration())
+                .slidingWindowSize(client.circuitBreaker().slidingWindowSize())
+                .minimumNumberOfCalls(client.circuitBreaker().minimumNumberOfCalls())
+                .waitDurationInOpenState(client.circuitBreaker().waitDurationInOpenState())
+                .recordResult(result -> result instanceof ClientResponse response &&
+                        response.statusCode().is5xxServerError())
+                .build();
+    }
+}
@@ -0,0 +1,73 @@
+package com.jaab.edelweiss.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * This record holds the connection settings of each downstream API, keyed by the name the services look them up by
+ *
+ * @param clients - the settings of each downstream API
+ * @author Joseph Barr
+ */
+@ConfigurationProperties(prefix = "edelweiss.downstream")
+public record DownstreamProperties(@DefaultValue Map<String, Client> clients) {
+
+    /**
+     * The connection settings of one downstream API
+     *
+     * @param baseUrl                - the base URL of the downstream API
+     * @param connectTimeout         - the maximum time to establish a connection
+     * @param responseTimeout        - the maximum time to wait between reads of a response
+     * @param routeTimeouts          - response timeouts that override responseTimeout for paths starting with the key
+     * @param maxConnections         - the size of the connection pool, which also bounds concurrent requests
+     * @param pendingAcquireMaxCount - the number of requests that may wait for a pooled connection before failing fast
+     * @param pendingAcquireTimeout  - the maximum time a request waits for a pooled connection
+     * @param maxIdleTime            - the time after which an idle pooled connection is closed
+     * @param retry                  - the retry settings for GET requests
+     * @param circuitBreaker         - the circuit breaker settings
+     */
+    public record Client(String baseUrl,
+                         @DefaultValue("2s") Duration connectTimeout,
+                         @DefaultValue("5s") Duration responseTimeout,
+                         @DefaultValue Map<String, Duration> routeTimeouts,
+                         @DefaultValue("50") int maxConnections,
+                         @DefaultValue("200") int pendingAcquireMaxCount,
+                         @DefaultValue("2s") Duration pendingAcquireTimeout,
+                         @DefaultValue("30s") Duration maxIdleTime,
+                         @DefaultValue Retry retry,
+                         @DefaultValue CircuitBreaker circuitBreaker) {
+    }
+
+    /**
+     * The retry settings of one downstream API
+     *
+     * @param maxAttempts - the number of retries after the first attempt
+     * @param backoff     - the delay before the first retry, doubled on each retry after it
+     * @param jitter      - the random spread applied to each delay, from 0 to 1
+     */
+    public record Retry(@DefaultValue("2") int maxAttempts,
+                        @DefaultValue("100ms") Duration backoff,
+                        @DefaultValue("0.5") double jitter) {
+    }
+
+    /**
+     * The circuit breaker settings of one downstream API
+     *
+     * @param failureRateThreshold    - the percentage of failed calls that opens the breaker
+     * @param slowCallRateThreshold   - the percentage of slow calls that opens the breaker
+     * @param slidingWindowSize       - the number of recent calls the failure and slow call rates are computed over
+     * @param minimumNumberOfCalls    - the number of calls that must be recorded before the rates are checked
+     * @param slowCallDuration        - the duration after which a call counts as slow
+     * @param waitDurationInOpenState - the time the breaker stays open before letting trial calls through
+     */
+    public record CircuitBreaker(@DefaultValue("50") float failureRateThreshold,
+                                 @DefaultValue("80") float slowCallRateThreshold,
+                                 @DefaultValue("20") int slidingWindowSize,
+                                 @DefaultValue("10") int minimumNumberOfCalls,
+                                 @DefaultValue("3s") Duration slowCallDuration,
+                                 @DefaultValue("10s") Duration waitDurationInOpenState) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.jaab.edelweiss.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultResponse;
+import org.springframework.cloud.client.loadbalancer.EmptyResponse;
+import org.springframework.cloud.client.loadbalancer.Request;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.NoopServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.core.ReactorServiceInstanceLoadBalancer;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * This class is a load balancer that sends each request to the instance of a service with the fewest requests
+ * still waiting on a response, as counted by the OutstandingRequestCounter. Ties are broken by starting the search
+ * at a random instance, so an idle service still spreads its requests across every instance
+ *
+ * @author Joseph Barr
+ */
+public class LeastOutstandingRequestsLoadBalancer implements ReactorServiceInstanceLoadBalancer {
+
+    private final ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider;
+
+    private final OutstandingRequestCounter outstandingRequestCounter;
+
+    public LeastOutstandingRequestsLoadBalancer(
+            ObjectProvider<ServiceInstanceListSupplier> serviceInstanceListSupplierProvider,
+            OutstandingRequestCounter outstandingRequestCounter) {
+        this.serviceInstanceListSupplierProvider = serviceInstanceListSupplierProvider;
+        this.outstandingRequestCounter = outstandingRequestCounter;
+    }
+
+    @Override
+    public Mono<Response<ServiceInstance>> choose(Request request) {
+        ServiceInstanceListSupplier supplier =
+                serviceInstanceListSupplierProvider.getIfAvailable(NoopServiceInstanceListSupplier::new);
+
+        return supplier.get(request).next().map(this::leastOutstanding);
+    }
+
+    /**
+     * Picks the instance with the fewest outstanding requests
+     *
+     * @param instances - the available instances of the service
+     * @return - the chosen instance, or an empty response if the service has no instances
+     */
+    private Response<ServiceInstance> leastOutstanding(List<ServiceInstance> instances) {
+        if (instances.isEmpty())
+            return new EmptyResponse();
+
+        int start = ThreadLocalRandom.current().nextInt(instances.size());
+
+        ServiceInstance chosen = instances.get(start);
+        int fewest = outstandingRequestCounter.getOutstandingRequests(chosen);
+
+        for (int i = 1; i < instances.size() && fewest > 0; i++) {
+            ServiceInstance candidate = instances.get((start + i) % instances.size());
+            int outstanding = outstandingRequestCounter.getOutstandingRequests(candidate);
+
+            if (outstanding < fewest) {
+                chosen = candidate;
+                fewest = outstanding;
+            }
+        }
+
+        return new DefaultResponse(chosen);
+    }
+
+}
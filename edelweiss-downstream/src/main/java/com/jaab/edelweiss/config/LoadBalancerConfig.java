@@ -0,0 +1,26 @@
+package com.jaab.edelweiss.config;
+
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.cloud.loadbalancer.support.LoadBalancerClientFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+
+/**
+ * This class configures the load balancer of each downstream service. It is registered through
+ * LoadBalancerClients rather than component scanning, so its beans only live in the per-service contexts
+ *
+ * @author Joseph Barr
+ */
+public class LoadBalancerConfig {
+
+    @Bean
+    public LeastOutstandingRequestsLoadBalancer leastOutstandingRequestsLoadBalancer(
+            Environment environment, LoadBalancerClientFactory loadBalancerClientFactory,
+            OutstandingRequestCounter outstandingRequestCounter) {
+        String serviceId = environment.getProperty(LoadBalancerClientFactory.PROPERTY_NAME);
+
+        return new LeastOutstandingRequestsLoadBalancer(
+                loadBalancerClientFactory.getLazyProvider(serviceId, ServiceInstanceListSupplier.class),
+                outstandingRequestCounter);
+    }
+}
@@ -0,0 +1,60 @@
+package com.jaab.edelweiss.config;
+
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class counts the requests to each instance of a downstream service that are still waiting on a response.
+ * The count is kept by an exchange filter that runs after the load balancer has picked the instance, and a request
+ * stops counting however it ends, including when its caller cancels it. A request stops counting as soon as the
+ * response headers arrive, so the time spent streaming a response body is not counted
+ *
+ * @author Joseph Barr
+ */
+@Component
+public class OutstandingRequestCounter {
+
+    private final Map<String, AtomicInteger> outstandingRequests = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the filter that counts each request against the instance it is sent to. It must be applied after
+     * the load balancer filter, so that the request URL already names the instance
+     *
+     * @return - the filter that counts the outstanding requests
+     */
+    public ExchangeFilterFunction filter() {
+        return (request, next) -> Mono.defer(() -> {
+            AtomicInteger outstanding = outstandingRequests.computeIfAbsent(key(request.url()),
+                    k -> new AtomicInteger());
+
+            outstanding.incrementAndGet();
+
+            return next.exchange(request).doFinally(signal -> outstanding.decrementAndGet());
+        });
+    }
+
+    /**
+     * Retrieves the number of requests to the instance that are still waiting on a response
+     *
+     * @param instance - the ServiceInstance object
+     * @return - the number of outstanding requests
+     */
+    public int getOutstandingRequests(ServiceInstance instance) {
+        AtomicInteger outstanding = outstandingRequests.get(instance.getHost() + ':' + instance.getPort());
+
+        return outstanding == null ? 0 : outstanding.get();
+    }
+
+    private String key(URI url) {
+        int port = url.getPort() != -1 ? url.getPort() : "https".equals(url.getScheme()) ? 443 : 80;
+
+        return url.getHost() + ':' + port;
+    }
+}
@@ -0,0 +1,145 @@
+package com.jaab.edelweiss.config;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.loadbalancer.reactive.ReactorLoadBalancerExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Mono;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+
+public class DownstreamClientFactoryTest {
+
+    private MockWebServer mockWebServer;
+
+    private DownstreamClientFactory downstreamClientFactory;
+
+    private CircuitBreakerRegistry circuitBreakerRegistry;
+
+    @BeforeEach
+    public void init() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        circuitBreakerRegistry = CircuitBreakerRegistry.ofDefaults();
+
+        downstreamClientFactory = new DownstreamClientFactory(WebClient.builder(),
+                new DownstreamProperties(Map.of(
+                        "prescription", client(Duration.ofSeconds(3)),
+                        "slowPrescription", client(Duration.ofMillis(50)))), circuitBreakerRegistry,
+                mock(ReactorLoadBalancerExchangeFilterFunction.class), new OutstandingRequestCounter());
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        downstreamClientFactory.shutdown();
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void retriesFailedGetRequestsTest() {
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        mockWebServer.enqueue(new MockResponse().setBody("pending"));
+
+        Mono<String> response = downstreamClientFactory.create("prescription").get()
+                .uri("/pendingPrescriptions")
+                .retrieve()
+                .bodyToMono(String.class);
+
+        StepVerifier.create(response)
+                .expectNext("pending")
+                .verifyComplete();
+
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void doesNotRetryFailedPatchRequestsTest() {
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.DISCONNECT_AT_START));
+        mockWebServer.enqueue(new MockResponse().setBody("approved"));
+
+        Mono<String> response = downstreamClientFactory.create("prescription").patch()
+                .uri("/approvePrescription/{prescriptionId}", 1L)
+                .retrieve()
+                .bodyToMono(String.class);
+
+        StepVerifier.create(response)
+                .expectError(WebClientRequestException.class)
+                .verify();
+
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void appliesRouteTimeoutsTest() {
+        for (int i = 0; i < 3; i++)
+            mockWebServer.enqueue(new MockResponse().setBody("slow").setHeadersDelay(1, TimeUnit.SECONDS));
+
+        Mono<String> response = downstreamClientFactory.create("prescription").get()
+                .uri("/slow")
+                .retrieve()
+                .bodyToMono(String.class);
+
+        StepVerifier.create(response)
+                .expectError(WebClientRequestException.class)
+                .verify(Duration.ofSeconds(3));
+    }
+
+    @Test
+    public void opensCircuitBreakerOnServerErrorsTest() {
+        WebClient webClient = downstreamClientFactory.create("prescription");
+
+        for (int i = 0; i < 4; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+            StepVerifier.create(webClient.get().uri("/pendingPrescriptions").retrieve().bodyToMono(String.class))
+                    .expectError()
+                    .verify();
+        }
+
+        StepVerifier.create(webClient.get().uri("/pendingPrescriptions").retrieve().bodyToMono(String.class))
+                .expectError(CallNotPermittedException.class)
+                .verify();
+
+        assertEquals(4, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void slowCallsBelowSlowCallRateKeepCircuitBreakerClosedTest() {
+        WebClient webClient = downstreamClientFactory.create("slowPrescription");
+
+        for (int i = 0; i < 4; i++) {
+            mockWebServer.enqueue(new MockResponse().setBody("pending")
+                    .setHeadersDelay(i < 2 ? 100 : 0, TimeUnit.MILLISECONDS));
+
+            StepVerifier.create(webClient.get().uri("/pendingPrescriptions").retrieve().bodyToMono(String.class))
+                    .expectNext("pending")
+                    .verifyComplete();
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, circuitBreakerRegistry.circuitBreaker("slowPrescription")
+                .getState());
+    }
+
+    private DownstreamProperties.Client client(Duration slowCallDuration) {
+        return new DownstreamProperties.Client(mockWebServer.url("/pharmacy").toString(), Duration.ofSeconds(1),
+                Duration.ofSeconds(5), Map.of("/pharmacy/slow", Duration.ofMillis(200)), 5, 10,
+                Duration.ofSeconds(1), Duration.ofSeconds(30), new DownstreamProperties.Retry(2, Duration.ofMillis(10),
+                0.5), new DownstreamProperties.CircuitBreaker(50, 100, 4, 4, slowCallDuration, Duration.ofMinutes(1)));
+    }
+}
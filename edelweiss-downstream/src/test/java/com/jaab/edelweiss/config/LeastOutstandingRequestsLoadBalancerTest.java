@@ -0,0 +1,112 @@
+package com.jaab.edelweiss.config;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.loadbalancer.DefaultRequest;
+import org.springframework.cloud.client.loadbalancer.Response;
+import org.springframework.cloud.loadbalancer.core.ServiceInstanceListSupplier;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class LeastOutstandingRequestsLoadBalancerTest {
+
+    private static final String SERVICE_ID = "edelweiss-prescription-api";
+
+    private final ServiceInstance firstInstance =
+            new DefaultServiceInstance("prescription-1", SERVICE_ID, "localhost", 8084, false);
+
+    private final ServiceInstance secondInstance =
+            new DefaultServiceInstance("prescription-2", SERVICE_ID, "localhost", 8094, false);
+
+    private OutstandingRequestCounter outstandingRequestCounter;
+
+    private LeastOutstandingRequestsLoadBalancer loadBalancer;
+
+    @BeforeEach
+    public void init() {
+        outstandingRequestCounter = new OutstandingRequestCounter();
+        loadBalancer = loadBalancer(firstInstance, secondInstance);
+    }
+
+    @Test
+    public void choosesInstanceWithFewestOutstandingRequestsTest() {
+        startRequest(firstInstance);
+        startRequest(firstInstance);
+        startRequest(secondInstance);
+
+        for (int i = 0; i < 10; i++)
+            assertEquals(secondInstance, choose());
+    }
+
+    @Test
+    public void completedRequestsAreNoLongerOutstandingTest() {
+        startRequest(firstInstance);
+        Sinks.One<ClientResponse> firstResponse = startRequest(secondInstance);
+        Sinks.One<ClientResponse> secondResponse = startRequest(secondInstance);
+
+        firstResponse.tryEmitValue(ClientResponse.create(HttpStatus.OK).build());
+        secondResponse.tryEmitError(new IllegalStateException("Connection reset"));
+
+        assertEquals(1, outstandingRequestCounter.getOutstandingRequests(firstInstance));
+        assertEquals(0, outstandingRequestCounter.getOutstandingRequests(secondInstance));
+        assertEquals(secondInstance, choose());
+    }
+
+    @Test
+    public void returnsEmptyResponseWithoutInstancesTest() {
+        loadBalancer = loadBalancer();
+
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+
+        assertFalse(response != null && response.hasServer());
+    }
+
+    private LeastOutstandingRequestsLoadBalancer loadBalancer(ServiceInstance... instances) {
+        ServiceInstanceListSupplier supplier = new ServiceInstanceListSupplier() {
+            @Override
+            public String getServiceId() {
+                return SERVICE_ID;
+            }
+
+            @Override
+            public Flux<List<ServiceInstance>> get() {
+                return Flux.just(List.of(instances));
+            }
+        };
+
+        return new LeastOutstandingRequestsLoadBalancer(new StaticListableBeanFactory(Map.of("supplier", supplier))
+                .getBeanProvider(ServiceInstanceListSupplier.class), outstandingRequestCounter);
+    }
+
+    private ServiceInstance choose() {
+        Response<ServiceInstance> response = loadBalancer.choose(new DefaultRequest<>()).block();
+
+        return response == null ? null : response.getServer();
+    }
+
+    private Sinks.One<ClientResponse> startRequest(ServiceInstance instance) {
+        Sinks.One<ClientResponse> response = Sinks.one();
+        ClientRequest request = ClientRequest
+                .create(HttpMethod.GET, instance.getUri().resolve("/pendingPrescriptions"))
+                .build();
+
+        outstandingRequestCounter.filter().filter(request, r -> response.asMono()).subscribe(r -> {
+        }, e -> {
+        });
+
+        return response;
+    }
+}
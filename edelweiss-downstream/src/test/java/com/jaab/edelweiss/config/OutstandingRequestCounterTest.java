@@ -0,0 +1,78 @@
+package com.jaab.edelweiss.config;
+
+import mockwebserver3.MockResponse;
+import mockwebserver3.MockWebServer;
+import mockwebserver3.SocketPolicy;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cloud.client.DefaultServiceInstance;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.test.StepVerifier;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class OutstandingRequestCounterTest {
+
+    private MockWebServer mockWebServer;
+
+    private OutstandingRequestCounter outstandingRequestCounter;
+
+    private ServiceInstance instance;
+
+    private WebClient webClient;
+
+    @BeforeEach
+    public void init() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        outstandingRequestCounter = new OutstandingRequestCounter();
+        instance = new DefaultServiceInstance("prescription-1", "edelweiss-prescription-api",
+                mockWebServer.getHostName(), mockWebServer.getPort(), false);
+        webClient = WebClient.builder()
+                .baseUrl(mockWebServer.url("/physician").toString())
+                .filter(outstandingRequestCounter.filter())
+                .build();
+    }
+
+    @AfterEach
+    public void cleanup() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void completedRequestsAreNoLongerOutstandingTest() {
+        mockWebServer.enqueue(new MockResponse().setBody("pending"));
+
+        StepVerifier.create(webClient.get().uri("/pendingPrescriptions").retrieve().bodyToMono(String.class))
+                .expectNext("pending")
+                .verifyComplete();
+
+        assertEquals(0, outstandingRequestCounter.getOutstandingRequests(instance));
+    }
+
+    @Test
+    public void cancelledRequestsAreNoLongerOutstandingTest() throws InterruptedException {
+        mockWebServer.enqueue(new MockResponse().setSocketPolicy(SocketPolicy.NO_RESPONSE));
+
+        Disposable request = webClient.get()
+                .uri("/pendingPrescriptions")
+                .retrieve()
+                .bodyToMono(String.class)
+                .subscribe();
+
+        mockWebServer.takeRequest(5, TimeUnit.SECONDS);
+
+        assertEquals(1, outstandingRequestCounter.getOutstandingRequests(instance));
+
+        request.dispose();
+
+        assertEquals(0, outstandingRequestCounter.getOutstandingRequests(instance));
+    }
+}
@@ -4,14 +4,17 @@ import com.jaab.edelweiss.model.Role;
 import com.jaab.edelweiss.service.LoginService;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
-import org.springframework.security.config.Customizer;
+import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
@@ -21,9 +24,13 @@ public class AppSecurityConfig {
 
     private final PasswordEncoder passwordEncoder;
 
-    public AppSecurityConfig(LoginService loginService, PasswordEncoder passwordEncoder) {
+    private final JwtAuthenticationFilter jwtAuthFilter;
+
+    public AppSecurityConfig(LoginService loginService, PasswordEncoder passwordEncoder,
+                             JwtAuthenticationFilter jwtAuthFilter) {
         this.loginService = loginService;
         this.passwordEncoder = passwordEncoder;
+        this.jwtAuthFilter = jwtAuthFilter;
     }
 
     @Bean
@@ -31,11 +38,13 @@ public class AppSecurityConfig {
         return http
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
-                        .requestMatchers("/newPatient").permitAll()
+                        .requestMatchers("/newPatient", "/login", "/patient/logout").permitAll()
                         .requestMatchers("/patient/**").hasRole(Role.PATIENT.name())
                         .requestMatchers("/physician/**").hasRole(Role.PHYSICIAN.name())
                         .anyRequest().authenticated())
-                .httpBasic(Customizer.withDefaults())
+                .addFilterBefore(jwtAuthFilter, UsernamePasswordAuthenticationFilter.class)
+                .httpBasic(AbstractHttpConfigurer::disable)
+                .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .build();
     }
 
@@ -46,4 +55,9 @@ public class AppSecurityConfig {
 
         return provider;
     }
+
+    @Bean
+    public AuthenticationManager authenticationManager(AuthenticationConfiguration configuration) throws Exception {
+        return configuration.getAuthenticationManager();
+    }
 }
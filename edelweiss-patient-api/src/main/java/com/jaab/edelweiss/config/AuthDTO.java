@@ -0,0 +1,4 @@
+package com.jaab.edelweiss.config;
+
+public record AuthDTO(String email, String password) {
+}
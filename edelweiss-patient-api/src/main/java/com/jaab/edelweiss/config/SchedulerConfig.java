@@ -0,0 +1,30 @@
+package com.jaab.edelweiss.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+/**
+ * This class configures the scheduler that blocking JPA calls are offloaded to. The scheduler has no more
+ * threads than the connection pool has connections, so a thread never waits on the pool for a connection.
+ * Password hashing during imports runs on its own scheduler, bounded by the number of CPU cores
+ *
+ * @author Joseph Barr
+ */
+@Configuration
+public class SchedulerConfig {
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler jdbcScheduler(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                                   @Value("${edelweiss.jdbc-scheduler.queue-size:1000}") int queueSize) {
+        return Schedulers.newBoundedElastic(poolSize, queueSize, "jdbc");
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public Scheduler passwordHashScheduler(@Value("${edelweiss.patient-import.hash-threads:0}") int threads) {
+        return Schedulers.newParallel("password-hash",
+                threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+}
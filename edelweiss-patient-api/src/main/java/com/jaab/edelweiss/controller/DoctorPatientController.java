@@ -2,14 +2,26 @@ package com.jaab.edelweiss.controller;
 
 import com.jaab.edelweiss.dto.AddressDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.dto.PatientImportResult;
+import com.jaab.edelweiss.dto.PatientSearchCriteria;
+import com.jaab.edelweiss.exception.InvalidFieldException;
+import com.jaab.edelweiss.service.PatientChangeFeed;
+import com.jaab.edelweiss.service.PatientImportService;
 import com.jaab.edelweiss.service.PatientService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.io.InputStream;
+import java.util.List;
+
 /**
  * This class is a controller for the endpoints that allow doctors to access patient information
- * from the doctor API
+ * from the doctor API. Patient lists are streamed as they are read when requested as NDJSON
  *
  * @author Joseph Barr
  */
@@ -17,21 +29,44 @@ import reactor.core.publisher.Mono;
 @RequestMapping(value = "/physician")
 public class DoctorPatientController {
 
+    public static final int MAX_PATIENT_IDS = 500;
+
     private final PatientService patientService;
 
-    public DoctorPatientController(PatientService patientService) {
+    private final PatientChangeFeed patientChangeFeed;
+
+    private final PatientImportService patientImportService;
+
+    public DoctorPatientController(PatientService patientService, PatientChangeFeed patientChangeFeed,
+                                   PatientImportService patientImportService) {
         this.patientService = patientService;
+        this.patientChangeFeed = patientChangeFeed;
+        this.patientImportService = patientImportService;
     }
 
     /**
-     * Retrieves a patient from the patient database based on the patient's ID
+     * Retrieves a patient from the patient database based on the patient's ID. The patient's version is its ETag,
+     * and when it matches If-None-Match the response is a 304 without the patient being loaded
      *
      * @param patientId - the ID of the patient
-     * @return - the patient with the specified ID
+     * @param headers   - the request headers, which may contain If-None-Match
+     * @return - the patient with the specified ID, or a 304 if the client's copy is current
      */
     @GetMapping(value = "/getPatientById/{patientId}")
-    public Mono<PatientDTO> getPatientById(@PathVariable Long patientId) {
-        return Mono.just(patientService.getPatientById(patientId));
+    public Mono<ResponseEntity<PatientDTO>> getPatientById(@PathVariable Long patientId,
+                                                           @RequestHeader HttpHeaders headers) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+
+        Mono<ResponseEntity<PatientDTO>> patient = patientService.getPatientById(patientId)
+                .map(patientDTO -> ETags.ok(patientDTO.version(), patientDTO));
+
+        if (ifNoneMatch.isEmpty())
+            return patient;
+
+        return patientService.getPatientVersion(patientId)
+                .filter(version -> ETags.matches(ifNoneMatch, version))
+                .map(ETags::<PatientDTO>notModified)
+                .switchIfEmpty(patient);
     }
 
     /**
@@ -40,9 +75,10 @@ public class DoctorPatientController {
      * @param firstName - the first name of the patient
      * @return - the list of patients matching the criteria
      */
-    @GetMapping(value = "/getPatientsByFirstName/{firstName}")
+    @GetMapping(value = "/getPatientsByFirstName/{firstName}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     public Flux<PatientDTO> getPatientsByFirstName(@PathVariable String firstName) {
-        return Flux.fromIterable(patientService.getPatientsByFirstName(firstName));
+        return patientService.getPatientsByFirstName(firstName);
     }
 
     /**
@@ -51,9 +87,10 @@ public class DoctorPatientController {
      * @param lastName - the last name of the patient
      * @return - the list of patients matching the criteria
      */
-    @GetMapping(value = "/getPatientsByLastName/{lastName}")
+    @GetMapping(value = "/getPatientsByLastName/{lastName}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     public Flux<PatientDTO> getPatientsByLastName(@PathVariable String lastName) {
-        return Flux.fromIterable(patientService.getPatientsByLastName(lastName));
+        return patientService.getPatientsByLastName(lastName);
     }
 
     /**
@@ -62,9 +99,68 @@ public class DoctorPatientController {
      * @param bloodType - the blood type of the patient
      * @return - the patients of patients matching the criteria
      */
-    @GetMapping(value = "/getPatientsByBloodType/{bloodType}")
+    @GetMapping(value = "/getPatientsByBloodType/{bloodType}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
     public Flux<PatientDTO> getPatientsByBloodType(@PathVariable String bloodType) {
-        return Flux.fromIterable(patientService.getPatientsByBloodType(bloodType));
+        return patientService.getPatientsByBloodType(bloodType);
+    }
+
+    /**
+     * Retrieves a list of patients from the patient database that match every criterion that is set. Any of the
+     * patient's names, blood type, primary doctor, city, state and zipcode may be combined
+     *
+     * @param criteria - the search criteria
+     * @return - the list of patients matching the criteria
+     */
+    @GetMapping(value = "/getPatientsByCriteria",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PatientDTO> getPatientsByCriteria(PatientSearchCriteria criteria) {
+        return patientService.getPatientsByCriteria(criteria);
+    }
+
+    /**
+     * Searches the patient database for patients whose first or last name starts with or resembles the search
+     * term, ignoring case. The best matches are returned first
+     *
+     * @param q     - the search term
+     * @param limit - the maximum number of patients to return
+     * @return - the list of patients matching the search term
+     */
+    @GetMapping(value = "/searchPatients",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PatientDTO> searchPatients(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+        return patientService.searchPatients(q, limit);
+    }
+
+    /**
+     * Retrieves the patients with the specified IDs from the patient database in a single query
+     *
+     * @param patientIds - the IDs of the patients
+     * @return - the list of the patients found
+     * @throws InvalidFieldException if more than MAX_PATIENT_IDS IDs are requested
+     */
+    @PostMapping(value = "/getPatientsByIds", consumes = MediaType.APPLICATION_JSON_VALUE,
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public Flux<PatientDTO> getPatientsByIds(@RequestBody List<Long> patientIds) throws InvalidFieldException {
+        if (patientIds.size() > MAX_PATIENT_IDS)
+            throw new InvalidFieldException("At most " + MAX_PATIENT_IDS + " patients can be retrieved at once.");
+
+        return patientService.getPatientsByIds(patientIds);
+    }
+
+    /**
+     * Imports patients in bulk from an NDJSON or CSV stream, such as the patient list of a new practice. The result
+     * of each row is streamed back as soon as the row's batch is saved
+     *
+     * @param contentType - the format of the stream
+     * @param patients    - the stream of patients
+     * @return - the result of every row, with the new patient's ID or the reason the row was rejected
+     */
+    @PostMapping(value = "/importPatients", consumes = {MediaType.APPLICATION_NDJSON_VALUE, "text/csv"},
+            produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<PatientImportResult> importPatients(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                    InputStream patients) {
+        return patientImportService.importPatients(patients, contentType);
     }
 
     /**
@@ -75,7 +171,18 @@ public class DoctorPatientController {
      */
     @GetMapping(value = "/getPatientAddress/{patientId}")
     public Mono<AddressDTO> getAddress(@PathVariable Long patientId) {
-        return Mono.just(patientService.getAddress(patientId));
+        return patientService.getAddress(patientId);
+    }
+
+    /**
+     * Streams the IDs of patients as they are updated or deleted, so that the doctor API can evict them from
+     * its cache
+     *
+     * @return - the stream of patient change events
+     */
+    @GetMapping(value = "/patientChanges", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Long>> streamPatientChanges() {
+        return patientChangeFeed.streamPatientChanges();
     }
 
     /**
@@ -1,11 +1,19 @@
 package com.jaab.edelweiss.controller;
 
+import com.jaab.edelweiss.config.AuthDTO;
 import com.jaab.edelweiss.dto.AddressDTO;
+import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
 import com.jaab.edelweiss.model.Patient;
+import com.jaab.edelweiss.service.JwtService;
 import com.jaab.edelweiss.service.PatientService;
-import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.*;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -20,8 +28,82 @@ public class PatientController {
 
     private final PatientService patientService;
 
-    public PatientController(PatientService patientService) {
+    private final JwtService jwtService;
+
+    private final AuthenticationManager authenticationManager;
+
+    public PatientController(PatientService patientService, JwtService jwtService,
+                             AuthenticationManager authenticationManager) {
         this.patientService = patientService;
+        this.jwtService = jwtService;
+        this.authenticationManager = authenticationManager;
+    }
+
+    /**
+     * Authenticates a patient and issues an access token so that credentials are only checked once per session
+     *
+     * @param authDTO  - the payload containing the patient's email and password
+     * @param response - the HTTP response
+     * @return - the access token
+     */
+    @PostMapping(value = "/login",
+            consumes = MediaType.APPLICATION_JSON_VALUE, produces = MediaType.APPLICATION_JSON_VALUE)
+    public String login(@RequestBody AuthDTO authDTO, HttpServletResponse response) {
+
+        Authentication authentication = authenticationManager
+                .authenticate(new UsernamePasswordAuthenticationToken(authDTO.email(), authDTO.password()));
+
+        LoginDTO loginDTO = (LoginDTO) authentication.getPrincipal();
+
+        if (authentication.isAuthenticated()) {
+            String accessToken = jwtService.generateToken(loginDTO);
+
+            ResponseCookie cookie = ResponseCookie.from("accessToken", accessToken)
+                    .httpOnly(true)
+                    .secure(false)
+                    .path("/")
+                    .build();
+
+            response.setHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+
+            return accessToken;
+
+        } else
+            throw new BadCredentialsException("Invalid email or password");
+    }
+
+    /**
+     * Revokes the patient's access token and clears the access token cookie. A token that is expired or cannot be
+     * verified no longer authenticates anyone, so it counts as already logged out and only the cookie is cleared
+     *
+     * @param accessToken - the access token of the patient
+     * @param response    - the HTTP response
+     * @return - HTTP status response
+     */
+    @PostMapping(value = "/patient/logout")
+    public ResponseEntity<String> logout(@CookieValue(value = "accessToken") String accessToken,
+                                         HttpServletResponse response) {
+        boolean revoked = true;
+
+        try {
+            jwtService.revokeToken(accessToken);
+        } catch (JwtException e) {
+            revoked = false;
+        }
+
+        ResponseCookie cookie = ResponseCookie.from("accessToken", "")
+                .httpOnly(true)
+                .secure(false)
+                .path("/")
+                .maxAge(0)
+                .build();
+
+        response.setHeader(HttpHeaders.SET_COOKIE, cookie.toString());
+
+        if (!revoked)
+            return ResponseEntity.noContent().build();
+
+        return ResponseEntity.ok("Successfully logged out.");
     }
 
     /**
@@ -1,19 +1,109 @@
 package com.jaab.edelweiss.dao;
 
+import com.jaab.edelweiss.dto.PatientDTO;
 import com.jaab.edelweiss.model.Patient;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.SpecHints;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface PatientRepository extends JpaRepository<Patient, Long> {
+public interface PatientRepository extends JpaRepository<Patient, Long>, PatientSearchRepository {
+
+    String SELECT_PATIENT_DTO = "select new com.jaab.edelweiss.dto.PatientDTO(p.id, p.firstName, p.lastName, " +
+            "p.email, p.phoneNumber, p.primaryDoctor, p.bloodType, p.version) from Patient p ";
+
     Optional<Patient> findByEmail(String email);
 
-    List<Patient> findByFirstNameOrderByLastName(String firstName);
+    /**
+     * Reads the patient and the patient's address from the database even when they are in the second-level cache,
+     * so that an update never starts from a copy that another instance has since changed
+     *
+     * @param id - the ID of the patient
+     * @return - the patient if available
+     */
+    @EntityGraph(attributePaths = "address")
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    Optional<Patient> findUncachedById(Long id);
+
+    /**
+     * Reads only the version of the patient, so that a conditional read can be answered without loading the patient
+     *
+     * @param id - the ID of the patient
+     * @return - the version of the patient if available
+     */
+    @Query("select p.version from Patient p where p.id = :id")
+    Optional<Long> findVersionById(Long id);
+
+    @Query(SELECT_PATIENT_DTO + "where p.id in :patientIds")
+    List<PatientDTO> findPatientDTOsByIds(Collection<Long> patientIds);
+
+    /**
+     * Retrieves the patients with the first name that come after the given patient in order of last name and ID.
+     * The row comparison lets the index on the names seek straight to the next page instead of skipping the rows
+     * of the pages before it
+     *
+     * @param firstName     - the first name of the patients
+     * @param afterLastName - the last name of the last patient already read
+     * @param afterId       - the ID of the last patient already read
+     * @param pageable      - the number of patients to retrieve
+     * @return - the next patients with the first name
+     */
+    @Query(SELECT_PATIENT_DTO + "where p.firstName = :firstName and (p.lastName, p.id) > (:afterLastName, :afterId) " +
+            "order by p.lastName, p.id")
+    Slice<PatientDTO> findPatientDTOsByFirstNameAfter(String firstName, String afterLastName, Long afterId,
+                                                      Pageable pageable);
+
+    /**
+     * Retrieves the patients with the last name that come after the given patient in order of first name and ID
+     *
+     * @param lastName       - the last name of the patients
+     * @param afterFirstName - the first name of the last patient already read
+     * @param afterId        - the ID of the last patient already read
+     * @param pageable       - the number of patients to retrieve
+     * @return - the next patients with the last name
+     */
+    @Query(SELECT_PATIENT_DTO + "where p.lastName = :lastName and (p.firstName, p.id) > (:afterFirstName, :afterId) " +
+            "order by p.firstName, p.id")
+    Slice<PatientDTO> findPatientDTOsByLastNameAfter(String lastName, String afterFirstName, Long afterId,
+                                                     Pageable pageable);
 
-    List<Patient> findByLastNameOrderByFirstName(String lastName);
+    /**
+     * Retrieves the patients with the blood type that come after the given patient in order of ID
+     *
+     * @param bloodType - the blood type of the patients
+     * @param afterId   - the ID of the last patient already read
+     * @param pageable  - the number of patients to retrieve
+     * @return - the next patients with the blood type
+     */
+    @Query(SELECT_PATIENT_DTO + "where p.bloodType = :bloodType and p.id > :afterId order by p.id")
+    Slice<PatientDTO> findPatientDTOsByBloodTypeAfter(String bloodType, Long afterId, Pageable pageable);
 
-    List<Patient> findByBloodType(String bloodType);
-}
\ No newline at end of file
+    /**
+     * Searches the patients by name using the trigram index on the lowercase full name. Patients whose first or
+     * last name starts with the search term are ranked first, followed by patients whose name contains a word
+     * similar to the search term
+     *
+     * @param term   - the lowercase search term
+     * @param prefix - the search term escaped for LIKE and followed by a wildcard
+     * @param limit  - the maximum number of patient IDs to return
+     * @return - the IDs of the matching patients, best match first
+     */
+    @Query(value = "select cast(s.patient_id as bigint) from (" +
+            "select p.patient_id, p.first_name, p.last_name, " +
+            "lower(p.first_name || ' ' || p.last_name) as full_name from patients p) s " +
+            "where s.full_name like :prefix or s.full_name like '% ' || :prefix or :term <% s.full_name " +
+            "order by (s.full_name like :prefix or s.full_name like '% ' || :prefix) desc, " +
+            "word_similarity(:term, s.full_name) desc, s.last_name, s.first_name, s.patient_id " +
+            "limit :limit", nativeQuery = true)
+    List<Long> searchPatientIds(String term, String prefix, int limit);
+}
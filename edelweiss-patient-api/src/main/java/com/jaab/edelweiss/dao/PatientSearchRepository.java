@@ -0,0 +1,20 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.model.Patient;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+public interface PatientSearchRepository {
+
+    /**
+     * Retrieves the patients matching the Specification that come after the given patient in order of last name,
+     * first name and ID, selecting only the columns of PatientDTO
+     *
+     * @param specification - the criteria the patients must match
+     * @param after         - the last patient already read
+     * @param limit         - the number of patients to retrieve
+     * @return - the next matching patients
+     */
+    Slice<PatientDTO> findPatientDTOsAfter(Specification<Patient> specification, PatientDTO after, int limit);
+}
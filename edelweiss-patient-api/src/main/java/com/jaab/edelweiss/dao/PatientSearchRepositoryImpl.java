@@ -0,0 +1,78 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.model.Patient;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * This class runs Specification queries against the patient database as a single select of the PatientDTO
+ * columns. Unlike JpaSpecificationExecutor, it never loads the Patient entities or their addresses
+ *
+ * @author Joseph Barr
+ */
+public class PatientSearchRepositoryImpl implements PatientSearchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<PatientDTO> findPatientDTOsAfter(Specification<Patient> specification, PatientDTO after,
+                                                  int limit) {
+        CriteriaBuilder builder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PatientDTO> query = builder.createQuery(PatientDTO.class);
+        Root<Patient> patient = query.from(Patient.class);
+
+        query.select(builder.construct(PatientDTO.class, patient.get("id"), patient.get("firstName"),
+                patient.get("lastName"), patient.get("email"), patient.get("phoneNumber"),
+                patient.get("primaryDoctor"), patient.get("bloodType"), patient.get("version")));
+
+        Predicate predicate = specification == null ? null : specification.toPredicate(patient, query, builder);
+        Predicate keyset = after(patient, builder, after);
+
+        query.where(predicate == null ? keyset : builder.and(predicate, keyset));
+        query.orderBy(builder.asc(patient.get("lastName")), builder.asc(patient.get("firstName")),
+                builder.asc(patient.get("id")));
+
+        List<PatientDTO> patients = entityManager.createQuery(query)
+                .setMaxResults(limit + 1)
+                .getResultList();
+
+        boolean hasNext = patients.size() > limit;
+
+        return new SliceImpl<>(hasNext ? patients.subList(0, limit) : patients, PageRequest.ofSize(limit), hasNext);
+    }
+
+    /**
+     * Builds the row comparison (last name, first name, ID) > the given patient's, which the Criteria API has no
+     * operator for. The leading comparison on the last name alone lets an index on the names seek to the page
+     *
+     * @param patient - the root of the query
+     * @param builder - the CriteriaBuilder of the query
+     * @param after   - the last patient already read
+     * @return - the predicate matching the patients after the given one
+     */
+    private Predicate after(Root<Patient> patient, CriteriaBuilder builder, PatientDTO after) {
+        Path<String> lastName = patient.get("lastName");
+        Path<String> firstName = patient.get("firstName");
+        Path<Long> id = patient.get("id");
+
+        Predicate afterFirstName = builder.or(builder.greaterThan(firstName, after.firstName()),
+                builder.and(builder.equal(firstName, after.firstName()), builder.greaterThan(id, after.id())));
+
+        return builder.and(builder.greaterThanOrEqualTo(lastName, after.lastName()),
+                builder.or(builder.greaterThan(lastName, after.lastName()),
+                        builder.and(builder.equal(lastName, after.lastName()), afterFirstName)));
+    }
+}
@@ -0,0 +1,71 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.dto.PatientSearchCriteria;
+import com.jaab.edelweiss.model.Address;
+import com.jaab.edelweiss.model.Patient;
+import jakarta.persistence.criteria.Join;
+import org.springframework.data.jpa.domain.Specification;
+
+/**
+ * This class builds the Specifications used to search the patient database. Each criterion is an exact match,
+ * and the criteria that are not set are left out of the query
+ *
+ * @author Joseph Barr
+ */
+public abstract class PatientSpecifications {
+
+    /**
+     * Combines the criteria that are set into a single Specification
+     *
+     * @param criteria - the search criteria
+     * @return - the Specification matching every criterion that is set
+     */
+    public static Specification<Patient> matching(PatientSearchCriteria criteria) {
+        return Specification.allOf(
+                patientAttributeEquals("firstName", criteria.firstName()),
+                patientAttributeEquals("lastName", criteria.lastName()),
+                patientAttributeEquals("bloodType", criteria.bloodType()),
+                patientAttributeEquals("primaryDoctor", criteria.primaryDoctor()),
+                addressAttributeEquals("city", criteria.city()),
+                addressAttributeEquals("state", criteria.state()),
+                addressAttributeEquals("zipcode", criteria.zipcode()));
+    }
+
+    /**
+     * Matches an attribute of the patient
+     *
+     * @param attribute - the name of the attribute
+     * @param value     - the value to match, or null to leave the criterion out
+     * @return - the Specification, or null if the value is not set
+     */
+    private static Specification<Patient> patientAttributeEquals(String attribute, Object value) {
+        if (value == null)
+            return null;
+
+        return (root, query, builder) -> builder.equal(root.get(attribute), value);
+    }
+
+    /**
+     * Matches an attribute of the patient's address. The address is joined at most once, however many address
+     * criteria are set
+     *
+     * @param attribute - the name of the attribute
+     * @param value     - the value to match, or null to leave the criterion out
+     * @return - the Specification, or null if the value is not set
+     */
+    @SuppressWarnings("unchecked")
+    private static Specification<Patient> addressAttributeEquals(String attribute, Object value) {
+        if (value == null)
+            return null;
+
+        return (root, query, builder) -> {
+            Join<Patient, Address> address = root.getJoins().stream()
+                    .filter(join -> join.getAttribute().getName().equals("address"))
+                    .map(join -> (Join<Patient, Address>) join)
+                    .findFirst()
+                    .orElseGet(() -> root.join("address"));
+
+            return builder.equal(address.get(attribute), value);
+        };
+    }
+}
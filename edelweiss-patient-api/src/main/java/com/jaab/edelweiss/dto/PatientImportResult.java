@@ -0,0 +1,12 @@
+package com.jaab.edelweiss.dto;
+
+public record PatientImportResult(long row, Long patientId, String error) {
+
+    public static PatientImportResult imported(long row, Long patientId) {
+        return new PatientImportResult(row, patientId, null);
+    }
+
+    public static PatientImportResult failed(long row, String error) {
+        return new PatientImportResult(row, null, error);
+    }
+}
@@ -0,0 +1,6 @@
+package com.jaab.edelweiss.dto;
+
+public record PatientImportRow(String firstName, String lastName, String email, String password,
+                               Long phoneNumber, String primaryDoctor, String bloodType,
+                               String streetAddress, String city, String state, Integer zipcode) {
+}
@@ -0,0 +1,5 @@
+package com.jaab.edelweiss.dto;
+
+public record PatientSearchCriteria(String firstName, String lastName, String bloodType, String primaryDoctor,
+                                    String city, String state, Integer zipcode) {
+}
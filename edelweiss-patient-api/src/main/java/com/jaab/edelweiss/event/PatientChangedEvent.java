@@ -0,0 +1,11 @@
+package com.jaab.edelweiss.event;
+
+/**
+ * This record is the application event published whenever a patient's information or address is updated, or the
+ * patient is deleted
+ *
+ * @param patientId - the ID of the patient
+ * @author Joseph Barr
+ */
+public record PatientChangedEvent(Long patientId) {
+}
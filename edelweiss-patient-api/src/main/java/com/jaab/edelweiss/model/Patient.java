@@ -2,17 +2,27 @@ package com.jaab.edelweiss.model;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "patients")
+@DynamicUpdate
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patients")
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 public class Patient {
 
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patients_patient_id_seq")
+    @SequenceGenerator(name = "patients_patient_id_seq", sequenceName = "patients_patient_id_seq",
+            allocationSize = ID_ALLOCATION_SIZE)
     @Column(name = "patient_id", nullable = false, updatable = false, unique = true)
     private Long id;
 
@@ -40,4 +50,8 @@ public class Patient {
 
     @Column(name = "blood_type", nullable = false, updatable = false, length = 3)
     private String bloodType;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
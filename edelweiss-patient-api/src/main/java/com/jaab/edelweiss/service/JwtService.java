@@ -0,0 +1,203 @@
+package com.jaab.edelweiss.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.jaab.edelweiss.dto.LoginDTO;
+import com.jaab.edelweiss.model.Role;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Service
+public class JwtService {
+
+    private final SecretKey secretKey = generateKey();
+
+    private final SecretKeySpec secretKeySpec
+            = new SecretKeySpec(secretKey.getEncoded(), "HmacSHA256");
+
+    private final JwtParser jwtParser = Jwts.parser().verifyWith(secretKeySpec).build();
+
+    private final TokenDenyList tokenDenyList;
+
+    private final Cache<String, Claims> verifiedTokens;
+
+    public JwtService(TokenDenyList tokenDenyList,
+                      @Value("${edelweiss.jwt.claims-cache.max-size:10000}") long claimsCacheSize) {
+        this.tokenDenyList = tokenDenyList;
+        this.verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(claimsCacheSize)
+                .expireAfter(new TokenExpiry())
+                .build();
+    }
+
+    public String generateToken(LoginDTO loginDTO) {
+        long currentDate = System.currentTimeMillis();
+
+        Map<String, Object> claims = new HashMap<>();
+
+        claims.put("id", loginDTO.id());
+        claims.put("role", loginDTO.role());
+
+        return Jwts
+                .builder()
+                .claims(claims)
+                .id(UUID.randomUUID().toString())
+                .subject(loginDTO.email())
+                .issuedAt(new Date(currentDate))
+                .expiration(new Date(currentDate + (1000 * 60 * 24)))
+                .signWith(secretKey)
+                .compact();
+    }
+
+    public String extractEmail(String token) {
+        return extractClaim(token, Claims::getSubject);
+    }
+
+    /**
+     * Rebuilds the authenticated patient from the signed claims of the token without a database lookup
+     *
+     * @param token - the access token
+     * @return - the LoginDTO object containing the patient's information
+     */
+    public LoginDTO extractUserDetails(String token) {
+        return extractUserDetails(parseClaims(token));
+    }
+
+    /**
+     * Rebuilds the authenticated patient from claims that have already been verified
+     *
+     * @param claims - the verified claims of the access token
+     * @return - the LoginDTO object containing the patient's information
+     */
+    public LoginDTO extractUserDetails(Claims claims) {
+        return new LoginDTO(claims.get("id", Long.class), claims.getSubject(), null,
+                Role.valueOf(claims.get("role", String.class)));
+    }
+
+    public boolean isTokenValid(String token, UserDetails userDetails) {
+        return isTokenValid(parseClaims(token), userDetails);
+    }
+
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername());
+    }
+
+    /**
+     * Checks to see if the token has been revoked by a logout
+     *
+     * @param token - the access token
+     * @return - true if the token is on the deny-list
+     */
+    public boolean isTokenRevoked(String token) {
+        return isTokenRevoked(parseClaims(token));
+    }
+
+    /**
+     * Checks to see if the token the verified claims belong to has been revoked by a logout
+     *
+     * @param claims - the verified claims of the access token
+     * @return - true if the token is on the deny-list
+     */
+    public boolean isTokenRevoked(Claims claims) {
+        return claims.getId() != null && tokenDenyList.isRevoked(claims.getId());
+    }
+
+    /**
+     * Adds the token to the deny-list until it expires
+     *
+     * @param token - the access token
+     */
+    public void revokeToken(String token) {
+        Claims claims = parseClaims(token);
+
+        if (claims.getId() != null)
+            tokenDenyList.revoke(claims.getId(), claims.getExpiration().toInstant());
+    }
+
+    /**
+     * Verifies the signature of the token and parses its claims. Verified claims are cached by the hash of the
+     * token until the token expires, so repeated requests with the same token skip the HMAC and JSON parsing
+     *
+     * @param token - the access token
+     * @return - the verified claims of the token
+     */
+    public Claims parseClaims(String token) {
+        return verifiedTokens.get(hash(token), tokenHash -> jwtParser.parseSignedClaims(token).getPayload());
+    }
+
+    private <T> T extractClaim(String token, Function<Claims, T> claimResolver) {
+        Claims claims = parseClaims(token);
+
+        return claimResolver.apply(claims);
+    }
+
+    private String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private SecretKey generateKey() {
+        KeyGenerator keyGenerator;
+
+        try {
+            keyGenerator = KeyGenerator.getInstance("HmacSHA256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        keyGenerator.init(256);
+
+        return keyGenerator.generateKey();
+    }
+
+    /**
+     * Expires each cached entry at the moment its token expires
+     */
+    private static class TokenExpiry implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String tokenHash, Claims claims, long currentTime) {
+            if (claims.getExpiration() == null)
+                return 0;
+
+            Duration remaining = Duration.between(Instant.now(), claims.getExpiration().toInstant());
+
+            return Math.max(remaining.toNanos(), 0);
+        }
+
+        @Override
+        public long expireAfterUpdate(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(String tokenHash, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
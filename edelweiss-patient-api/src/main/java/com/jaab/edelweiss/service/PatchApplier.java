@@ -0,0 +1,113 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.exception.InvalidFieldException;
+
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+/**
+ * This class applies partial updates sent as JSON objects to an entity through a fixed table of the fields that
+ * may be updated. Each field is set through its setter after its value is converted to the field's type, so no
+ * reflection is done per request. Fields outside the table, such as IDs and columns that are not updatable, are
+ * ignored
+ *
+ * @param <T> - the type of the entity
+ * @author Joseph Barr
+ */
+public class PatchApplier<T> {
+
+    public static final Converter<String> TEXT = value -> {
+        if (value instanceof String text)
+            return text;
+
+        throw new IllegalArgumentException("must be text");
+    };
+
+    public static final Converter<Long> LONG = value -> {
+        if (value instanceof Integer || value instanceof Long)
+            return ((Number) value).longValue();
+
+        throw new IllegalArgumentException("must be a whole number");
+    };
+
+    public static final Converter<Integer> INTEGER = value -> {
+        if (value instanceof Integer number)
+            return number;
+
+        throw new IllegalArgumentException("must be a whole number");
+    };
+
+    private final Map<String, Field<T, ?>> fields;
+
+    public PatchApplier(Map<String, Field<T, ?>> fields) {
+        this.fields = Map.copyOf(fields);
+    }
+
+    /**
+     * Creates an entry of the field table
+     *
+     * @param converter - the conversion of the JSON value to the field's type
+     * @param setter    - the setter of the field
+     * @return - the field table entry
+     */
+    public static <T, V> Field<T, V> field(Converter<V> converter, BiConsumer<T, V> setter) {
+        return new Field<>(converter, setter, false);
+    }
+
+    /**
+     * Creates an entry of the field table for a field that may be cleared with a null value
+     *
+     * @param converter - the conversion of the JSON value to the field's type
+     * @param setter    - the setter of the field
+     * @return - the field table entry
+     */
+    public static <T, V> Field<T, V> nullableField(Converter<V> converter, BiConsumer<T, V> setter) {
+        return new Field<>(converter, setter, true);
+    }
+
+    /**
+     * Sets the fields of the entity that are in the field table to their converted values
+     *
+     * @param entity - the entity to update
+     * @param patch  - the updated fields and their values
+     * @throws InvalidFieldException if a value is null or cannot be converted to its field's type
+     */
+    public void apply(T entity, Map<String, Object> patch) throws InvalidFieldException {
+        patch.forEach((key, value) -> {
+            Field<T, ?> field = fields.get(key);
+
+            if (field != null)
+                field.apply(key, entity, value);
+        });
+    }
+
+    /**
+     * The conversion of a JSON value to the type of field
+     *
+     * @param <V> - the type of the field
+     */
+    @FunctionalInterface
+    public interface Converter<V> {
+
+        V convert(Object value) throws IllegalArgumentException;
+    }
+
+    public record Field<T, V>(Converter<V> converter, BiConsumer<T, V> setter, boolean nullable) {
+
+        private void apply(String key, T entity, Object value) throws InvalidFieldException {
+            if (value == null) {
+                if (!nullable)
+                    throw new InvalidFieldException(key + " cannot be null.");
+
+                setter.accept(entity, null);
+                return;
+            }
+
+            try {
+                setter.accept(entity, converter.convert(value));
+            } catch (IllegalArgumentException e) {
+                throw new InvalidFieldException(key + " " + e.getMessage() + ".");
+            }
+        }
+    }
+}
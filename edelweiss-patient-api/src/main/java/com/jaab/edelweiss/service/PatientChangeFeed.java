@@ -0,0 +1,184 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.event.PatientChangedEvent;
+import jakarta.annotation.PreDestroy;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * This class is a service that streams the IDs of changed patients to the doctor API, so that each doctor API
+ * instance can evict the patient from its cache. Changes are sent through a Postgres NOTIFY channel that every
+ * patient API instance listens to, so a doctor API instance subscribed to any one of them sees the changes made by
+ * all of them
+ *
+ * @author Joseph Barr
+ */
+@Service
+public class PatientChangeFeed {
+
+    public static final String CHANGED_EVENT = "changed";
+
+    public static final String RESET_EVENT = "reset";
+
+    public static final String CHANNEL = "patient_changes";
+
+    private static final int POLL_TIMEOUT_MILLIS = 500;
+
+    private final Sinks.Many<ServerSentEvent<Long>> changes = Sinks.many().multicast().directBestEffort();
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataSourceProperties dataSourceProperties;
+
+    private final Duration heartbeat;
+
+    private final Duration reconnectDelay;
+
+    private volatile boolean running;
+
+    private volatile boolean listening;
+
+    private Thread listener;
+
+    public PatientChangeFeed(JdbcTemplate jdbcTemplate, DataSourceProperties dataSourceProperties,
+                             @Value("${edelweiss.patient-change-feed.heartbeat:15s}") Duration heartbeat,
+                             @Value("${edelweiss.patient-change-feed.reconnect-delay:1s}")
+                             Duration reconnectDelay) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSourceProperties = dataSourceProperties;
+        this.heartbeat = heartbeat;
+        this.reconnectDelay = reconnectDelay;
+    }
+
+    /**
+     * Streams a "changed" server-sent event carrying the patient's ID for every patient changed after the
+     * subscription starts. A "reset" event is sent when changes may have been missed, because the instance lost
+     * its connection to the channel
+     *
+     * @return - the stream of patient change events
+     */
+    public Flux<ServerSentEvent<Long>> streamPatientChanges() {
+        Flux<ServerSentEvent<Long>> heartbeats = Flux.interval(heartbeat)
+                .map(tick -> ServerSentEvent.<Long>builder().comment("heartbeat").build());
+
+        return Flux.merge(changes.asFlux(), heartbeats);
+    }
+
+    /**
+     * Sends a patient change to the channel as part of the transaction that made it, so Postgres delivers it to
+     * every instance only once the transaction has committed
+     *
+     * @param event - the PatientChangedEvent object
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void onPatientChanged(PatientChangedEvent event) {
+        jdbcTemplate.query("select pg_notify(?, ?)", rs -> {
+        }, CHANNEL, String.valueOf(event.patientId()));
+    }
+
+    /**
+     * Starts listening to the channel on a connection of its own, outside the connection pool
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running)
+            return;
+
+        running = true;
+        listener = new Thread(this::listen, "patient-change-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    /**
+     * Checks whether the instance is listening to the channel
+     *
+     * @return - true if notifications sent now will reach the subscribers of the instance
+     */
+    public boolean isListening() {
+        return listening;
+    }
+
+    @PreDestroy
+    public synchronized void shutdown() throws InterruptedException {
+        running = false;
+        listening = false;
+
+        if (listener != null)
+            listener.join(POLL_TIMEOUT_MILLIS * 2L);
+
+        changes.tryEmitComplete();
+    }
+
+    /**
+     * Pushes the notifications of the channel to the subscribers until the feed is shut down. The channel is
+     * listened to again after the connection is lost, and a reset is pushed since notifications sent in the
+     * meantime are gone
+     */
+    private void listen() {
+        boolean connected = false;
+
+        while (running) {
+            try (Connection connection = DriverManager.getConnection(dataSourceProperties.determineUrl(),
+                    dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword())) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("listen " + CHANNEL);
+                }
+
+                if (connected)
+                    emit(ServerSentEvent.<Long>builder().event(RESET_EVENT).build());
+
+                connected = true;
+                listening = true;
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications(POLL_TIMEOUT_MILLIS);
+
+                    if (notifications == null)
+                        continue;
+
+                    for (PGNotification notification : notifications) {
+                        emit(ServerSentEvent.<Long>builder()
+                                .event(CHANGED_EVENT)
+                                .data(Long.valueOf(notification.getParameter()))
+                                .build());
+                    }
+                }
+            } catch (SQLException e) {
+                listening = false;
+                pause();
+            }
+        }
+    }
+
+    private void emit(ServerSentEvent<Long> event) {
+        changes.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(reconnectDelay.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            running = false;
+        }
+    }
+}
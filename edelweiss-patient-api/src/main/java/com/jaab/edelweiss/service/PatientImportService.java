@@ -0,0 +1,361 @@
+package com.jaab.edelweiss.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvParser;
+import com.jaab.edelweiss.dto.PatientImportResult;
+import com.jaab.edelweiss.dto.PatientImportRow;
+import com.jaab.edelweiss.model.Patient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.function.BiFunction;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * This class imports patients in bulk from an NDJSON or CSV stream. Rows are read as they arrive, their passwords
+ * are hashed in parallel on a bounded scheduler, and they are inserted in JDBC batches with IDs allocated from the
+ * patients sequence in blocks, as Hibernate does. A result is reported for every row, so one bad row never fails
+ * the import
+ *
+ * @author Joseph Barr
+ */
+@Service
+public class PatientImportService {
+
+    public static final MediaType TEXT_CSV = new MediaType("text", "csv");
+
+    private static final String NEXT_PATIENT_ID_BLOCKS =
+            "select nextval('patients_patient_id_seq') from generate_series(1, ?)";
+
+    private static final String FIND_EXISTING_EMAILS = "select patient_email from patients where patient_email in (%s)";
+
+    private static final String INSERT_PATIENT = "insert into patients (patient_id, first_name, last_name, " +
+            "patient_email, patient_password, phone_number, primary_doctor, blood_type) " +
+            "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String INSERT_ADDRESS = "insert into address (patient_id, street_address, city, state, " +
+            "zipcode) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final PasswordEncoder passwordEncoder;
+
+    private final Scheduler jdbcScheduler;
+
+    private final Scheduler passwordHashScheduler;
+
+    private final ObjectReader jsonReader;
+
+    private final ObjectReader csvReader;
+
+    private final int batchSize;
+
+    private final int hashConcurrency;
+
+    public PatientImportService(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                PasswordEncoder passwordEncoder, Scheduler jdbcScheduler,
+                                Scheduler passwordHashScheduler, ObjectMapper objectMapper,
+                                @Value("${edelweiss.patient-import.batch-size:500}") int batchSize,
+                                @Value("${edelweiss.patient-import.hash-concurrency:32}") int hashConcurrency) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.passwordEncoder = passwordEncoder;
+        this.jdbcScheduler = jdbcScheduler;
+        this.passwordHashScheduler = passwordHashScheduler;
+        this.batchSize = batchSize;
+        this.hashConcurrency = hashConcurrency;
+
+        CsvMapper csvMapper = CsvMapper.builder()
+                .enable(CsvParser.Feature.EMPTY_STRING_AS_NULL)
+                .enable(CsvParser.Feature.TRIM_SPACES)
+                .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+                .build();
+
+        this.jsonReader = objectMapper.readerFor(PatientImportRow.class);
+        this.csvReader = csvMapper.readerFor(PatientImportRow.class).with(csvMapper.schemaWithHeader());
+    }
+
+    /**
+     * Imports the patients in the stream. CSV streams must start with a header row naming the columns, and
+     * NDJSON streams hold one patient per line. Rows are numbered from 1, not counting the CSV header
+     *
+     * @param input       - the stream of patients
+     * @param contentType - the format of the stream, either NDJSON or CSV
+     * @return - the result of every row, in the order of the rows
+     */
+    public Flux<PatientImportResult> importPatients(InputStream input, MediaType contentType) {
+        Flux<ImportRow> rows = TEXT_CSV.isCompatibleWith(contentType) ? readCsvRows(input) : readJsonRows(input);
+
+        return rows
+                .subscribeOn(jdbcScheduler)
+                .flatMapSequential(this::hashPassword, hashConcurrency)
+                .buffer(batchSize)
+                .concatMap(batch -> Mono.fromCallable(() -> saveBatch(batch)).subscribeOn(jdbcScheduler))
+                .flatMapIterable(results -> results);
+    }
+
+    /**
+     * Reads one patient from every non-blank line of an NDJSON stream
+     *
+     * @param input - the NDJSON stream
+     * @return - the rows of the stream
+     */
+    private Flux<ImportRow> readJsonRows(InputStream input) {
+        return Flux.using(() -> new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8)),
+                reader -> Flux.fromStream(reader.lines())
+                        .index((index, line) -> Map.entry(index + 1, line))
+                        .filter(line -> !line.getValue().isBlank())
+                        .map(line -> parseRow(line.getKey(), () -> jsonReader.readValue(line.getValue()))),
+                this::closeQuietly);
+    }
+
+    /**
+     * Reads one patient from every row of a CSV stream. A row that cannot be parsed is skipped, and reading
+     * resumes at the next row
+     *
+     * @param input - the CSV stream
+     * @return - the rows of the stream
+     */
+    private Flux<ImportRow> readCsvRows(InputStream input) {
+        return Flux.using(() -> csvReader.<PatientImportRow>readValues(input),
+                rows -> Flux.generate(() -> 1L, (number, sink) -> {
+                    try {
+                        if (rows.hasNextValue())
+                            sink.next(parseRow(number, rows::nextValue));
+                        else
+                            sink.complete();
+                    } catch (IOException e) {
+                        sink.error(e);
+                    }
+
+                    return number + 1;
+                }),
+                this::closeQuietly);
+    }
+
+    /**
+     * Parses and validates a row
+     *
+     * @param number - the number of the row
+     * @param parser - the parser of the row
+     * @return - the parsed row, or the reason it was rejected
+     */
+    private ImportRow parseRow(long number, Callable<PatientImportRow> parser) {
+        PatientImportRow patient;
+
+        try {
+            patient = parser.call();
+        } catch (Exception e) {
+            return ImportRow.rejected(number, "The row could not be parsed: " + e.getMessage());
+        }
+
+        String error = validate(patient);
+
+        return error == null ? new ImportRow(number, patient, null, null) : ImportRow.rejected(number, error);
+    }
+
+    /**
+     * Checks a patient against the constraints of the patients and address tables
+     *
+     * @param patient - the patient to check
+     * @return - the first constraint the patient breaks, or null if the patient is valid
+     */
+    private String validate(PatientImportRow patient) {
+        return Stream.of(
+                        checkLength("firstName", patient.firstName(), 20, true),
+                        checkLength("lastName", patient.lastName(), 30, true),
+                        checkLength("email", patient.email(), 30, true),
+                        checkLength("password", patient.password(), 72, true),
+                        checkLength("primaryDoctor", patient.primaryDoctor(), 50, false),
+                        checkLength("bloodType", patient.bloodType(), 3, true),
+                        checkLength("streetAddress", patient.streetAddress(), 40, true),
+                        checkLength("city", patient.city(), 20, true),
+                        checkLength("state", patient.state(), 2, true),
+                        patient.phoneNumber() == null ? "phoneNumber is required." : null,
+                        patient.zipcode() == null ? "zipcode is required." : null)
+                .filter(Objects::nonNull)
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Checks that a field is set if it is required and is no longer than its column
+     *
+     * @param field     - the name of the field
+     * @param value     - the value of the field
+     * @param maxLength - the length of the column
+     * @param required  - whether the field must be set
+     * @return - the constraint the field breaks, or null if the field is valid
+     */
+    private String checkLength(String field, String value, int maxLength, boolean required) {
+        if (value == null || value.isBlank())
+            return required ? field + " is required." : null;
+
+        return value.length() > maxLength ? field + " must be at most " + maxLength + " characters." : null;
+    }
+
+    /**
+     * Hashes the password of a valid row on the password hash scheduler
+     *
+     * @param row - the row
+     * @return - the row with the hashed password
+     */
+    private Mono<ImportRow> hashPassword(ImportRow row) {
+        if (row.error() != null)
+            return Mono.just(row);
+
+        return Mono.fromCallable(() -> row.withPasswordHash(passwordEncoder.encode(row.patient().password())))
+                .subscribeOn(passwordHashScheduler);
+    }
+
+    /**
+     * Saves the valid rows of a batch in one transaction. Rows whose email is already taken, either in the
+     * patient database or earlier in the batch, are rejected first. If the batch still fails, every row in it
+     * is reported as failed and nothing from it is saved
+     *
+     * @param batch - the rows of the batch
+     * @return - the result of every row, in the order of the rows
+     */
+    private List<PatientImportResult> saveBatch(List<ImportRow> batch) {
+        Map<Long, PatientImportResult> results = new HashMap<>();
+
+        batch.stream()
+                .filter(row -> row.error() != null)
+                .forEach(row -> results.put(row.number(), PatientImportResult.failed(row.number(), row.error())));
+
+        List<ImportRow> pending = batch.stream()
+                .filter(row -> row.error() == null)
+                .toList();
+
+        if (!pending.isEmpty()) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertRows(pending, results));
+            } catch (DataAccessException e) {
+                pending.forEach(row -> results.put(row.number(), PatientImportResult.failed(row.number(),
+                        "The batch could not be saved: " + e.getMostSpecificCause().getMessage())));
+            }
+        }
+
+        return batch.stream()
+                .map(row -> results.get(row.number()))
+                .toList();
+    }
+
+    /**
+     * Inserts the rows whose email is not taken into the patients and address tables, two JDBC batches in all
+     *
+     * @param pending - the valid rows of the batch
+     * @param results - the results of the batch, by row number
+     */
+    private void insertRows(List<ImportRow> pending, Map<Long, PatientImportResult> results) {
+        Set<String> takenEmails = new HashSet<>(jdbcTemplate.queryForList(
+                FIND_EXISTING_EMAILS.formatted(String.join(", ", Collections.nCopies(pending.size(), "?"))),
+                String.class, pending.stream().map(row -> row.patient().email()).toArray()));
+
+        List<ImportRow> rows = new ArrayList<>();
+
+        for (ImportRow row : pending) {
+            if (takenEmails.add(row.patient().email()))
+                rows.add(row);
+            else
+                results.put(row.number(), PatientImportResult.failed(row.number(), "email is already taken."));
+        }
+
+        if (rows.isEmpty())
+            return;
+
+        List<Long> patientIds = allocatePatientIds(rows.size());
+
+        jdbcTemplate.batchUpdate(INSERT_PATIENT, zip(rows, patientIds, (row, patientId) -> new Object[]{
+                patientId, row.patient().firstName(), row.patient().lastName(), row.patient().email(),
+                row.passwordHash(), row.patient().phoneNumber(), row.patient().primaryDoctor(),
+                row.patient().bloodType()}));
+
+        jdbcTemplate.batchUpdate(INSERT_ADDRESS, zip(rows, patientIds, (row, patientId) -> new Object[]{
+                patientId, row.patient().streetAddress(), row.patient().city(), row.patient().state(),
+                row.patient().zipcode()}));
+
+        for (int i = 0; i < rows.size(); i++)
+            results.put(rows.get(i).number(), PatientImportResult.imported(rows.get(i).number(), patientIds.get(i)));
+    }
+
+    /**
+     * Allocates IDs for new patients the same way Hibernate's pooled-lo optimizer does. Each value drawn from the
+     * patients sequence reserves that value and the next ones up to the allocation size
+     *
+     * @param count - the number of IDs to allocate
+     * @return - the allocated IDs
+     */
+    private List<Long> allocatePatientIds(int count) {
+        int blocks = (count + Patient.ID_ALLOCATION_SIZE - 1) / Patient.ID_ALLOCATION_SIZE;
+
+        return jdbcTemplate.queryForList(NEXT_PATIENT_ID_BLOCKS, Long.class, blocks).stream()
+                .flatMap(first -> LongStream.range(first, first + Patient.ID_ALLOCATION_SIZE).boxed())
+                .limit(count)
+                .toList();
+    }
+
+    /**
+     * Builds the arguments of a batch statement from the rows and their new patient IDs
+     *
+     * @param rows       - the rows to insert
+     * @param patientIds - the IDs of the new patients, in the order of the rows
+     * @param arguments  - the arguments of the statement for one row
+     * @return - the arguments of the batch
+     */
+    private List<Object[]> zip(List<ImportRow> rows, List<Long> patientIds,
+                               BiFunction<ImportRow, Long, Object[]> arguments) {
+        List<Object[]> batchArguments = new ArrayList<>(rows.size());
+
+        for (int i = 0; i < rows.size(); i++)
+            batchArguments.add(arguments.apply(rows.get(i), patientIds.get(i)));
+
+        return batchArguments;
+    }
+
+    private void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private record ImportRow(long number, PatientImportRow patient, String passwordHash, String error) {
+
+        static ImportRow rejected(long number, String error) {
+            return new ImportRow(number, null, null, error);
+        }
+
+        ImportRow withPasswordHash(String passwordHash) {
+            return new ImportRow(number, patient, passwordHash, null);
+        }
+    }
+}
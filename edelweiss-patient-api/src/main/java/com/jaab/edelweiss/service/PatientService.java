@@ -1,33 +1,77 @@
 package com.jaab.edelweiss.service;
 
 import com.jaab.edelweiss.dao.PatientRepository;
+import com.jaab.edelweiss.dao.PatientSpecifications;
 import com.jaab.edelweiss.dto.AddressDTO;
 import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.dto.PatientSearchCriteria;
+import com.jaab.edelweiss.event.PatientChangedEvent;
+import com.jaab.edelweiss.exception.InvalidFieldException;
 import com.jaab.edelweiss.exception.PatientNotFoundException;
 import com.jaab.edelweiss.model.Address;
 import com.jaab.edelweiss.model.Patient;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
 
-import java.lang.reflect.Field;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 public class PatientService {
 
+    private static final PatchApplier<Patient> PATIENT_FIELDS = new PatchApplier<>(Map.of(
+            "lastName", PatchApplier.field(PatchApplier.TEXT, Patient::setLastName),
+            "email", PatchApplier.field(PatchApplier.TEXT, Patient::setEmail),
+            "password", PatchApplier.field(PatchApplier.TEXT, Patient::setPassword),
+            "phoneNumber", PatchApplier.field(PatchApplier.LONG, Patient::setPhoneNumber),
+            "primaryDoctor", PatchApplier.nullableField(PatchApplier.TEXT, Patient::setPrimaryDoctor)));
+
+    private static final PatchApplier<Address> ADDRESS_FIELDS = new PatchApplier<>(Map.of(
+            "streetAddress", PatchApplier.field(PatchApplier.TEXT, Address::setStreetAddress),
+            "city", PatchApplier.field(PatchApplier.TEXT, Address::setCity),
+            "state", PatchApplier.field(PatchApplier.TEXT, Address::setState),
+            "zipcode", PatchApplier.field(PatchApplier.INTEGER, Address::setZipcode)));
+
     private final PatientRepository patientRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    public PatientService(PatientRepository patientRepository, PasswordEncoder passwordEncoder) {
+    private final Scheduler jdbcScheduler;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    private static final int PAGE_SIZE = 100;
+
+    /**
+     * The starting point of the keyset pagination: patient IDs start at 1 and no name sorts before the empty one
+     */
+    private static final PatientDTO BEFORE_FIRST_PATIENT = new PatientDTO(0L, "", "", null, null, null, "", null);
+
+    private static final int MAX_SEARCH_RESULTS = 100;
+
+    public PatientService(PatientRepository patientRepository, PasswordEncoder passwordEncoder,
+                          Scheduler jdbcScheduler, ApplicationEventPublisher eventPublisher) {
         this.patientRepository = patientRepository;
         this.passwordEncoder = passwordEncoder;
+        this.jdbcScheduler = jdbcScheduler;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -38,6 +82,7 @@ public class PatientService {
      */
     public PatientDTO createPatient(Patient patient) {
         patient.setPassword(passwordEncoder.encode(patient.getPassword()));
+        patient.setVersion(null);
 
         Address address = new Address();
         BeanUtils.copyProperties(patient.getAddress(), address);
@@ -57,46 +102,129 @@ public class PatientService {
      * @return - the patient with the specified ID
      * @throws PatientNotFoundException if the patient with the specified ID is not found
      */
-    public PatientDTO getPatientById(Long patientId) throws PatientNotFoundException {
-        Patient patient = getPatientByPatientId(patientId);
+    public Mono<PatientDTO> getPatientById(Long patientId) throws PatientNotFoundException {
+        return Mono.fromCallable(() -> new PatientDTO(getPatientByPatientId(patientId)))
+                .subscribeOn(jdbcScheduler);
+    }
 
-        return new PatientDTO(patient);
+    /**
+     * Retrieves only the version of a patient from the patient database, which is the patient's ETag
+     *
+     * @param patientId - the ID of the patient
+     * @return - the version of the patient, or an empty Mono if the patient is not found
+     */
+    public Mono<Long> getPatientVersion(Long patientId) {
+        return Mono.fromCallable(() -> patientRepository.findVersionById(patientId).orElse(null))
+                .subscribeOn(jdbcScheduler);
     }
 
     /**
-     * Retrieves a list of patients from the patient database based on the patient's first name
+     * Streams the patients from the patient database based on the patient's first name
      *
      * @param firstName - the first name of the patient
-     * @return - the list of the patients matching the criteria
+     * @return - the patients matching the criteria
      * @throws PatientNotFoundException if any patients with the specified first name are not found
      */
-    public List<PatientDTO> getPatientsByFirstName(String firstName) throws PatientNotFoundException {
-        return getPatientData(patientRepository.findByFirstNameOrderByLastName(firstName),
+    public Flux<PatientDTO> getPatientsByFirstName(String firstName) throws PatientNotFoundException {
+        return streamPatientData(after -> patientRepository.findPatientDTOsByFirstNameAfter(firstName,
+                after.lastName(), after.id(), PageRequest.ofSize(PAGE_SIZE)),
                 "No patients with the specified first name found.");
     }
 
     /**
-     * Retrieves a list of patients from the patient database based on the patient's last name
+     * Streams the patients from the patient database based on the patient's last name
      *
      * @param lastName - the last name of the patient
-     * @return - the list of the patients matching the criteria
+     * @return - the patients matching the criteria
      * @throws PatientNotFoundException if any patients with the specified last name are not found
      */
-    public List<PatientDTO> getPatientsByLastName(String lastName) throws PatientNotFoundException {
-        return getPatientData(patientRepository.findByLastNameOrderByFirstName(lastName),
+    public Flux<PatientDTO> getPatientsByLastName(String lastName) throws PatientNotFoundException {
+        return streamPatientData(after -> patientRepository.findPatientDTOsByLastNameAfter(lastName,
+                after.firstName(), after.id(), PageRequest.ofSize(PAGE_SIZE)),
                 "No patients with the specified last name found.");
     }
 
     /**
-     * Retrieves a list of patients from the patient database based on the patient's blood type
+     * Streams the patients from the patient database based on the patient's blood type
      *
      * @param bloodType - the blood type of the patient
-     * @return - the list of the patients matching the criteria
+     * @return - the patients matching the criteria
      * @throws PatientNotFoundException if any patients with the specified blood type are not found
      */
-    public List<PatientDTO> getPatientsByBloodType(String bloodType) throws PatientNotFoundException {
-        return getPatientData(patientRepository.findByBloodType(bloodType),
-                "No patients with the specified blood type found.");
+    public Flux<PatientDTO> getPatientsByBloodType(String bloodType) throws PatientNotFoundException {
+        return streamPatientData(after -> patientRepository.findPatientDTOsByBloodTypeAfter(bloodType,
+                after.id(), PageRequest.ofSize(PAGE_SIZE)), "No patients with the specified blood type found.");
+    }
+
+    /**
+     * Streams the patients from the patient database that match every criterion that is set. The criteria are
+     * combined into a single query
+     *
+     * @param criteria - the search criteria
+     * @return - the patients matching the criteria
+     * @throws PatientNotFoundException if no patients match the criteria
+     */
+    public Flux<PatientDTO> getPatientsByCriteria(PatientSearchCriteria criteria) throws PatientNotFoundException {
+        Specification<Patient> specification = PatientSpecifications.matching(criteria);
+
+        return streamPatientData(after -> patientRepository.findPatientDTOsAfter(specification, after, PAGE_SIZE),
+                "No patients matching the specified criteria found.");
+    }
+
+    /**
+     * Retrieves the patients with the specified IDs from the patient database in a single query. IDs that do
+     * not belong to a patient are skipped, and null and repeated IDs are dropped before the query
+     *
+     * @param patientIds - the IDs of the patients
+     * @return - the patients found
+     */
+    public Flux<PatientDTO> getPatientsByIds(Collection<Long> patientIds) {
+        List<Long> distinctIds = patientIds.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+
+        if (distinctIds.isEmpty())
+            return Flux.empty();
+
+        return Mono.fromCallable(() -> patientRepository.findPatientDTOsByIds(distinctIds))
+                .subscribeOn(jdbcScheduler)
+                .flatMapIterable(patients -> patients);
+    }
+
+    /**
+     * Searches the patient database for patients whose first or last name starts with or resembles the search
+     * term, ignoring case. The best matches are returned first
+     *
+     * @param query - the search term
+     * @param limit - the maximum number of patients to return, capped at 100
+     * @return - the matching patients
+     */
+    public Flux<PatientDTO> searchPatients(String query, int limit) {
+        String term = query.strip().toLowerCase(Locale.ROOT);
+
+        if (term.isEmpty())
+            return Flux.empty();
+
+        String prefix = term.replaceAll("([\\\\%_])", "\\\\$1") + "%";
+        int maxResults = Math.min(Math.max(limit, 1), MAX_SEARCH_RESULTS);
+
+        return Mono.fromCallable(() -> {
+                    List<Long> patientIds = patientRepository.searchPatientIds(term, prefix, maxResults);
+
+                    if (patientIds.isEmpty())
+                        return List.<PatientDTO>of();
+
+                    Map<Long, PatientDTO> patients = patientRepository.findPatientDTOsByIds(patientIds).stream()
+                            .collect(Collectors.toMap(PatientDTO::id, Function.identity()));
+
+                    return patientIds.stream()
+                            .map(patients::get)
+                            .filter(Objects::nonNull)
+                            .toList();
+                })
+                .subscribeOn(jdbcScheduler)
+                .flatMapIterable(patients -> patients);
     }
 
     /**
@@ -106,63 +234,56 @@ public class PatientService {
      * @return - the AddressDTO object with the address information
      * @throws PatientNotFoundException if the patient with the specified ID is not found
      */
-    public AddressDTO getAddress(Long patientId) throws PatientNotFoundException {
-        Patient patient = getPatientByPatientId(patientId);
-
-        return new AddressDTO(patient.getAddress());
+    public Mono<AddressDTO> getAddress(Long patientId) throws PatientNotFoundException {
+        return Mono.fromCallable(() -> new AddressDTO(getPatientByPatientId(patientId).getAddress()))
+                .subscribeOn(jdbcScheduler);
     }
 
     /**
-     * Updates the patient's address and merges it to the address database
+     * Updates the patient's address and merges it to the address database. Only the columns that changed are
+     * written
      *
      * @param fields - the object containing the updated information
      * @return - the updated address
+     * @throws InvalidFieldException if an updated value does not match the type of its field
      */
-    public AddressDTO updateAddress(Map<String, Object> fields) {
+    @Transactional
+    public AddressDTO updateAddress(Map<String, Object> fields) throws InvalidFieldException {
         LoginDTO loginDTO = getUserDetails();
 
-        Patient patient = getPatientByPatientId(loginDTO.id());
+        Patient patient = getPatientForUpdate(loginDTO.id());
 
-        fields.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(Address.class, key);
-
-            if (field != null) {
-                field.setAccessible(true);
-                ReflectionUtils.setField(field, patient.getAddress(), value);
-            }
-        });
+        ADDRESS_FIELDS.apply(patient.getAddress(), fields);
 
         patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(patient.getId()));
 
         return new AddressDTO(patient.getAddress());
     }
 
     /**
-     * Updates the patient's information and merges it to the patient database
+     * Updates the patient's information and merges it to the patient database. Only the columns that changed are
+     * written
      *
      * @param fields - the object containing the updated information
      * @return - the updated patient information
+     * @throws InvalidFieldException if an updated value does not match the type of its field
      */
-    public PatientDTO updatePatientInfo(Map<String, Object> fields) {
+    @Transactional
+    public PatientDTO updatePatientInfo(Map<String, Object> fields) throws InvalidFieldException {
         LoginDTO loginDTO = getUserDetails();
 
-        Patient patient = getPatientByPatientId(loginDTO.id());
-
-        fields.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(Patient.class, key);
+        Patient patient = getPatientForUpdate(loginDTO.id());
 
-            if (field != null) {
-                field.setAccessible(true);
-                ReflectionUtils.setField(field, patient, value);
-            }
-        });
+        PATIENT_FIELDS.apply(patient, fields);
 
         if (fields.get("password") != null)
             patient.setPassword(passwordEncoder.encode(fields.get("password").toString()));
 
-        patientRepository.save(patient);
+        Patient updatedPatient = patientRepository.save(patient);
+        eventPublisher.publishEvent(new PatientChangedEvent(updatedPatient.getId()));
 
-        return new PatientDTO(patient);
+        return new PatientDTO(updatedPatient);
     }
 
     /**
@@ -172,9 +293,10 @@ public class PatientService {
      * @throws PatientNotFoundException if the patient with the specified ID is not found
      */
     public void deletePatient(Long patientId) throws PatientNotFoundException {
-        Patient patient = getPatientByPatientId(patientId);
+        Patient patient = getPatientForUpdate(patientId);
 
         patientRepository.deleteById(patient.getId());
+        eventPublisher.publishEvent(new PatientChangedEvent(patient.getId()));
     }
 
     /**
@@ -190,21 +312,47 @@ public class PatientService {
     }
 
     /**
-     * Retrieves a list of patients from the patient database and saves the data to a PatientDTO list
+     * Retrieves a patient that is about to be updated or deleted from the patient database, bypassing the
+     * second-level cache
      *
-     * @param patientList  - the list of patients from the patient database
-     * @param errorMessage - the error message to display if the returned list is empty
-     * @return - the PatientDTO list containing the patients
-     * @throws PatientNotFoundException if the returned list of patients is empty
+     * @param patientId - the ID of the patient
+     * @return - the patient if available
+     * @throws PatientNotFoundException if the patient with the specified ID is not found
      */
-    private List<PatientDTO> getPatientData(List<Patient> patientList, String errorMessage)
-            throws PatientNotFoundException {
-        if (patientList.isEmpty())
-            throw new PatientNotFoundException(errorMessage);
+    private Patient getPatientForUpdate(Long patientId) throws PatientNotFoundException {
+        return patientRepository.findUncachedById(patientId)
+                .orElseThrow(() -> new PatientNotFoundException("No patient with the specified ID found."));
+    }
 
-        return patientList.stream()
-                .map(PatientDTO::new)
-                .toList();
+    /**
+     * Streams the patients from the patient database one page at a time. The next page is only queried once
+     * the subscriber has requested more patients, so a large result set is never held in memory at once. Each
+     * page is queried for the patients after the last one already read rather than by offset, so reading a page
+     * costs the same however deep into the result set it is
+     *
+     * @param query        - the query for the page of patients after the given one
+     * @param errorMessage - the error message to display if no patients are found
+     * @return - the patients matching the query
+     * @throws PatientNotFoundException if no patients are found
+     */
+    private Flux<PatientDTO> streamPatientData(Function<PatientDTO, Slice<PatientDTO>> query,
+                                               String errorMessage) throws PatientNotFoundException {
+        return Flux.<List<PatientDTO>, PatientDTO>generate(() -> BEFORE_FIRST_PATIENT,
+                        (after, sink) -> {
+                            Slice<PatientDTO> slice = query.apply(after);
+
+                            sink.next(slice.getContent());
+
+                            if (!slice.hasNext()) {
+                                sink.complete();
+                                return after;
+                            }
+
+                            return slice.getContent().get(slice.getNumberOfElements() - 1);
+                        })
+                .subscribeOn(jdbcScheduler)
+                .flatMapIterable(patients -> patients, 1)
+                .switchIfEmpty(Flux.error(() -> new PatientNotFoundException(errorMessage)));
     }
 
     /**
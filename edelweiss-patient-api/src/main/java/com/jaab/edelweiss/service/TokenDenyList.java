@@ -0,0 +1,52 @@
+package com.jaab.edelweiss.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is an in-memory deny-list of revoked access tokens. Entries are only kept until the token
+ * would have expired on its own
+ *
+ * @author Joseph Barr
+ */
+@Service
+public class TokenDenyList {
+
+    private final Map<String, Instant> revokedTokens = new ConcurrentHashMap<>();
+
+    /**
+     * Revokes the token with the specified ID until its expiration
+     *
+     * @param tokenId    - the ID of the token
+     * @param expiration - the expiration of the token
+     */
+    public void revoke(String tokenId, Instant expiration) {
+        purgeExpiredTokens();
+
+        revokedTokens.put(tokenId, expiration);
+    }
+
+    /**
+     * Checks to see if the token with the specified ID has been revoked
+     *
+     * @param tokenId - the ID of the token
+     * @return - true if the token has been revoked and has not yet expired
+     */
+    public boolean isRevoked(String tokenId) {
+        Instant expiration = revokedTokens.get(tokenId);
+
+        return expiration != null && expiration.isAfter(Instant.now());
+    }
+
+    /**
+     * Removes every revoked token that has already expired
+     */
+    private void purgeExpiredTokens() {
+        Instant now = Instant.now();
+
+        revokedTokens.values().removeIf(expiration -> !expiration.isAfter(now));
+    }
+}
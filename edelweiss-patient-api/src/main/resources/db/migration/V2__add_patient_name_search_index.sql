@@ -0,0 +1,6 @@
+create extension if not exists pg_trgm;
+
+-- Serves the patient search: prefix matches on either name and fuzzy matches on the full name. The expression
+-- must stay identical to the one in PatientRepository.searchPatientIds for the planner to use the index
+create index if not exists idx_patients_full_name_trgm
+    on patients using gin (lower(first_name || ' ' || last_name) gin_trgm_ops);
@@ -0,0 +1,3 @@
+-- The version of each patient row, bumped by Hibernate on every update. It doubles as the patient's ETag, so a
+-- conditional read can be answered from this column without loading the patient
+alter table patients add column version bigint not null default 0;
@@ -0,0 +1,7 @@
+-- Serve the keyset pagination of the patient lookups: each page seeks to the last patient already read, in the
+-- order of the columns after the equality column, instead of skipping the rows of the pages before it
+create index if not exists idx_patients_first_name_keyset on patients (first_name, last_name, patient_id);
+
+create index if not exists idx_patients_last_name_keyset on patients (last_name, first_name, patient_id);
+
+create index if not exists idx_patients_blood_type_keyset on patients (blood_type, patient_id);
@@ -2,19 +2,36 @@ package com.jaab.edelweiss.controller;
 
 import com.jaab.edelweiss.dto.AddressDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.dto.PatientSearchCriteria;
 import com.jaab.edelweiss.exception.PatientNotFoundException;
+import com.jaab.edelweiss.service.PatientChangeFeed;
+import com.jaab.edelweiss.service.PatientImportService;
 import com.jaab.edelweiss.service.PatientService;
 import org.hamcrest.Matchers;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.LongStream;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.csrf;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockUser;
 
 @WebFluxTest(controllers = DoctorPatientController.class)
 public class DoctorPatientControllerTest {
@@ -25,11 +42,17 @@ public class DoctorPatientControllerTest {
     @MockBean
     private PatientService patientService;
 
+    @MockBean
+    private PatientChangeFeed patientChangeFeed;
+
+    @MockBean
+    private PatientImportService patientImportService;
+
     @Test
     public void getPatientByIdTest() {
         PatientDTO patientDTO = new PatientDTO(james);
 
-        when(patientService.getPatientById(anyLong())).thenReturn(patientDTO);
+        when(patientService.getPatientById(anyLong())).thenReturn(Mono.just(patientDTO));
 
         webTestClient.get()
                 .uri("/physician/getPatientById/" + patientDTO.id())
@@ -40,7 +63,8 @@ public class DoctorPatientControllerTest {
 
     @Test
     public void getPatientByIdExceptionTest() {
-        when(patientService.getPatientById(anyLong())).thenThrow(PatientNotFoundException.class);
+        when(patientService.getPatientById(anyLong()))
+                .thenReturn(Mono.error(new PatientNotFoundException("No patient with the specified ID found.")));
 
         webTestClient.get()
                 .uri("/physician/getPatientById/" + 1L)
@@ -48,10 +72,77 @@ public class DoctorPatientControllerTest {
                 .expectStatus().is4xxClientError();
     }
 
+    @Test
+    public void getPatientByIdETagTest() {
+        PatientDTO patientDTO = new PatientDTO(1L, "James", "Hawke", "championofkirkwall@gmail.com",
+                7130042356L, "Varric Tethras", "O+", 3L);
+
+        when(patientService.getPatientVersion(anyLong())).thenReturn(Mono.just(3L));
+        when(patientService.getPatientById(anyLong())).thenReturn(Mono.just(patientDTO));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .get()
+                .uri("/physician/getPatientById/" + patientDTO.id())
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody().jsonPath("$.version", Matchers.is(3));
+    }
+
+    @Test
+    public void getPatientByIdNotModifiedTest() {
+        when(patientService.getPatientVersion(anyLong())).thenReturn(Mono.just(3L));
+        when(patientService.getPatientById(anyLong())).thenReturn(Mono.error(new IllegalStateException()));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .get()
+                .uri("/physician/getPatientById/" + 1L)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2\", W/\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectBody().isEmpty();
+    }
+
+    @Test
+    public void getPatientsByIdsTest() {
+        when(patientService.getPatientsByIds(anyCollection()))
+                .thenReturn(Flux.fromIterable(getPatientDTOsByLastName()));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .post()
+                .uri("/physician/getPatientsByIds")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(List.of(1L, 2L, 3L))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PatientDTO.class).hasSize(3);
+    }
+
+    @Test
+    public void getPatientsByIdsLimitTest() {
+        List<Long> patientIds = LongStream.rangeClosed(1, DoctorPatientController.MAX_PATIENT_IDS + 1)
+                .boxed()
+                .toList();
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .mutateWith(csrf())
+                .post()
+                .uri("/physician/getPatientsByIds")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(patientIds)
+                .exchange()
+                .expectStatus().isBadRequest();
+
+        verify(patientService, never()).getPatientsByIds(anyCollection());
+    }
+
     @Test
     public void getPatientsByFirstNameTest() {
         when(patientService.getPatientsByFirstName(anyString()))
-                .thenReturn(getPatientDTOsByFirstName());
+                .thenReturn(Flux.fromIterable(getPatientDTOsByFirstName()));
 
         webTestClient.get()
                 .uri("/physician/getPatientsByFirstName/" + firstNameTestParameter)
@@ -62,7 +153,8 @@ public class DoctorPatientControllerTest {
 
     @Test
     public void getPatientsByFirstNameExceptionTest() {
-        when(patientService.getPatientsByFirstName(anyString())).thenThrow(PatientNotFoundException.class);
+        when(patientService.getPatientsByFirstName(anyString()))
+                .thenReturn(Flux.error(new PatientNotFoundException("No patients found.")));
 
         webTestClient.get()
                 .uri("/physician/getPatientsByFirstName/Fenris")
@@ -73,7 +165,7 @@ public class DoctorPatientControllerTest {
     @Test
     public void getPatientsByLastNameTest() {
         when(patientService.getPatientsByLastName(anyString()))
-                .thenReturn(getPatientDTOsByLastName());
+                .thenReturn(Flux.fromIterable(getPatientDTOsByLastName()));
 
         webTestClient.get()
                 .uri("/physician/getPatientsByLastName/" + lastNameTestParameter)
@@ -84,7 +176,8 @@ public class DoctorPatientControllerTest {
 
     @Test
     public void getPatientsByLastNameExceptionTest() {
-        when(patientService.getPatientsByLastName(anyString())).thenThrow(PatientNotFoundException.class);
+        when(patientService.getPatientsByLastName(anyString()))
+                .thenReturn(Flux.error(new PatientNotFoundException("No patients found.")));
 
         webTestClient.get()
                 .uri("/physician/getPatientsByLastName/Vallen")
@@ -92,10 +185,36 @@ public class DoctorPatientControllerTest {
                 .expectStatus().is4xxClientError();
     }
 
+    @Test
+    public void getPatientsByCriteriaTest() {
+        when(patientService.getPatientsByCriteria(any(PatientSearchCriteria.class)))
+                .thenReturn(Flux.fromIterable(getPatientDTOsByBloodType()));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .get()
+                .uri("/physician/getPatientsByCriteria?lastName=Hawke&bloodType=O-&state=TX")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PatientDTO.class).hasSize(2);
+    }
+
+    @Test
+    public void searchPatientsTest() {
+        when(patientService.searchPatients(anyString(), anyInt()))
+                .thenReturn(Flux.fromIterable(getPatientDTOsByLastName()));
+
+        webTestClient.mutateWith(mockUser().roles("PHYSICIAN"))
+                .get()
+                .uri("/physician/searchPatients?q=haw&limit=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PatientDTO.class).hasSize(3);
+    }
+
     @Test
     public void getPatientsByBloodTypeTest() {
         when(patientService.getPatientsByBloodType(anyString()))
-                .thenReturn(getPatientDTOsByBloodType());
+                .thenReturn(Flux.fromIterable(getPatientDTOsByBloodType()));
 
         webTestClient.get()
                 .uri("/physician/getPatientsByBloodType/" + bloodTypeTestParameter)
@@ -106,7 +225,8 @@ public class DoctorPatientControllerTest {
 
     @Test
     public void getPatientsByBloodTypeExceptionTest() {
-        when(patientService.getPatientsByBloodType(anyString())).thenThrow(PatientNotFoundException.class);
+        when(patientService.getPatientsByBloodType(anyString()))
+                .thenReturn(Flux.error(new PatientNotFoundException("No patients found.")));
 
         webTestClient.get()
                 .uri("/physician/getPatientsByBloodType/B+")
@@ -118,7 +238,7 @@ public class DoctorPatientControllerTest {
     public void getAddressTest() {
         AddressDTO addressDTO = new AddressDTO(carverAddress);
 
-        when(patientService.getAddress(anyLong())).thenReturn(addressDTO);
+        when(patientService.getAddress(anyLong())).thenReturn(Mono.just(addressDTO));
 
         webTestClient.get()
                 .uri("/physician/getPatientAddress/" + carver.getId())
@@ -129,7 +249,8 @@ public class DoctorPatientControllerTest {
 
     @Test
     public void getAddressExceptionTest() {
-        when(patientService.getAddress(anyLong())).thenThrow(PatientNotFoundException.class);
+        when(patientService.getAddress(anyLong()))
+                .thenReturn(Mono.error(new PatientNotFoundException("No patient with the specified ID found.")));
 
         webTestClient.get()
                 .uri("/physician/getPatientAddress/" + carver.getId())
@@ -4,19 +4,31 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.jaab.edelweiss.dto.AddressDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
 import com.jaab.edelweiss.model.Patient;
+import com.jaab.edelweiss.service.JwtService;
+import com.jaab.edelweiss.service.LoginService;
 import com.jaab.edelweiss.service.PatientService;
+import io.jsonwebtoken.ExpiredJwtException;
+import jakarta.servlet.http.Cookie;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
+import static org.hamcrest.Matchers.containsString;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -32,6 +44,15 @@ public class PatientControllerTest {
     @MockBean
     private PatientService patientService;
 
+    @MockBean
+    private JwtService jwtService;
+
+    @MockBean
+    private LoginService loginService;
+
+    @MockBean
+    private AuthenticationManager authenticationManager;
+
     @Test
     public void createPatientTest() throws Exception {
         PatientDTO patientDTO = new PatientDTO(james);
@@ -63,7 +84,8 @@ public class PatientControllerTest {
     @Test
     public void updatePatientInfoTest() throws Exception {
         PatientDTO updatedInfo = new PatientDTO(bethany.getId(), bethany.getFirstName(), "Amell",
-                bethany.getEmail(), bethany.getPhoneNumber(), bethany.getPrimaryDoctor(), bethany.getBloodType());
+                bethany.getEmail(), bethany.getPhoneNumber(), bethany.getPrimaryDoctor(), bethany.getBloodType(),
+                bethany.getVersion());
 
         when(patientService.updatePatientInfo(anyMap())).thenReturn(updatedInfo);
 
@@ -74,4 +96,28 @@ public class PatientControllerTest {
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$.lastName").value("Amell"));
     }
+
+    @Test
+    @WithMockUser(roles = "PATIENT")
+    public void logoutTest() throws Exception {
+        this.mockMvc.perform(post("/patient/logout")
+                        .with(csrf())
+                        .cookie(new Cookie("accessToken", "token")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.SET_COOKIE, containsString("Max-Age=0")));
+
+        verify(jwtService).revokeToken("token");
+    }
+
+    @Test
+    @WithMockUser(roles = "PATIENT")
+    public void logoutWithExpiredTokenTest() throws Exception {
+        doThrow(new ExpiredJwtException(null, null, "JWT expired")).when(jwtService).revokeToken(anyString());
+
+        this.mockMvc.perform(post("/patient/logout")
+                        .with(csrf())
+                        .cookie(new Cookie("accessToken", "expired")))
+                .andExpect(status().isNoContent())
+                .andExpect(header().string(HttpHeaders.SET_COOKIE, containsString("Max-Age=0")));
+    }
 }
@@ -0,0 +1,71 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.model.Address;
+import com.jaab.edelweiss.model.Patient;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("l2-cache")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PatientCacheTest {
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Patient isabela;
+
+    @BeforeEach
+    void init() {
+        isabela = new Patient(null, "Isabela", "Raine", "captainisabela@gmail.com", "siren",
+                null, 7130042358L, "Varric Tethras", "B+", null);
+        isabela.setAddress(new Address(null, isabela, "The Siren's Call", "Kirkwall", "TX", 78615));
+
+        isabela = patientRepository.save(isabela);
+
+        patientRepository.findById(isabela.getId());
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanup() {
+        patientRepository.deleteById(isabela.getId());
+    }
+
+    @Test
+    public void findByIdUsesSecondLevelCacheTest() {
+        Patient patient = patientRepository.findById(isabela.getId()).orElseThrow();
+
+        assertEquals("The Siren's Call", patient.getAddress().getStreetAddress());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void findUncachedByIdBypassesSecondLevelCacheTest() {
+        Patient patient = patientRepository.findUncachedById(isabela.getId()).orElseThrow();
+
+        assertEquals("The Siren's Call", patient.getAddress().getStreetAddress());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+}
@@ -1,5 +1,8 @@
 package com.jaab.edelweiss.dao;
 
+import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.dto.PatientSearchCriteria;
+import com.jaab.edelweiss.model.Address;
 import com.jaab.edelweiss.model.Patient;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -7,11 +10,16 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.Optional;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -23,6 +31,10 @@ public class PatientRepositoryTest {
     @Autowired
     private TestEntityManager entityManager;
 
+    private static final Pageable PAGE = PageRequest.of(0, 10);
+
+    private static final PatientDTO FIRST = new PatientDTO(0L, "", "", null, null, null, "", null);
+
     @BeforeEach
     void init() {
         james.setId(null);
@@ -37,45 +49,155 @@ public class PatientRepositoryTest {
         entityManager.persist(carverAddress);
     }
 
+    @Test
+    public void getPatientsByIdsTest() {
+        List<PatientDTO> patients = patientRepository
+                .findPatientDTOsByIds(List.of(james.getId(), bethany.getId(), -1L));
+
+        assertEquals(2, patients.size());
+    }
+
+    @Test
+    public void getPatientVersionTest() {
+        Patient isabela = new Patient(null, "Isabela", "Raine", "captainisabela@gmail.com", "siren",
+                null, 7130042358L, "Varric Tethras", "B+", null);
+        isabela.setAddress(new Address(null, isabela, "The Siren's Call", "Kirkwall", "TX", 78615));
+
+        entityManager.persist(isabela);
+        entityManager.persist(isabela.getAddress());
+        entityManager.flush();
+
+        assertEquals(Optional.of(0L), patientRepository.findVersionById(isabela.getId()));
+
+        isabela.setPrimaryDoctor(null);
+        entityManager.flush();
+
+        assertEquals(Optional.of(1L), patientRepository.findVersionById(isabela.getId()));
+        assertEquals(Optional.empty(), patientRepository.findVersionById(-1L));
+    }
+
     @Test
     public void getPatientsByFirstNameTest() {
-        List<Patient> patients = patientRepository.findByFirstNameOrderByLastName(firstNameTestParameter);
+        Slice<PatientDTO> patients = patientRepository
+                .findPatientDTOsByFirstNameAfter(firstNameTestParameter, "", 0L, PAGE);
 
-        assertEquals(1, patients.size());
+        assertEquals(1, patients.getNumberOfElements());
     }
 
     @Test
     public void getPatientsByFirstNameEmptyListTest() {
-        List<Patient> patients = patientRepository.findByFirstNameOrderByLastName("Malcolm");
+        Slice<PatientDTO> patients = patientRepository
+                .findPatientDTOsByFirstNameAfter("Malcolm", "", 0L, PAGE);
 
-        assertEquals(0, patients.size());
+        assertEquals(0, patients.getNumberOfElements());
     }
 
     @Test
     public void getPatientsByLastNameTest() {
-        List<Patient> patients = patientRepository.findByLastNameOrderByFirstName(lastNameTestParameter);
+        Slice<PatientDTO> patients = patientRepository
+                .findPatientDTOsByLastNameAfter(lastNameTestParameter, "", 0L, PAGE);
 
-        assertEquals(3, patients.size());
+        assertEquals(3, patients.getNumberOfElements());
     }
 
     @Test
     public void getPatientsByLastNameEmptyListTest() {
-        List<Patient> patients = patientRepository.findByLastNameOrderByFirstName("Vallen");
+        Slice<PatientDTO> patients = patientRepository
+                .findPatientDTOsByLastNameAfter("Vallen", "", 0L, PAGE);
 
-        assertEquals(0, patients.size());
+        assertEquals(0, patients.getNumberOfElements());
     }
 
     @Test
     public void getPatientsByBloodTypeTest() {
-        List<Patient> patients = patientRepository.findByBloodType(bloodTypeTestParameter);
+        Slice<PatientDTO> patients = patientRepository
+                .findPatientDTOsByBloodTypeAfter(bloodTypeTestParameter, 0L, PAGE);
 
-        assertEquals(2, patients.size());
+        assertEquals(2, patients.getNumberOfElements());
     }
 
     @Test
     public void getPatientsByBloodTypeEmptyListTest() {
-        List<Patient> patients = patientRepository.findByBloodType("B+");
+        Slice<PatientDTO> patients = patientRepository
+                .findPatientDTOsByBloodTypeAfter("B+", 0L, PAGE);
+
+        assertEquals(0, patients.getNumberOfElements());
+    }
+
+    @Test
+    public void getPatientsByCriteriaTest() {
+        PatientSearchCriteria criteria = new PatientSearchCriteria(null, lastNameTestParameter,
+                bloodTypeTestParameter, "Varric Tethras", "San Antonio", "TX", 78615);
+
+        Slice<PatientDTO> patients = patientRepository.findPatientDTOsAfter(PatientSpecifications.matching(criteria),
+                FIRST, 1);
+
+        assertEquals(List.of(bethany.getId()), patients.map(PatientDTO::id).getContent());
+        assertTrue(patients.hasNext());
+    }
+
+    @Test
+    public void getPatientsByLastNameAfterPatientTest() {
+        Slice<PatientDTO> firstPage = patientRepository
+                .findPatientDTOsByLastNameAfter(lastNameTestParameter, "", 0L, PageRequest.ofSize(2));
+        PatientDTO last = firstPage.getContent().get(1);
+
+        Slice<PatientDTO> secondPage = patientRepository
+                .findPatientDTOsByLastNameAfter(lastNameTestParameter, last.firstName(), last.id(), PAGE);
+
+        assertEquals(List.of(bethany.getId(), carver.getId()), firstPage.map(PatientDTO::id).getContent());
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(james.getId()), secondPage.map(PatientDTO::id).getContent());
+    }
+
+    @Test
+    public void getPatientsByCriteriaAfterPatientTest() {
+        PatientSearchCriteria criteria = new PatientSearchCriteria(null, lastNameTestParameter, null, null, null,
+                null, null);
+        PatientDTO bethanyDTO = new PatientDTO(bethany);
+
+        Slice<PatientDTO> patients = patientRepository.findPatientDTOsAfter(PatientSpecifications.matching(criteria),
+                bethanyDTO, 10);
+
+        assertEquals(List.of(carver.getId(), james.getId()), patients.map(PatientDTO::id).getContent());
+    }
+
+    @Test
+    public void getPatientsByCriteriaEmptyListTest() {
+        PatientSearchCriteria criteria = new PatientSearchCriteria(firstNameTestParameter, null, null, null,
+                "Kirkwall", null, null);
+
+        Slice<PatientDTO> patients = patientRepository.findPatientDTOsAfter(PatientSpecifications.matching(criteria),
+                FIRST, 10);
+
+        assertEquals(0, patients.getNumberOfElements());
+    }
+
+    @Test
+    public void searchPatientIdsByPrefixTest() {
+        List<Long> patientIds = patientRepository.searchPatientIds("beth", "beth%", 10);
+
+        assertEquals(List.of(bethany.getId()), patientIds);
+    }
+
+    @Test
+    public void searchPatientIdsByLastNamePrefixTest() {
+        List<Long> patientIds = patientRepository.searchPatientIds("hawk", "hawk%", 2);
+
+        assertEquals(List.of(bethany.getId(), carver.getId()), patientIds);
+    }
+
+    @Test
+    public void searchPatientIdsBySimilarityTest() {
+        List<Long> patientIds = patientRepository.searchPatientIds("carvr", "carvr%", 10);
+
+        assertEquals(List.of(carver.getId()), patientIds);
+    }
+
+    @Test
+    public void searchPatientIdsEmptyListTest() {
+        List<Long> patientIds = patientRepository.searchPatientIds("fenris", "fenris%", 10);
 
-        assertEquals(0, patients.size());
+        assertEquals(0, patientIds.size());
     }
 }
@@ -0,0 +1,62 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.exception.InvalidFieldException;
+import com.jaab.edelweiss.model.Patient;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PatchApplierTest {
+
+    private final PatchApplier<Patient> patchApplier = new PatchApplier<>(Map.of(
+            "lastName", PatchApplier.field(PatchApplier.TEXT, Patient::setLastName),
+            "phoneNumber", PatchApplier.field(PatchApplier.LONG, Patient::setPhoneNumber),
+            "primaryDoctor", PatchApplier.nullableField(PatchApplier.TEXT, Patient::setPrimaryDoctor)));
+
+    @Test
+    public void applyConvertedFieldsTest() {
+        Patient patient = createPatient();
+
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("lastName", "Amell");
+        fields.put("phoneNumber", 555010);
+        fields.put("primaryDoctor", null);
+        fields.put("firstName", "Beth");
+        fields.put("id", 40);
+
+        patchApplier.apply(patient, fields);
+
+        assertEquals("Amell", patient.getLastName());
+        assertEquals(555010L, patient.getPhoneNumber());
+        assertNull(patient.getPrimaryDoctor());
+        assertEquals("Bethany", patient.getFirstName());
+        assertEquals(2L, patient.getId());
+    }
+
+    @Test
+    public void applyInvalidFieldsTest() {
+        Patient patient = createPatient();
+
+        Map<String, Object> nullLastName = new HashMap<>();
+        nullLastName.put("lastName", null);
+
+        InvalidFieldException wrongType = assertThrows(InvalidFieldException.class, () ->
+                patchApplier.apply(patient, Map.of("phoneNumber", "7130042357")));
+        InvalidFieldException nullValue = assertThrows(InvalidFieldException.class, () ->
+                patchApplier.apply(patient, nullLastName));
+
+        assertEquals("phoneNumber must be a whole number.", wrongType.getMessage());
+        assertEquals("lastName cannot be null.", nullValue.getMessage());
+        assertEquals("Hawke", patient.getLastName());
+    }
+
+    private Patient createPatient() {
+        return new Patient(2L, "Bethany", "Hawke", "circlemage@gmail.com", "daughterofamell", null,
+                7130042357L, "Varric Tethras", "O-", null);
+    }
+}
@@ -0,0 +1,92 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.event.PatientChangedEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+
+import static com.jaab.edelweiss.service.PatientChangeFeed.CHANGED_EVENT;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+public class PatientChangeFeedTest {
+
+    @Autowired
+    private PatientChangeFeed patientChangeFeed;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private DataSourceProperties dataSourceProperties;
+
+    private PatientChangeFeed otherInstance;
+
+    @BeforeEach
+    void init() throws InterruptedException {
+        otherInstance = new PatientChangeFeed(jdbcTemplate, dataSourceProperties, Duration.ofHours(1),
+                Duration.ofMillis(100));
+        otherInstance.start();
+
+        awaitListening(patientChangeFeed);
+        awaitListening(otherInstance);
+    }
+
+    @AfterEach
+    void cleanup() throws InterruptedException {
+        otherInstance.shutdown();
+    }
+
+    @Test
+    public void streamPatientChangesTest() {
+        StepVerifier.create(patientChangeFeed.streamPatientChanges()
+                        .filter(event -> event.comment() == null))
+                .then(() -> patientChangeFeed.onPatientChanged(new PatientChangedEvent(1L)))
+                .expectNextMatches(event -> CHANGED_EVENT.equals(event.event()) && event.data() == 1L)
+                .then(() -> patientChangeFeed.onPatientChanged(new PatientChangedEvent(2L)))
+                .expectNextMatches(event -> CHANGED_EVENT.equals(event.event()) && event.data() == 2L)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void streamChangesFromOtherInstanceTest() {
+        StepVerifier.create(otherInstance.streamPatientChanges())
+                .then(() -> patientChangeFeed.onPatientChanged(new PatientChangedEvent(3L)))
+                .expectNextMatches(event -> CHANGED_EVENT.equals(event.event()) && event.data() == 3L)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+
+        StepVerifier.create(patientChangeFeed.streamPatientChanges()
+                        .filter(event -> event.comment() == null))
+                .then(() -> otherInstance.onPatientChanged(new PatientChangedEvent(4L)))
+                .expectNextMatches(event -> CHANGED_EVENT.equals(event.event()) && event.data() == 4L)
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void sendsHeartbeatsTest() {
+        PatientChangeFeed feed = new PatientChangeFeed(jdbcTemplate, dataSourceProperties, Duration.ofMillis(50),
+                Duration.ofMillis(100));
+
+        StepVerifier.create(feed.streamPatientChanges())
+                .expectNextMatches(event -> "heartbeat".equals(event.comment()))
+                .thenCancel()
+                .verify(Duration.ofSeconds(5));
+    }
+
+    private void awaitListening(PatientChangeFeed feed) throws InterruptedException {
+        for (int i = 0; i < 100 && !feed.isListening(); i++)
+            Thread.sleep(50);
+
+        assertTrue(feed.isListening());
+    }
+}
@@ -0,0 +1,114 @@
+package com.jaab.edelweiss.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaab.edelweiss.dao.PatientRepository;
+import com.jaab.edelweiss.dto.PatientImportResult;
+import com.jaab.edelweiss.model.Patient;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static com.jaab.edelweiss.utils.TestUtils.james;
+import static com.jaab.edelweiss.utils.TestUtils.jamesAddress;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class PatientImportServiceTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PatientRepository patientRepository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    private final PasswordEncoder passwordEncoder = new BCryptPasswordEncoder(4);
+
+    private PatientImportService patientImportService;
+
+    @BeforeEach
+    public void init() {
+        patientImportService = new PatientImportService(jdbcTemplate, new TransactionTemplate(transactionManager),
+                passwordEncoder, Schedulers.immediate(), Schedulers.immediate(), new ObjectMapper(), 2, 4);
+    }
+
+    @Test
+    public void importNdjsonPatientsTest() {
+        String patients = """
+                {"firstName":"Merrill","lastName":"Hawke","email":"merrill@edelweiss.test","password":"pass1","phoneNumber":7130042358,"primaryDoctor":"Varric Tethras","bloodType":"A+","streetAddress":"1 Sundermount Way","city":"San Antonio","state":"TX","zipcode":78615}
+                {"firstName":"Sebastian","lastName":"Vael","password":"pass2","phoneNumber":7130042359,"bloodType":"B+","streetAddress":"2 Chantry Row","city":"San Antonio","state":"TX","zipcode":78615}
+
+                {"firstName":"Isabela","lastName":"Hawke","email":"isabela@edelweiss.test","password":"pass3","phoneNumber":7130042360,"bloodType":"AB-","streetAddress":"3 Docks Lane","city":"San Antonio","state":"TX","zipcode":78615}
+                {"firstName":"Fenris",
+                """;
+
+        List<PatientImportResult> results = importPatients(patients, MediaType.APPLICATION_NDJSON);
+
+        assertEquals(List.of(1L, 2L, 4L, 5L), results.stream().map(PatientImportResult::row).toList());
+        assertNotNull(results.get(0).patientId());
+        assertEquals("email is required.", results.get(1).error());
+        assertNotNull(results.get(2).patientId());
+        assertTrue(results.get(3).error().startsWith("The row could not be parsed"));
+
+        Patient merrill = patientRepository.findById(results.get(0).patientId()).orElseThrow();
+
+        assertEquals("1 Sundermount Way", merrill.getAddress().getStreetAddress());
+        assertTrue(passwordEncoder.matches("pass1", merrill.getPassword()));
+    }
+
+    @Test
+    public void importCsvPatientsTest() {
+        james.setId(null);
+        entityManager.persist(james);
+        entityManager.persist(jamesAddress);
+        entityManager.flush();
+
+        String patients = """
+                firstName,lastName,email,password,phoneNumber,primaryDoctor,bloodType,streetAddress,city,state,zipcode
+                Aveline,Vallen,aveline@edelweiss.test,pass1,7130042361,,O+,"4 Barracks Rd, Hightown",San Antonio,TX,78615
+                Donnic,Hendyr,aveline@edelweiss.test,pass2,7130042362,,O+,4 Barracks Rd,San Antonio,TX,78615
+                James,Hawke,championofkirkwall@gmail.com,pass3,7130042356,,O+,58 Hightown Court,San Antonio,TX,78615
+                Anders,Mage,anders@edelweiss.test,pass4,not-a-number,,O-,5 Darktown Alley,San Antonio,TX,78615
+                """;
+
+        List<PatientImportResult> results = importPatients(patients, PatientImportService.TEXT_CSV);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L), results.stream().map(PatientImportResult::row).toList());
+        assertNotNull(results.get(0).patientId());
+        assertEquals("email is already taken.", results.get(1).error());
+        assertEquals("email is already taken.", results.get(2).error());
+        assertTrue(results.get(3).error().startsWith("The row could not be parsed"));
+
+        Patient aveline = patientRepository.findById(results.get(0).patientId()).orElseThrow();
+
+        assertEquals("4 Barracks Rd, Hightown", aveline.getAddress().getStreetAddress());
+        assertNull(aveline.getPrimaryDoctor());
+    }
+
+    private List<PatientImportResult> importPatients(String patients, MediaType contentType) {
+        return patientImportService
+                .importPatients(new ByteArrayInputStream(patients.getBytes(StandardCharsets.UTF_8)), contentType)
+                .collectList()
+                .block();
+    }
+}
@@ -1,24 +1,45 @@
 package com.jaab.edelweiss.service;
 
 import com.jaab.edelweiss.dao.PatientRepository;
-import com.jaab.edelweiss.dto.AddressDTO;
+import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.dto.PatientDTO;
+import com.jaab.edelweiss.dto.PatientSearchCriteria;
+import com.jaab.edelweiss.event.PatientChangedEvent;
+import com.jaab.edelweiss.exception.InvalidFieldException;
 import com.jaab.edelweiss.exception.PatientNotFoundException;
 import com.jaab.edelweiss.model.Patient;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
@@ -32,6 +53,20 @@ public class PatientServiceTest {
     @Mock
     private PatientRepository patientRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Spy
+    private Scheduler jdbcScheduler = Schedulers.immediate();
+
+    @AfterEach
+    void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
     @Test
     public void createPatientTest() {
         james.setAddress(jamesAddress);
@@ -40,66 +75,197 @@ public class PatientServiceTest {
 
         assertEquals("Varric Tethras", patientDTO.primaryDoctor());
         assertEquals("O+", patientDTO.bloodType());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     public void getPatientByIdTest() {
         when(patientRepository.findById(anyLong())).thenReturn(Optional.of(james));
 
-        PatientDTO patientDTO = patientService.getPatientById(james.getId());
-
-        assertEquals("James", patientDTO.firstName());
-        assertEquals("championofkirkwall@gmail.com", patientDTO.email());
+        StepVerifier.create(patientService.getPatientById(james.getId()))
+                .expectNextMatches(p -> Objects.equals(p.firstName(), "James") &&
+                        Objects.equals(p.email(), "championofkirkwall@gmail.com"))
+                .verifyComplete();
     }
 
     @Test
     public void getPatientByIdExceptionTest() {
-        assertThrows(PatientNotFoundException.class, () -> patientService.getPatientById(james.getId()));
+        StepVerifier.create(patientService.getPatientById(james.getId()))
+                .expectError(PatientNotFoundException.class)
+                .verify();
     }
 
     @Test
-    public void getPatientsByFirstNameTest() {
-        when(patientRepository.findByFirstNameOrderByLastName(anyString())).thenReturn(getPatientsByFirstName());
+    public void getPatientsByIdsTest() {
+        when(patientRepository.findPatientDTOsByIds(anyCollection())).thenReturn(getPatientDTOsByLastName());
+
+        StepVerifier.create(patientService.getPatientsByIds(List.of(1L, 2L, 3L, 4L)))
+                .expectNextCount(3)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getPatientsByIdsDropsNullAndRepeatedIdsTest() {
+        when(patientRepository.findPatientDTOsByIds(anyCollection())).thenReturn(getPatientDTOsByLastName());
+
+        StepVerifier.create(patientService.getPatientsByIds(Arrays.asList(1L, null, 2L, 1L, 3L)))
+                .expectNextCount(3)
+                .verifyComplete();
 
-        List<PatientDTO> patients = patientService.getPatientsByFirstName(firstNameTestParameter);
+        verify(patientRepository).findPatientDTOsByIds(List.of(1L, 2L, 3L));
+    }
+
+    @Test
+    public void getPatientsByIdsWithoutIdsTest() {
+        StepVerifier.create(patientService.getPatientsByIds(Collections.singletonList(null)))
+                .verifyComplete();
+
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    public void getPatientsByFirstNameTest() {
+        when(patientRepository.findPatientDTOsByFirstNameAfter(anyString(), anyString(), anyLong(),
+                any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(getPatientDTOsByFirstName()));
 
-        assertEquals(1, patients.size());
+        StepVerifier.create(patientService.getPatientsByFirstName(firstNameTestParameter))
+                .expectNextCount(1)
+                .verifyComplete();
     }
 
     @Test
     public void getPatientsByFirstNameExceptionTest() {
-        assertThrows(PatientNotFoundException.class,
-                () -> patientService.getPatientsByFirstName(firstNameTestParameter));
+        when(patientRepository.findPatientDTOsByFirstNameAfter(anyString(), anyString(), anyLong(),
+                any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        StepVerifier.create(patientService.getPatientsByFirstName(firstNameTestParameter))
+                .expectError(PatientNotFoundException.class)
+                .verify();
     }
 
     @Test
     public void getPatientsByLastNameTest() {
-        when(patientRepository.findByLastNameOrderByFirstName(anyString())).thenReturn(getPatientsByLastName());
-
-        List<PatientDTO> patients = patientService.getPatientsByLastName(lastNameTestParameter);
+        when(patientRepository.findPatientDTOsByLastNameAfter(anyString(), anyString(), anyLong(),
+                any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(getPatientDTOsByLastName()));
 
-        assertEquals(3, patients.size());
+        StepVerifier.create(patientService.getPatientsByLastName(lastNameTestParameter))
+                .expectNextCount(3)
+                .verifyComplete();
     }
 
     @Test
     public void getPatientsByLastNameExceptionTest() {
-        assertThrows(PatientNotFoundException.class,
-                () -> patientService.getPatientsByLastName(lastNameTestParameter));
+        when(patientRepository.findPatientDTOsByLastNameAfter(anyString(), anyString(), anyLong(),
+                any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        StepVerifier.create(patientService.getPatientsByLastName(lastNameTestParameter))
+                .expectError(PatientNotFoundException.class)
+                .verify();
     }
 
     @Test
-    public void getPatientsByBloodTypeTest() {
-        when(patientRepository.findByBloodType(anyString())).thenReturn(getPatientsByBloodType());
+    public void getPatientsByLastNamePagingTest() {
+        List<PatientDTO> patients = getPatientDTOsByLastName();
+
+        PatientDTO lastOfFirstPage = patients.get(1);
+
+        when(patientRepository.findPatientDTOsByLastNameAfter(anyString(), anyString(), anyLong(),
+                any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(patients.subList(0, 2), PageRequest.ofSize(2), true))
+                .thenReturn(new SliceImpl<>(patients.subList(2, 3), PageRequest.ofSize(2), false));
+
+        StepVerifier.create(patientService.getPatientsByLastName(lastNameTestParameter), 1)
+                .expectNextCount(1)
+                .then(() -> verify(patientRepository, times(1)).findPatientDTOsByLastNameAfter(anyString(),
+                        anyString(), anyLong(), any(Pageable.class)))
+                .thenRequest(2)
+                .expectNextCount(2)
+                .verifyComplete();
+
+        verify(patientRepository).findPatientDTOsByLastNameAfter(eq(lastNameTestParameter), eq(""), eq(0L),
+                any(Pageable.class));
+        verify(patientRepository).findPatientDTOsByLastNameAfter(eq(lastNameTestParameter),
+                eq(lastOfFirstPage.firstName()), eq(lastOfFirstPage.id()), any(Pageable.class));
+    }
+
+    @Test
+    public void getPatientsByCriteriaTest() {
+        when(patientRepository.findPatientDTOsAfter(any(), any(), anyInt()))
+                .thenReturn(new SliceImpl<>(getPatientDTOsByBloodType()));
+
+        StepVerifier.create(patientService.getPatientsByCriteria(new PatientSearchCriteria(null,
+                        lastNameTestParameter, bloodTypeTestParameter, null, null, null, null)))
+                .expectNextCount(2)
+                .verifyComplete();
+    }
+
+    @Test
+    public void getPatientsByCriteriaExceptionTest() {
+        when(patientRepository.findPatientDTOsAfter(any(), any(), anyInt())).thenReturn(new SliceImpl<>(List.of()));
+
+        StepVerifier.create(patientService.getPatientsByCriteria(new PatientSearchCriteria(null, null, null,
+                        null, "Kirkwall", null, null)))
+                .expectError(PatientNotFoundException.class)
+                .verify();
+    }
+
+    @Test
+    public void searchPatientsTest() {
+        PatientDTO jamesDTO = new PatientDTO(1L, "James", "Hawke", "championofkirkwall@gmail.com",
+                7130042356L, "Varric Tethras", "O+", 0L);
+        PatientDTO carverDTO = new PatientDTO(3L, "Carver", "Hawke", "templarknight@gmail.com",
+                7130042357L, "Varric Tethras", "O-", 0L);
+
+        when(patientRepository.searchPatientIds("ha_w%", "ha\\_w\\%%", 20)).thenReturn(List.of(3L, 1L));
+        when(patientRepository.findPatientDTOsByIds(List.of(3L, 1L))).thenReturn(List.of(jamesDTO, carverDTO));
+
+        StepVerifier.create(patientService.searchPatients(" Ha_W% ", 20))
+                .expectNextMatches(p -> p.id() == 3L)
+                .expectNextMatches(p -> p.id() == 1L)
+                .verifyComplete();
+    }
+
+    @Test
+    public void searchPatientsLimitTest() {
+        when(patientRepository.searchPatientIds(anyString(), anyString(), anyInt())).thenReturn(List.of());
+
+        StepVerifier.create(patientService.searchPatients("hawke", 1000))
+                .verifyComplete();
+
+        verify(patientRepository).searchPatientIds("hawke", "hawke%", 100);
+        verify(patientRepository, never()).findPatientDTOsByIds(anyCollection());
+    }
+
+    @Test
+    public void searchPatientsBlankQueryTest() {
+        StepVerifier.create(patientService.searchPatients("  ", 20))
+                .verifyComplete();
 
-        List<PatientDTO> patients = patientService.getPatientsByBloodType(bloodTypeTestParameter);
+        verifyNoInteractions(patientRepository);
+    }
+
+    @Test
+    public void getPatientsByBloodTypeTest() {
+        when(patientRepository.findPatientDTOsByBloodTypeAfter(anyString(), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(getPatientDTOsByBloodType()));
 
-        assertEquals(2, patients.size());
+        StepVerifier.create(patientService.getPatientsByBloodType(bloodTypeTestParameter))
+                .expectNextCount(2)
+                .verifyComplete();
     }
 
     @Test
     public void getPatientsByBloodTypeExceptionTest() {
-        assertThrows(PatientNotFoundException.class,
-                () -> patientService.getPatientsByBloodType(bloodTypeTestParameter));
+        when(patientRepository.findPatientDTOsByBloodTypeAfter(anyString(), anyLong(), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        StepVerifier.create(patientService.getPatientsByBloodType(bloodTypeTestParameter))
+                .expectError(PatientNotFoundException.class)
+                .verify();
     }
 
     @Test
@@ -108,15 +274,17 @@ public class PatientServiceTest {
 
         when(patientRepository.findById(anyLong())).thenReturn(Optional.of(bethany));
 
-        AddressDTO addressDTO = patientService.getAddress(bethany.getId());
-
-        assertEquals("59 Gallows St", addressDTO.streetAddress());
-        assertEquals("San Antonio", addressDTO.city());
+        StepVerifier.create(patientService.getAddress(bethany.getId()))
+                .expectNextMatches(a -> Objects.equals(a.streetAddress(), "59 Gallows St") &&
+                        Objects.equals(a.city(), "San Antonio"))
+                .verifyComplete();
     }
 
     @Test
     public void getAddressExceptionTest() {
-        assertThrows(PatientNotFoundException.class, () -> patientService.getAddress(bethany.getId()));
+        StepVerifier.create(patientService.getAddress(bethany.getId()))
+                .expectError(PatientNotFoundException.class)
+                .verify();
     }
 
     @Test
@@ -133,12 +301,15 @@ public class PatientServiceTest {
         updatedAddress.put("state", "ID");
         updatedAddress.put("zipcode", 33247);
 
-        when(patientRepository.findById(anyLong())).thenReturn(Optional.of(patient));
+        when(patientRepository.findUncachedById(anyLong())).thenReturn(Optional.of(patient));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(new LoginDTO(patient),
+                null));
 
         patientService.updateAddress(updatedAddress);
 
         assertEquals("Boise", patient.getAddress().getCity());
         assertEquals("ID", patient.getAddress().getState());
+        verify(eventPublisher, times(1)).publishEvent(new PatientChangedEvent(patient.getId()));
     }
 
     @Test
@@ -150,21 +321,48 @@ public class PatientServiceTest {
         updatedPatient.put("email", "sisterofthechampion@yahoo.com");
         updatedPatient.put("password", "malcomsheir");
 
-        when(patientRepository.findById(anyLong())).thenReturn(Optional.of(bethany));
+        when(patientRepository.findUncachedById(anyLong())).thenReturn(Optional.of(bethany));
+        when(patientRepository.save(any(Patient.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        when(passwordEncoder.encode("malcomsheir")).thenReturn("encodedmalcomsheir");
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(new LoginDTO(bethany),
+                null));
 
         patientService.updatePatientInfo(updatedPatient);
 
         assertEquals("sisterofthechampion@yahoo.com", bethany.getEmail());
-        assertEquals("malcomsheir", bethany.getPassword());
+        assertEquals("encodedmalcomsheir", bethany.getPassword());
+        verify(eventPublisher, times(1)).publishEvent(new PatientChangedEvent(bethany.getId()));
+    }
+
+    @Test
+    public void updatePatientInfoInvalidFieldTest() {
+        Patient patient = new Patient(4L, "Leandra", "Amell", "leandra@gmail.com", "gamlenssister", null,
+                7130042358L, null, "A+", 0L);
+
+        LoginDTO loginDTO = new LoginDTO(patient);
+
+        when(patientRepository.findUncachedById(anyLong())).thenReturn(Optional.of(patient));
+        SecurityContextHolder.getContext().setAuthentication(new TestingAuthenticationToken(loginDTO, null));
+
+        try {
+            assertThrows(InvalidFieldException.class, () ->
+                    patientService.updatePatientInfo(Map.of("phoneNumber", "not-a-number")));
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+
+        verify(patientRepository, never()).save(any(Patient.class));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     public void deletePatientTest() {
-        when(patientRepository.findById(anyLong())).thenReturn(Optional.of(james));
+        when(patientRepository.findUncachedById(anyLong())).thenReturn(Optional.of(james));
 
         patientService.deletePatient(james.getId());
 
         verify(patientRepository, times(1)).deleteById(james.getId());
+        verify(eventPublisher, times(1)).publishEvent(new PatientChangedEvent(james.getId()));
     }
 
     @Test
@@ -12,15 +12,15 @@ public abstract class TestUtils {
 
     public static Patient james = new Patient(1L, "James", "Hawke",
             "championofkirkwall@gmail.com", "magerebellion", null, 7130042356L,
-            "Varric Tethras", "O+");
+            "Varric Tethras", "O+", null);
 
     public static Patient bethany = new Patient(2L, "Bethany", "Hawke",
             "circlemage@gmail.com", "daughterofamell", null, 7130042357L,
-            "Varric Tethras", "O-");
+            "Varric Tethras", "O-", null);
 
     public static Patient carver = new Patient(3L, "Carver", "Hawke",
             "templarknight@gmail.com", "sonofamell", null, 7130042357L,
-            "Varric Tethras", "O-");
+            "Varric Tethras", "O-", null);
 
     public static Address jamesAddress = new Address(james.getId(), james, "58 Hightown Court",
             "San Antonio", "TX", 78615);
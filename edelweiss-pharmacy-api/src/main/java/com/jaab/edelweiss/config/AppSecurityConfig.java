@@ -21,9 +21,13 @@ public class AppSecurityConfig {
 
     private final PasswordEncoder passwordEncoder;
 
-    public AppSecurityConfig(LoginService loginService, PasswordEncoder passwordEncoder) {
+    private final CredentialCache credentialCache;
+
+    public AppSecurityConfig(LoginService loginService, PasswordEncoder passwordEncoder,
+                             CredentialCache credentialCache) {
         this.loginService = loginService;
         this.passwordEncoder = passwordEncoder;
+        this.credentialCache = credentialCache;
     }
 
     @Bean
@@ -43,6 +47,6 @@ public class AppSecurityConfig {
         DaoAuthenticationProvider provider = new DaoAuthenticationProvider(passwordEncoder);
         provider.setUserDetailsService(loginService);
 
-        return provider;
+        return new CachingAuthenticationProvider(provider, credentialCache);
     }
 }
@@ -0,0 +1,51 @@
+package com.jaab.edelweiss.config;
+
+import com.jaab.edelweiss.dto.LoginDTO;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * This class is an AuthenticationProvider that skips the password hash and the pharmacist lookup for
+ * credentials that were recently authenticated
+ *
+ * @author Joseph Barr
+ */
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final AuthenticationProvider delegate;
+
+    private final CredentialCache credentialCache;
+
+    public CachingAuthenticationProvider(AuthenticationProvider delegate, CredentialCache credentialCache) {
+        this.delegate = delegate;
+        this.credentialCache = credentialCache;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        String username = authentication.getName();
+        Object credentials = authentication.getCredentials();
+
+        if (username == null || credentials == null)
+            return delegate.authenticate(authentication);
+
+        LoginDTO cachedLogin = credentialCache.get(username, credentials.toString());
+
+        if (cachedLogin != null)
+            return UsernamePasswordAuthenticationToken.authenticated(cachedLogin, null, cachedLogin.getAuthorities());
+
+        Authentication result = delegate.authenticate(authentication);
+
+        if (result != null && result.getPrincipal() instanceof LoginDTO loginDTO)
+            credentialCache.put(username, credentials.toString(), loginDTO);
+
+        return result;
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return delegate.supports(authentication);
+    }
+}
@@ -0,0 +1,104 @@
+package com.jaab.edelweiss.config;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.jaab.edelweiss.dto.LoginDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.KeyGenerator;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Objects;
+
+/**
+ * This class is a bounded, time-limited cache of authenticated pharmacists keyed by a salted digest of their
+ * HTTP Basic credentials. Raw passwords are never stored
+ *
+ * @author Joseph Barr
+ */
+@Component
+public class CredentialCache {
+
+    private final SecretKey salt = generateSalt();
+
+    private final Cache<String, LoginDTO> cache;
+
+    public CredentialCache(@Value("${edelweiss.credential-cache.max-size:1000}") long maxSize,
+                           @Value("${edelweiss.credential-cache.ttl:5m}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Retrieves the pharmacist previously authenticated with the specified credentials
+     *
+     * @param username - the email of the pharmacist
+     * @param password - the raw password of the pharmacist
+     * @return - the LoginDTO object if the credentials are cached, otherwise null
+     */
+    public LoginDTO get(String username, String password) {
+        return cache.getIfPresent(digest(username, password));
+    }
+
+    /**
+     * Caches the pharmacist authenticated with the specified credentials
+     *
+     * @param username - the email of the pharmacist
+     * @param password - the raw password of the pharmacist
+     * @param loginDTO - the authenticated pharmacist
+     */
+    public void put(String username, String password, LoginDTO loginDTO) {
+        cache.put(digest(username, password), loginDTO);
+    }
+
+    /**
+     * Removes every cached entry for the pharmacist with the specified ID
+     *
+     * @param pharmacistId - the ID of the pharmacist
+     */
+    public void invalidate(Long pharmacistId) {
+        cache.asMap().values().removeIf(loginDTO -> Objects.equals(loginDTO.id(), pharmacistId));
+    }
+
+    /**
+     * Computes the salted HMAC-SHA256 digest of the credentials
+     *
+     * @param username - the email of the pharmacist
+     * @param password - the raw password of the pharmacist
+     * @return - the hex encoded digest
+     */
+    private String digest(String username, String password) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(salt);
+
+            byte[] digest = mac.doFinal((username + ':' + password).getBytes(StandardCharsets.UTF_8));
+
+            return HexFormat.of().formatHex(digest);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private SecretKey generateSalt() {
+        KeyGenerator keyGenerator;
+
+        try {
+            keyGenerator = KeyGenerator.getInstance("HmacSHA256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+
+        keyGenerator.init(256);
+
+        return keyGenerator.generateKey();
+    }
+}
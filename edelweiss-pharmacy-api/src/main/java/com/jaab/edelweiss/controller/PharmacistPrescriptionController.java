@@ -1,15 +1,22 @@
 package com.jaab.edelweiss.controller;
 
+import com.jaab.edelweiss.dto.PrescriptionApprovalDTO;
+import com.jaab.edelweiss.dto.PrescriptionApprovalResult;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
 import com.jaab.edelweiss.exception.PrescriptionStatusException;
 import com.jaab.edelweiss.service.PharmacistPrescriptionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.util.List;
+
 /**
  * This class is a controller for the endpoints for communicating with the prescription API
  *
@@ -36,16 +43,49 @@ public class PharmacistPrescriptionController {
     }
 
     /**
-     * Sets an APPROVED or DENIED status for a PrescriptionStatusDTO payload and sends it to the prescription API
+     * Streams the pending prescriptions as server-sent events so the pharmacy home page can stay current without
+     * polling. The current pending prescriptions are sent once, then only the prescriptions that change
+     *
+     * @return - the stream of pending prescription events
+     */
+    @GetMapping(value = "/home/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PrescriptionDTO>> streamPendingPrescriptions() {
+        return pharmacistPrescriptionService.streamPendingPrescriptions();
+    }
+
+    /**
+     * Sets an APPROVED or DENIED status for a PrescriptionStatusDTO payload and sends it to the prescription API.
+     * A prescription another pharmacist has already approved or denied is answered with a 409. If-Match is
+     * forwarded and the prescription API's ETag is passed back, so a prescription changed by someone else is
+     * answered with a 412
      *
      * @param status         - the PrescriptionStatusDTO payload containing the new status
      * @param prescriptionId - the ID of the prescription
+     * @param headers        - the request headers, which may contain If-Match
      * @return - HTTP status response containing the updated prescription status
      */
     @PatchMapping(value = "/approvePrescription/{prescriptionId}")
-    public ResponseEntity<Mono<PrescriptionDTO>> approvePrescription(@RequestBody PrescriptionStatusDTO status,
-                                                                     @PathVariable Long prescriptionId) {
-        return ResponseEntity.ok(pharmacistPrescriptionService.approvePrescription(status, prescriptionId));
+    public Mono<ResponseEntity<PrescriptionDTO>> approvePrescription(@RequestBody PrescriptionStatusDTO status,
+                                                                     @PathVariable Long prescriptionId,
+                                                                     @RequestHeader HttpHeaders headers) {
+        return pharmacistPrescriptionService.approvePrescription(status, prescriptionId, headers.getIfMatch())
+                .map(response -> ResponseEntity.ok()
+                        .eTag(response.getHeaders().getETag())
+                        .body(response.getBody()));
+    }
+
+    /**
+     * Approves or denies a batch of prescriptions based on PrescriptionApprovalDTO payloads. Each prescription
+     * is reported separately, so prescriptions already approved or denied by another pharmacist do not fail the
+     * rest of the batch
+     *
+     * @param approvals - the PrescriptionApprovalDTO payloads containing the IDs and new statuses
+     * @return - HTTP status response containing the outcome of each approval
+     */
+    @PatchMapping(value = "/approvePrescriptions")
+    public ResponseEntity<Flux<PrescriptionApprovalResult>> approvePrescriptions(
+            @RequestBody List<PrescriptionApprovalDTO> approvals) {
+        return ResponseEntity.ok(pharmacistPrescriptionService.approvePrescriptions(approvals));
     }
 
     /**
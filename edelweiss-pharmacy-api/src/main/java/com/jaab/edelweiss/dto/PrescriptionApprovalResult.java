@@ -0,0 +1,6 @@
+package com.jaab.edelweiss.dto;
+
+import com.jaab.edelweiss.model.Status;
+
+public record PrescriptionApprovalResult(Long prescriptionId, Status prescriptionStatus, String error) {
+}
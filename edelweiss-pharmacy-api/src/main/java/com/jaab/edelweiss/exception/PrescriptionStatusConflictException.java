@@ -0,0 +1,12 @@
+package com.jaab.edelweiss.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.CONFLICT)
+public class PrescriptionStatusConflictException extends RuntimeException {
+
+    public PrescriptionStatusConflictException(String message) {
+        super(message);
+    }
+}
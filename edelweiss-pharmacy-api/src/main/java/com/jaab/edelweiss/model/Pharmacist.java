@@ -5,9 +5,11 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 @Entity
 @Table(name = "pharmacists")
+@DynamicUpdate
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +17,9 @@ import lombok.Setter;
 public class Pharmacist {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "pharmacists_pharmacist_id_seq")
+    @SequenceGenerator(name = "pharmacists_pharmacist_id_seq", sequenceName = "pharmacists_pharmacist_id_seq",
+            allocationSize = 50)
     @Column(name = "pharmacist_id", nullable = false, updatable = false, unique = true)
     private Long id;
 
@@ -1,15 +1,25 @@
 package com.jaab.edelweiss.service;
 
+import com.jaab.edelweiss.config.DownstreamClientFactory;
+import com.jaab.edelweiss.dto.PrescriptionApprovalDTO;
+import com.jaab.edelweiss.dto.PrescriptionApprovalResult;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
+import com.jaab.edelweiss.exception.PrescriptionModifiedException;
+import com.jaab.edelweiss.exception.PrescriptionStatusConflictException;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
 import java.rmi.ServerException;
+import java.util.List;
 
 /**
  * This is a service class that allows pharmacists to communicate with the prescription API
@@ -22,8 +32,8 @@ public class PharmacistPrescriptionService {
 
     private final WebClient webClient;
 
-    public PharmacistPrescriptionService(WebClient.Builder builder) {
-        this.webClient = builder.baseUrl("http://localhost:8084/pharmacy").build();
+    public PharmacistPrescriptionService(DownstreamClientFactory downstreamClientFactory) {
+        this.webClient = downstreamClientFactory.create("prescription");
     }
 
     /**
@@ -44,23 +54,81 @@ public class PharmacistPrescriptionService {
     }
 
     /**
-     * Sets an APPROVED or DENIED status for a PrescriptionStatusDTO object and sends it to the prescription API
+     * Subscribes to the prescription API's pending prescription feed. The current PENDING prescriptions arrive first
+     * as "pending" events, followed by "pending" and "removed" events as prescriptions change
+     *
+     * @return - the stream of pending prescription events
+     */
+    public Flux<ServerSentEvent<PrescriptionDTO>> streamPendingPrescriptions() {
+        return webClient.get()
+                .uri("/pendingPrescriptionFeed")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .onStatus(HttpStatusCode::is4xxClientError,
+                        response -> response.bodyToMono(String.class).map(Exception::new))
+                .onStatus(HttpStatusCode::is5xxServerError,
+                        response -> response.bodyToMono(String.class).map(ServerException::new))
+                .bodyToFlux(new ParameterizedTypeReference<>() {
+                });
+    }
+
+    /**
+     * Sets an APPROVED or DENIED status for a PrescriptionStatusDTO object and sends it to the prescription API,
+     * along with the If-Match ETags so that the prescription is only updated if it has not changed since the
+     * pharmacist retrieved it
      *
      * @param status         - the new status of the prescription
      * @param prescriptionId - the ID of the prescription
-     * @return - the prescription status
+     * @param ifMatch        - the ETags of the client's If-Match header, which may be empty
+     * @return - the response of the prescription API with the prescription status and its ETag
+     * @throws PrescriptionStatusConflictException if another pharmacist has already approved or denied the
+     *                                             prescription
+     * @throws PrescriptionModifiedException       if the prescription has changed since the pharmacist retrieved it
      */
-    public Mono<PrescriptionDTO> approvePrescription(PrescriptionStatusDTO status, Long prescriptionId) {
+    public Mono<ResponseEntity<PrescriptionDTO>> approvePrescription(PrescriptionStatusDTO status, Long prescriptionId,
+                                                                     List<String> ifMatch)
+            throws PrescriptionStatusConflictException, PrescriptionModifiedException {
         return webClient.patch()
-                .uri("/approvePrescription/" + prescriptionId)
+                .uri("/approvePrescription/{prescriptionId}", prescriptionId)
                 .contentType(MediaType.APPLICATION_JSON)
+                .headers(headers -> {
+                    if (!ifMatch.isEmpty())
+                        headers.setIfMatch(ifMatch);
+                })
                 .body(Mono.just(status), PrescriptionStatusDTO.class)
                 .accept(MediaType.APPLICATION_JSON)
                 .retrieve()
+                .onStatus(code -> code.isSameCodeAs(HttpStatus.CONFLICT),
+                        response -> Mono.just(new PrescriptionStatusConflictException(
+                                "The prescription has already been approved or denied by another pharmacist.")))
+                .onStatus(code -> code.isSameCodeAs(HttpStatus.PRECONDITION_FAILED),
+                        response -> Mono.just(new PrescriptionModifiedException(
+                                "The prescription has been modified since it was retrieved.")))
+                .onStatus(HttpStatusCode::is4xxClientError,
+                        response -> response.bodyToMono(String.class).map(Exception::new))
+                .onStatus(HttpStatusCode::is5xxServerError,
+                        response -> response.bodyToMono(String.class).map(ServerException::new))
+                .toEntity(PrescriptionDTO.class);
+    }
+
+    /**
+     * Sends a batch of PrescriptionApprovalDTO objects to the prescription API, which approves or denies every
+     * PENDING prescription of the batch in a single update
+     *
+     * @param approvals - the IDs and new statuses of the prescriptions
+     * @return - the outcome of each approval, in the order of the batch
+     */
+    public Flux<PrescriptionApprovalResult> approvePrescriptions(List<PrescriptionApprovalDTO> approvals) {
+        return webClient.patch()
+                .uri("/approvePrescriptions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(approvals)
+                .accept(MediaType.APPLICATION_JSON)
+                .retrieve()
                 .onStatus(HttpStatusCode::is4xxClientError,
                         response -> response.bodyToMono(String.class).map(Exception::new))
                 .onStatus(HttpStatusCode::is5xxServerError,
                         response -> response.bodyToMono(String.class).map(ServerException::new))
-                .bodyToMono(PrescriptionDTO.class);
+                .bodyToFlux(PrescriptionApprovalResult.class);
     }
 }
@@ -1,16 +1,19 @@
 package com.jaab.edelweiss.service;
 
+import com.jaab.edelweiss.config.CredentialCache;
 import com.jaab.edelweiss.dao.PharmacistRepository;
 import com.jaab.edelweiss.dto.LoginDTO;
+import com.jaab.edelweiss.exception.InvalidFieldException;
 import com.jaab.edelweiss.exception.PharmacistNotFoundException;
 import com.jaab.edelweiss.model.Pharmacist;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
-import org.springframework.util.ReflectionUtils;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
-import java.lang.reflect.Field;
 import java.util.Map;
 
 /**
@@ -22,13 +25,22 @@ import java.util.Map;
 @Service
 public class PharmacistService {
 
+    private static final PatchApplier<Pharmacist> PHARMACIST_FIELDS = new PatchApplier<>(Map.of(
+            "lastName", PatchApplier.field(PatchApplier.TEXT, Pharmacist::setLastName),
+            "email", PatchApplier.field(PatchApplier.TEXT, Pharmacist::setEmail),
+            "password", PatchApplier.field(PatchApplier.TEXT, Pharmacist::setPassword)));
+
     private final PharmacistRepository pharmacistRepository;
 
     private final PasswordEncoder passwordEncoder;
 
-    public PharmacistService(PharmacistRepository pharmacistRepository, PasswordEncoder passwordEncoder) {
+    private final CredentialCache credentialCache;
+
+    public PharmacistService(PharmacistRepository pharmacistRepository, PasswordEncoder passwordEncoder,
+                             CredentialCache credentialCache) {
         this.pharmacistRepository = pharmacistRepository;
         this.passwordEncoder = passwordEncoder;
+        this.credentialCache = credentialCache;
     }
 
     /**
@@ -45,30 +57,29 @@ public class PharmacistService {
     }
 
     /**
-     * Updates the pharmacist's information and merges it to the pharmacist database
+     * Updates the pharmacist's information and merges it to the pharmacist database. Only the columns that changed
+     * are written
      *
      * @param fields - the object containing the updated information
      * @return - the updated pharmacist
+     * @throws InvalidFieldException if an updated value does not match the type of its field
      */
-    public Pharmacist updatePharmacistInfo(Map<String, Object> fields) {
+    @Transactional
+    public Pharmacist updatePharmacistInfo(Map<String, Object> fields) throws InvalidFieldException {
         LoginDTO loginDTO = getUserDetails();
 
         Pharmacist pharmacist = getPharmacistById(loginDTO.id());
 
-        fields.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(Pharmacist.class, key);
-
-            if (field != null) {
-                field.setAccessible(true);
-                ReflectionUtils.setField(field, pharmacist, value);
-            }
-        });
+        PHARMACIST_FIELDS.apply(pharmacist, fields);
 
         if (fields.get("password") != null)
             pharmacist.setPassword(passwordEncoder.encode(fields.get("password").toString()));
 
         pharmacistRepository.save(pharmacist);
 
+        if (fields.containsKey("email") || fields.containsKey("password"))
+            invalidateCredentials(pharmacist.getId());
+
         return pharmacist;
     }
 
@@ -82,6 +93,8 @@ public class PharmacistService {
         Pharmacist pharmacist = getPharmacistById(pharmacistId);
 
         pharmacistRepository.deleteById(pharmacist.getId());
+
+        invalidateCredentials(pharmacist.getId());
     }
 
     /**
@@ -96,6 +109,27 @@ public class PharmacistService {
                 .orElseThrow(() -> new PharmacistNotFoundException("No pharmacist with the specified ID found."));
     }
 
+    /**
+     * Evicts the pharmacist's credentials from the credential cache once the current transaction has committed, so
+     * a concurrent login cannot cache the credentials that are being replaced. Without a transaction they are
+     * evicted right away
+     *
+     * @param pharmacistId - the ID of the pharmacist
+     */
+    private void invalidateCredentials(Long pharmacistId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            credentialCache.invalidate(pharmacistId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                credentialCache.invalidate(pharmacistId);
+            }
+        });
+    }
+
     /**
      * Retrieves the UserDetails information of an authenticated user
      *
@@ -0,0 +1,75 @@
+package com.jaab.edelweiss.config;
+
+import com.jaab.edelweiss.dto.LoginDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.time.Duration;
+
+import static com.jaab.edelweiss.utils.TestUtils.createPharmacist;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class CachingAuthenticationProviderTest {
+
+    @Mock
+    private AuthenticationProvider delegate;
+
+    private CachingAuthenticationProvider cachingAuthenticationProvider;
+
+    private CredentialCache credentialCache;
+
+    private LoginDTO loginDTO;
+
+    @BeforeEach
+    void init() {
+        credentialCache = new CredentialCache(10, Duration.ofMinutes(5));
+        cachingAuthenticationProvider = new CachingAuthenticationProvider(delegate, credentialCache);
+
+        loginDTO = new LoginDTO(createPharmacist());
+
+        when(delegate.authenticate(any(Authentication.class))).thenReturn(
+                UsernamePasswordAuthenticationToken.authenticated(loginDTO, null, loginDTO.getAuthorities()));
+    }
+
+    @Test
+    public void authenticateCachedCredentialsTest() {
+        Authentication first = cachingAuthenticationProvider.authenticate(credentials("sonofmaric"));
+        Authentication second = cachingAuthenticationProvider.authenticate(credentials("sonofmaric"));
+
+        assertEquals(loginDTO, first.getPrincipal());
+        assertEquals(loginDTO, second.getPrincipal());
+        verify(delegate, times(1)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void authenticateDifferentPasswordTest() {
+        cachingAuthenticationProvider.authenticate(credentials("sonofmaric"));
+        cachingAuthenticationProvider.authenticate(credentials("duncansheir"));
+
+        verify(delegate, times(2)).authenticate(any(Authentication.class));
+    }
+
+    @Test
+    public void authenticateAfterInvalidationTest() {
+        cachingAuthenticationProvider.authenticate(credentials("sonofmaric"));
+
+        credentialCache.invalidate(loginDTO.id());
+
+        cachingAuthenticationProvider.authenticate(credentials("sonofmaric"));
+
+        verify(delegate, times(2)).authenticate(any(Authentication.class));
+    }
+
+    private Authentication credentials(String password) {
+        return UsernamePasswordAuthenticationToken.unauthenticated(loginDTO.email(), password);
+    }
+}
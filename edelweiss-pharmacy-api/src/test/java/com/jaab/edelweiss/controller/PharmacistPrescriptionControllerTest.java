@@ -10,15 +10,20 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
 import java.util.List;
 
 import static com.jaab.edelweiss.utils.TestUtils.pendingPrescriptions;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.when;
+import static org.springframework.security.test.web.reactive.server.SecurityMockServerConfigurers.mockUser;
 
 @WebFluxTest(controllers = PharmacistPrescriptionController.class)
 public class PharmacistPrescriptionControllerTest {
@@ -43,10 +48,31 @@ public class PharmacistPrescriptionControllerTest {
                 .expectBodyList(PrescriptionDTO.class).hasSize(2);
     }
 
+    @Test
+    public void streamPendingPrescriptionsTest() {
+        List<PrescriptionDTO> getPendingPrescriptions = pendingPrescriptions();
+
+        when(pharmacistPrescriptionService.streamPendingPrescriptions())
+                .thenReturn(Flux.fromIterable(getPendingPrescriptions)
+                        .map(p -> ServerSentEvent.builder(p).event("pending").build()));
+
+        webTestClient.mutateWith(mockUser().roles("PHARMACIST"))
+                .get()
+                .uri("/pharmacy/home/feed")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .expectBodyList(PrescriptionDTO.class).hasSize(2);
+    }
+
     @Test
     public void approvePrescriptionTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(1L, "Rinoa", "Heartily",
-                "X-Potion", (byte) 75, Status.DENIED);
+                "X-Potion", (byte) 75, Status.DENIED, null);
+
+        when(pharmacistPrescriptionService.approvePrescription(any(PrescriptionStatusDTO.class), anyLong(), anyList()))
+                .thenReturn(Mono.just(ResponseEntity.ok().eTag("4").body(prescriptionDTO)));
 
         webTestClient.patch()
                 .uri("/pharmacy/approvePrescription/" + 1L)
@@ -60,9 +86,9 @@ public class PharmacistPrescriptionControllerTest {
     @Test
     public void approvePrescriptionExceptionTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(1L, "Rinoa", "Heartily",
-                "X-Potion", (byte) 75, Status.PENDING);
+                "X-Potion", (byte) 75, Status.PENDING, null);
 
-        when(pharmacistPrescriptionService.approvePrescription(any(PrescriptionStatusDTO.class), anyLong()))
+        when(pharmacistPrescriptionService.approvePrescription(any(PrescriptionStatusDTO.class), anyLong(), anyList()))
                 .thenThrow(PrescriptionStatusException.class);
 
         webTestClient.patch()
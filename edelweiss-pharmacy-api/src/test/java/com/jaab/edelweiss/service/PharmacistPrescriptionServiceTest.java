@@ -2,8 +2,11 @@ package com.jaab.edelweiss.service;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaab.edelweiss.dto.PrescriptionApprovalDTO;
+import com.jaab.edelweiss.dto.PrescriptionApprovalResult;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
+import com.jaab.edelweiss.exception.PrescriptionStatusConflictException;
 import com.jaab.edelweiss.model.Status;
 import jakarta.transaction.Transactional;
 import mockwebserver3.MockResponse;
@@ -13,6 +16,8 @@ import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 import reactor.test.StepVerifier;
@@ -63,6 +68,25 @@ public class PharmacistPrescriptionServiceTest {
                 .verifyComplete();
     }
 
+    @Test
+    public void streamPendingPrescriptionsTest() throws JsonProcessingException {
+        List<PrescriptionDTO> pendingPrescriptions = pendingPrescriptions();
+
+        mockWebServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", "text/event-stream")
+                .setBody("event:pending\ndata:" + objectMapper.writeValueAsString(pendingPrescriptions.get(0)) +
+                        "\n\n:heartbeat\n\nevent:removed\ndata:" +
+                        objectMapper.writeValueAsString(pendingPrescriptions.get(1)) + "\n\n"));
+
+        Flux<ServerSentEvent<PrescriptionDTO>> pendingFeed = pharmacistPrescriptionService.streamPendingPrescriptions();
+
+        StepVerifier.create(pendingFeed)
+                .expectNextMatches(e -> "pending".equals(e.event()) && pendingPrescriptions.get(0).equals(e.data()))
+                .expectNextMatches(e -> "heartbeat".equals(e.comment()))
+                .expectNextMatches(e -> "removed".equals(e.event()) && pendingPrescriptions.get(1).equals(e.data()))
+                .verifyComplete();
+    }
+
     @Test
     public void approvePrescriptionTest() throws JsonProcessingException {
         PrescriptionStatusDTO status = new PrescriptionStatusDTO(Status.APPROVED);
@@ -71,11 +95,42 @@ public class PharmacistPrescriptionServiceTest {
                 .addHeader("Content-Type", "application/json")
                 .setBody(objectMapper.writeValueAsString(status)));
 
-        Mono<PrescriptionDTO> prescriptionStatus =
-                pharmacistPrescriptionService.approvePrescription(status, 1L);
+        Mono<PrescriptionDTO> prescriptionStatus = pharmacistPrescriptionService
+                .approvePrescription(status, 1L, List.of())
+                .mapNotNull(ResponseEntity::getBody);
 
         StepVerifier.create(prescriptionStatus)
                 .expectNextMatches(s -> Objects.equals(s.prescriptionStatus(), Status.APPROVED))
                 .verifyComplete();
     }
+
+    @Test
+    public void approvePrescriptionConflictTest() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(409));
+
+        Mono<ResponseEntity<PrescriptionDTO>> prescriptionStatus = pharmacistPrescriptionService
+                .approvePrescription(new PrescriptionStatusDTO(Status.DENIED), 1L, List.of());
+
+        StepVerifier.create(prescriptionStatus)
+                .expectError(PrescriptionStatusConflictException.class)
+                .verify();
+    }
+
+    @Test
+    public void approvePrescriptionsTest() throws JsonProcessingException {
+        List<PrescriptionApprovalResult> results = List.of(
+                new PrescriptionApprovalResult(1L, Status.APPROVED, null),
+                new PrescriptionApprovalResult(2L, null, "The prescription has already been denied."));
+
+        mockWebServer.enqueue(new MockResponse()
+                .addHeader("Content-Type", "application/json")
+                .setBody(objectMapper.writeValueAsString(results)));
+
+        Flux<PrescriptionApprovalResult> approvals = pharmacistPrescriptionService.approvePrescriptions(List.of(
+                new PrescriptionApprovalDTO(1L, Status.APPROVED), new PrescriptionApprovalDTO(2L, Status.APPROVED)));
+
+        StepVerifier.create(approvals)
+                .expectNext(results.get(0), results.get(1))
+                .verifyComplete();
+    }
 }
@@ -1,14 +1,22 @@
 package com.jaab.edelweiss.service;
 
+import com.jaab.edelweiss.config.CredentialCache;
 import com.jaab.edelweiss.dao.PharmacistRepository;
+import com.jaab.edelweiss.dto.LoginDTO;
 import com.jaab.edelweiss.exception.PharmacistNotFoundException;
 import com.jaab.edelweiss.model.Pharmacist;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -29,19 +37,37 @@ public class PharmacistServiceTest {
     @Mock
     private PharmacistRepository pharmacistRepository;
 
+    @Mock
+    private CredentialCache credentialCache;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
     private Pharmacist pharmacist;
 
     @BeforeEach
     void init() {
         pharmacist = createPharmacist();
+
+        LoginDTO loginDTO = new LoginDTO(pharmacist);
+        SecurityContextHolder.getContext().setAuthentication(
+                UsernamePasswordAuthenticationToken.authenticated(loginDTO, null, loginDTO.getAuthorities()));
+    }
+
+    @AfterEach
+    void cleanup() {
+        SecurityContextHolder.clearContext();
     }
 
     @Test
     public void createPharmacistTest() {
+        when(passwordEncoder.encode("sonofmaric")).thenReturn("encodedsonofmaric");
+
         Pharmacist newPharmacist = pharmacistService.createPharmacist(pharmacist);
 
         assertEquals("Alistair", newPharmacist.getFirstName());
         assertEquals("Theirin", newPharmacist.getLastName());
+        assertEquals("encodedsonofmaric", newPharmacist.getPassword());
     }
 
     @Test
@@ -54,11 +80,35 @@ public class PharmacistServiceTest {
         fields.put("password", "duncansheir");
 
         when(pharmacistRepository.findById(anyLong())).thenReturn(Optional.of(pharmacist));
+        when(passwordEncoder.encode("duncansheir")).thenReturn("encodedduncansheir");
 
         Pharmacist updatedPharmacist = pharmacistService.updatePharmacistInfo(fields);
 
         assertEquals("greywarden@gmail.com", updatedPharmacist.getEmail());
-        assertEquals("duncansheir", updatedPharmacist.getPassword());
+        assertEquals("encodedduncansheir", updatedPharmacist.getPassword());
+        verify(credentialCache, times(1)).invalidate(pharmacist.getId());
+    }
+
+    @Test
+    public void updatePharmacistInfoInvalidatesCredentialsAfterCommitTest() {
+        Map<String, Object> fields = new HashMap<>();
+        fields.put("email", "greywarden@gmail.com");
+
+        when(pharmacistRepository.findById(anyLong())).thenReturn(Optional.of(pharmacist));
+
+        TransactionSynchronizationManager.initSynchronization();
+
+        try {
+            pharmacistService.updatePharmacistInfo(fields);
+
+            verify(credentialCache, never()).invalidate(anyLong());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+            verify(credentialCache, times(1)).invalidate(pharmacist.getId());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
     }
 
     @Test
@@ -68,6 +118,7 @@ public class PharmacistServiceTest {
         pharmacistService.deletePharmacist(pharmacist.getId());
 
         verify(pharmacistRepository, times(1)).deleteById(pharmacist.getId());
+        verify(credentialCache, times(1)).invalidate(pharmacist.getId());
     }
 
     @Test
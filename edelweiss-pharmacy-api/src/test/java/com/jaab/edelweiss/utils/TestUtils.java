@@ -25,13 +25,13 @@ public abstract class TestUtils {
 
     private static List<PrescriptionDTO> prescriptionList() {
         PrescriptionDTO potion = new PrescriptionDTO(1L, "Wynne", "Langrene",
-                "Potion", (byte) 50, Status.PENDING);
+                "Potion", (byte) 50, Status.PENDING, 0L);
 
         PrescriptionDTO elfroot = new PrescriptionDTO(2L, "Varric", "Tethras",
-                "Elfroot", (byte) 75, Status.PENDING);
+                "Elfroot", (byte) 75, Status.PENDING, 0L);
 
         PrescriptionDTO lyrium = new PrescriptionDTO(3L, "Solas", "Wolffe",
-                "Lyrium", (byte) 100, Status.APPROVED);
+                "Lyrium", (byte) 100, Status.APPROVED, 0L);
 
         List<PrescriptionDTO> prescriptions = new ArrayList<>();
 
@@ -0,0 +1,88 @@
+package com.jaab.edelweiss.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * This class builds the strong ETags of versioned responses and evaluates If-None-Match and If-Match against them.
+ * A version can be checked before the response is loaded, so an unchanged resource costs a single lookup
+ *
+ * @author Joseph Barr
+ */
+public abstract class ETags {
+
+    /**
+     * The version required by an If-Match header that no resource can have
+     */
+    public static final long NO_VERSION = -1L;
+
+    /**
+     * Formats a version as a strong ETag
+     *
+     * @param version - the version of the resource
+     * @return - the quoted ETag
+     */
+    public static String of(Object version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * Checks whether any of the ETags of an If-None-Match header matches the version. The comparison is weak,
+     * as RFC 9110 requires for If-None-Match
+     *
+     * @param ifNoneMatch - the ETags of the If-None-Match header
+     * @param version     - the current version of the resource
+     * @return - true if the client's copy is still current
+     */
+    public static boolean matches(List<String> ifNoneMatch, Object version) {
+        String eTag = of(version);
+
+        return ifNoneMatch.stream().anyMatch(tag -> tag.equals("*") || tag.equals(eTag) || tag.equals("W/" + eTag));
+    }
+
+    /**
+     * Reads the version that an If-Match header requires the resource to have before it is changed. The comparison
+     * is strong, as RFC 9110 requires for If-Match, so weak ETags never match. Only the first strong ETag is used
+     *
+     * @param ifMatch - the ETags of the If-Match header
+     * @return - the required version, null if the header is absent or "*", or NO_VERSION if none of the ETags can
+     * match
+     */
+    public static Long requiredVersion(List<String> ifMatch) {
+        if (ifMatch.isEmpty() || ifMatch.contains("*"))
+            return null;
+
+        return ifMatch.stream()
+                .filter(tag -> tag.length() > 2 && tag.startsWith("\"") && tag.endsWith("\""))
+                .map(tag -> tag.substring(1, tag.length() - 1))
+                .filter(version -> version.length() <= 18 && version.chars().allMatch(Character::isDigit))
+                .findFirst()
+                .map(Long::valueOf)
+                .orElse(NO_VERSION);
+    }
+
+    /**
+     * Creates a 200 response carrying the ETag of the version
+     *
+     * @param version - the version of the resource
+     * @param body    - the resource
+     * @param <T>     - the type of the resource
+     * @return - the response
+     */
+    public static <T> ResponseEntity<T> ok(Object version, T body) {
+        return ResponseEntity.ok().eTag(of(version)).body(body);
+    }
+
+    /**
+     * Creates a 304 response carrying the ETag of the version
+     *
+     * @param version - the version of the resource
+     * @param <T>     - the type of the resource
+     * @return - the response
+     */
+    public static <T> ResponseEntity<T> notModified(Object version) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(of(version)).build();
+    }
+}
@@ -1,11 +1,20 @@
 package com.jaab.edelweiss.controller;
 
+import com.jaab.edelweiss.dto.PrescriptionApprovalDTO;
+import com.jaab.edelweiss.dto.PrescriptionApprovalResult;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
 import com.jaab.edelweiss.dto.UpdatePrescriptionDTO;
+import com.jaab.edelweiss.dto.Versioned;
 import com.jaab.edelweiss.model.Status;
+import com.jaab.edelweiss.service.PendingPrescriptionFeed;
 import com.jaab.edelweiss.service.PrescriptionService;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 
 import java.util.List;
 
@@ -14,8 +23,12 @@ public class PrescriptionController {
 
     private final PrescriptionService prescriptionService;
 
-    public PrescriptionController(PrescriptionService prescriptionService) {
+    private final PendingPrescriptionFeed pendingPrescriptionFeed;
+
+    public PrescriptionController(PrescriptionService prescriptionService,
+                                  PendingPrescriptionFeed pendingPrescriptionFeed) {
         this.prescriptionService = prescriptionService;
+        this.pendingPrescriptionFeed = pendingPrescriptionFeed;
     }
 
     /**
@@ -32,16 +45,31 @@ public class PrescriptionController {
 
     /**
      * Retrieves a list of prescriptions from the prescription database based on the doctor's name and sends it
-     * to the doctor API
+     * to the doctor API. The version of the list is its ETag, and when it matches If-None-Match the response is
+     * a 304 without the prescriptions being loaded
      *
      * @param firstName - the first name of the doctor
      * @param lastName  - the last name of the doctor
-     * @return - the list of the doctor's prescriptions
+     * @param headers   - the request headers, which may contain If-None-Match
+     * @return - the list of the doctor's prescriptions, or a 304 if the doctor API's copy is current
      */
     @GetMapping(value = "/physician/myPrescriptions/{firstName}/{lastName}")
-    public List<PrescriptionDTO> getPrescriptionsByDoctorName(@PathVariable String firstName,
-                                                              @PathVariable String lastName) {
-        return prescriptionService.getPrescriptionsByDoctorName(firstName, lastName);
+    public ResponseEntity<List<PrescriptionDTO>> getPrescriptionsByDoctorName(@PathVariable String firstName,
+                                                                              @PathVariable String lastName,
+                                                                              @RequestHeader HttpHeaders headers) {
+        List<String> ifNoneMatch = headers.getIfNoneMatch();
+
+        if (!ifNoneMatch.isEmpty()) {
+            String version = prescriptionService.getPrescriptionsVersionByDoctorName(firstName, lastName);
+
+            if (ETags.matches(ifNoneMatch, version))
+                return ETags.notModified(version);
+        }
+
+        Versioned<List<PrescriptionDTO>> prescriptions =
+                prescriptionService.getPrescriptionsByDoctorName(firstName, lastName);
+
+        return ETags.ok(prescriptions.version(), prescriptions.body());
     }
 
     /**
@@ -55,30 +83,66 @@ public class PrescriptionController {
     }
 
     /**
-     * Updates the prescription with the specified ID and merges it to the prescription database
+     * Streams the PENDING prescriptions to the pharmacy API as server-sent events: the current PENDING
+     * prescriptions first, then only the prescriptions that change
+     *
+     * @return - the stream of pending prescription events
+     */
+    @GetMapping(value = "/pharmacy/pendingPrescriptionFeed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<PrescriptionDTO>> streamPendingPrescriptions() {
+        return pendingPrescriptionFeed.streamPendingPrescriptions();
+    }
+
+    /**
+     * Updates the prescription with the specified ID and merges it to the prescription database. When If-Match is
+     * present, the prescription is only updated if its version still matches, and a 412 is returned otherwise
      *
      * @param prescriptionDTO - the UpdatePrescriptionDTO payload from the doctor API
      * @param prescriptionId  - the ID of the prescription
-     * @return - the updated prescription
+     * @param headers         - the request headers, which may contain If-Match
+     * @return - the updated prescription, with its new version as the ETag
      */
     @PatchMapping(value = "/physician/updatePrescriptionInfo/{prescriptionId}")
-    public PrescriptionDTO updatePrescriptionInfo(@RequestBody UpdatePrescriptionDTO prescriptionDTO,
-                                                        @PathVariable Long prescriptionId) {
-        return prescriptionService.updatePrescriptionInfo(prescriptionDTO, prescriptionId);
+    public ResponseEntity<PrescriptionDTO> updatePrescriptionInfo(@RequestBody UpdatePrescriptionDTO prescriptionDTO,
+                                                                  @PathVariable Long prescriptionId,
+                                                                  @RequestHeader HttpHeaders headers) {
+        Versioned<PrescriptionDTO> prescription = prescriptionService.updatePrescriptionInfo(prescriptionDTO,
+                prescriptionId, ETags.requiredVersion(headers.getIfMatch()));
+
+        return ETags.ok(prescription.version(), prescription.body());
     }
 
     /**
-     * Approves or denies a prescription based on a PrescriptionStatusDTO payload from the pharmacy API
-     * and merges it to the prescription database
+     * Approves or denies a PENDING prescription based on a PrescriptionStatusDTO payload from the pharmacy API
+     * and merges it to the prescription database. A prescription that has already been approved or denied is
+     * answered with a 409. When If-Match is present, the prescription is only updated if its version still
+     * matches, and a 412 is returned otherwise
      *
      * @param status         - the PrescriptionStatusDTO payload containing the new status
      * @param prescriptionId - the ID of the prescription
-     * @return - the PrescriptionDTO object containing the updated status
+     * @param headers        - the request headers, which may contain If-Match
+     * @return - the PrescriptionDTO object containing the updated status, with its new version as the ETag
      */
     @PatchMapping(value = "/pharmacy/approvePrescription/{prescriptionId}")
-    public PrescriptionDTO approvePrescription(@RequestBody PrescriptionStatusDTO status,
-                                                     @PathVariable Long prescriptionId) {
-        return prescriptionService.approvePrescription(status, prescriptionId);
+    public ResponseEntity<PrescriptionDTO> approvePrescription(@RequestBody PrescriptionStatusDTO status,
+                                                               @PathVariable Long prescriptionId,
+                                                               @RequestHeader HttpHeaders headers) {
+        Versioned<PrescriptionDTO> prescription = prescriptionService.approvePrescription(status, prescriptionId,
+                ETags.requiredVersion(headers.getIfMatch()));
+
+        return ETags.ok(prescription.version(), prescription.body());
+    }
+
+    /**
+     * Approves or denies a batch of PENDING prescriptions based on PrescriptionApprovalDTO payloads from the
+     * pharmacy API, in a single update of the prescription database
+     *
+     * @param approvals - the PrescriptionApprovalDTO payloads containing the IDs and new statuses
+     * @return - the outcome of each approval, in the order of the batch
+     */
+    @PatchMapping(value = "/pharmacy/approvePrescriptions")
+    public List<PrescriptionApprovalResult> approvePrescriptions(@RequestBody List<PrescriptionApprovalDTO> approvals) {
+        return prescriptionService.approvePrescriptions(approvals);
     }
 
     /**
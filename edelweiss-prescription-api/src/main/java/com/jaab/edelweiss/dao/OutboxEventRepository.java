@@ -0,0 +1,34 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.Instant;
+import java.util.List;
+
+@Repository
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    /**
+     * Retrieves and locks the oldest unpublished events. Rows already locked by another instance of the relay are
+     * skipped, so several instances can relay at once without publishing the same event twice
+     *
+     * @param limit - the maximum number of events to return
+     * @return - the list of unpublished events, oldest first
+     */
+    @Query(value = """
+            select * from prescription_outbox
+            where published_at is null
+            order by event_id
+            limit :limit
+            for update skip locked""", nativeQuery = true)
+    List<OutboxEvent> lockUnpublishedEvents(@Param("limit") int limit);
+
+    @Modifying
+    @Query("delete from OutboxEvent e where e.publishedAt < :before")
+    int deletePublishedBefore(@Param("before") Instant before);
+}
@@ -2,15 +2,85 @@ package com.jaab.edelweiss.dao;
 
 import com.jaab.edelweiss.model.Prescription;
 import com.jaab.edelweiss.model.Status;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.hibernate.jpa.SpecHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface PrescriptionRepository extends JpaRepository<Prescription, Long> {
+public interface PrescriptionRepository extends JpaRepository<Prescription, Long>, PrescriptionTransitionRepository {
 
     List<Prescription> findByDoctorFirstNameAndDoctorLastName(String firstName, String lastName);
 
+    /**
+     * Hashes the IDs and versions of a doctor's prescriptions into the version of the doctor's prescription list.
+     * It changes whenever one of the prescriptions is created, updated or deleted, and matches the hash that
+     * PrescriptionService computes from the loaded prescriptions
+     *
+     * @param firstName - the first name of the doctor
+     * @param lastName  - the last name of the doctor
+     * @return - the version of the doctor's prescription list
+     */
+    @Query(value = """
+            select md5(coalesce(string_agg(prescription_id || ':' || version, ',' order by prescription_id), ''))
+            from prescriptions
+            where doctor_last_name = :lastName and doctor_first_name = :firstName""", nativeQuery = true)
+    String findPrescriptionsVersionByDoctorName(@Param("firstName") String firstName,
+                                                @Param("lastName") String lastName);
+
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = PRESCRIPTIONS_BY_STATUS_REGION)})
     List<Prescription> findByPrescriptionStatus(Status status);
-}
\ No newline at end of file
+
+    /**
+     * Reads the prescription from the database even when it is in the second-level cache, so that an update never
+     * starts from a copy that another instance has since changed
+     *
+     * @param id - the ID of the prescription
+     * @return - the prescription if available
+     */
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    Optional<Prescription> findUncachedById(Long id);
+
+    /**
+     * Reads the prescriptions with the specified IDs from the database even when they are in the second-level cache
+     *
+     * @param ids - the IDs of the prescriptions
+     * @return - the prescriptions that are available
+     */
+    @QueryHints(@QueryHint(name = SpecHints.HINT_SPEC_CACHE_RETRIEVE_MODE, value = "BYPASS"))
+    List<Prescription> findUncachedByIdIn(Collection<Long> ids);
+
+    /**
+     * Renames or redoses the prescription with the specified ID in a single statement, without reading it first.
+     * Null values leave their column unchanged, and the prescription is only updated, and its version only
+     * incremented, when at least one column changes
+     *
+     * @param id                 - the ID of the prescription
+     * @param prescriptionName   - the new name of the prescription, or null
+     * @param prescriptionDosage - the new dosage of the prescription, or null
+     * @param version            - the version the prescription must have, or null to update any version
+     * @return - the number of prescriptions updated, which is 0 if the prescription is missing, has another version
+     * or would not change
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("""
+            update Prescription p
+            set p.prescriptionName = coalesce(:prescriptionName, p.prescriptionName),
+                p.prescriptionDosage = coalesce(:prescriptionDosage, p.prescriptionDosage),
+                p.version = p.version + 1
+            where p.id = :id and (:version is null or p.version = :version)
+                and (coalesce(:prescriptionName, p.prescriptionName) <> p.prescriptionName
+                    or coalesce(:prescriptionDosage, p.prescriptionDosage) <> p.prescriptionDosage)""")
+    int updatePrescriptionInfo(@Param("id") Long id, @Param("prescriptionName") String prescriptionName,
+                               @Param("prescriptionDosage") Byte prescriptionDosage, @Param("version") Long version);
+}
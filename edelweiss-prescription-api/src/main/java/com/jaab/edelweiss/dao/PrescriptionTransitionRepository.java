@@ -0,0 +1,33 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.model.Prescription;
+import com.jaab.edelweiss.model.Status;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface PrescriptionTransitionRepository {
+
+    String PRESCRIPTIONS_BY_STATUS_REGION = "prescriptions-by-status";
+
+    /**
+     * Moves a PENDING prescription to the specified status and returns it in the same statement. Nothing is
+     * updated if the prescription is missing, is no longer PENDING or does not have the specified version
+     *
+     * @param id                 - the ID of the prescription
+     * @param prescriptionStatus - the new status of the prescription
+     * @param version            - the version the prescription must have, or null to update any version
+     * @return - the updated prescription if the transition took place
+     */
+    Optional<Prescription> transitionPendingPrescription(Long id, Status prescriptionStatus, Long version);
+
+    /**
+     * Moves a batch of PENDING prescriptions to their specified statuses in a single set-based statement and
+     * returns the prescriptions that were updated. Prescriptions that are missing or no longer PENDING are skipped
+     *
+     * @param prescriptionStatuses - the new status of each prescription, keyed by prescription ID
+     * @return - the updated prescriptions
+     */
+    List<Prescription> transitionPendingPrescriptions(Map<Long, Status> prescriptionStatuses);
+}
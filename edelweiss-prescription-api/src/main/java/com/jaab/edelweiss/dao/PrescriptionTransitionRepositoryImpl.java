@@ -0,0 +1,121 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.model.Prescription;
+import com.jaab.edelweiss.model.Status;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * This class moves prescriptions out of PENDING with a single UPDATE ... RETURNING statement, so that the status
+ * check, the update and the read of the updated prescriptions cost one round trip and two pharmacists can never
+ * both fill the same prescription. Batches are joined against unnested arrays of IDs and statuses, so their size
+ * does not change the statement. Since Hibernate does not see the statement as a write, the updated prescriptions
+ * and the prescriptions-by-status query region are evicted from the second-level cache afterwards, and again once
+ * the transaction has committed, since a concurrent read may have cached the old rows in the meantime
+ *
+ * @author Joseph Barr
+ */
+public class PrescriptionTransitionRepositoryImpl implements PrescriptionTransitionRepository {
+
+    private static final String TRANSITION_PENDING_PRESCRIPTION = """
+            update prescriptions
+            set prescription_status = :prescriptionStatus, version = version + 1
+            where prescription_id = :id and prescription_status = 'PENDING'
+            and (cast(:version as bigint) is null or version = cast(:version as bigint))
+            returning *""";
+
+    private static final String TRANSITION_PENDING_PRESCRIPTIONS = """
+            update prescriptions p
+            set prescription_status = batch.prescription_status, version = p.version + 1
+            from unnest(cast(:ids as bigint[]), cast(:prescriptionStatuses as varchar[]))
+                as batch(prescription_id, prescription_status)
+            where p.prescription_id = batch.prescription_id and p.prescription_status = 'PENDING'
+            returning p.*""";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional
+    public Optional<Prescription> transitionPendingPrescription(Long id, Status prescriptionStatus, Long version) {
+        List<?> prescriptions = entityManager
+                .createNativeQuery(TRANSITION_PENDING_PRESCRIPTION, Prescription.class)
+                .setParameter("id", id)
+                .setParameter("prescriptionStatus", prescriptionStatus.name())
+                .setParameter("version", version)
+                .getResultList();
+
+        if (prescriptions.isEmpty())
+            return Optional.empty();
+
+        evictFromSecondLevelCacheOnCommit(List.of(id));
+
+        return Optional.of((Prescription) prescriptions.get(0));
+    }
+
+    @Override
+    @Transactional
+    public List<Prescription> transitionPendingPrescriptions(Map<Long, Status> prescriptionStatuses) {
+        if (prescriptionStatuses.isEmpty())
+            return List.of();
+
+        List<Prescription> prescriptions = entityManager
+                .createNativeQuery(TRANSITION_PENDING_PRESCRIPTIONS, Prescription.class)
+                .setParameter("ids", prescriptionStatuses.keySet().toArray(Long[]::new))
+                .setParameter("prescriptionStatuses", prescriptionStatuses.values().stream()
+                        .map(Status::name)
+                        .toArray(String[]::new))
+                .getResultList()
+                .stream()
+                .map(Prescription.class::cast)
+                .toList();
+
+        if (!prescriptions.isEmpty())
+            evictFromSecondLevelCacheOnCommit(prescriptions.stream().map(Prescription::getId).toList());
+
+        return prescriptions;
+    }
+
+    /**
+     * Evicts updated prescriptions and the prescriptions-by-status query region from the second-level cache now,
+     * so the rest of the transaction does not read them from it, and again after the transaction commits, so
+     * that nothing cached from the old rows before the commit outlives it
+     *
+     * @param ids - the IDs of the updated prescriptions
+     */
+    private void evictFromSecondLevelCacheOnCommit(List<Long> ids) {
+        evictFromSecondLevelCache(ids);
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive())
+            return;
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                evictFromSecondLevelCache(ids);
+            }
+        });
+    }
+
+    /**
+     * Evicts updated prescriptions and the prescriptions-by-status query region from the second-level cache
+     *
+     * @param ids - the IDs of the updated prescriptions
+     */
+    private void evictFromSecondLevelCache(List<Long> ids) {
+        Cache cache = entityManager.getEntityManagerFactory().getCache();
+
+        ids.forEach(id -> cache.evict(Prescription.class, id));
+        entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+                .evictQueryRegion(PRESCRIPTIONS_BY_STATUS_REGION);
+    }
+}
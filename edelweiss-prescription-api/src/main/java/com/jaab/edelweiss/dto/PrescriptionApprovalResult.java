@@ -0,0 +1,14 @@
+package com.jaab.edelweiss.dto;
+
+import com.jaab.edelweiss.model.Status;
+
+public record PrescriptionApprovalResult(Long prescriptionId, Status prescriptionStatus, String error) {
+
+    public static PrescriptionApprovalResult approved(Long prescriptionId, Status prescriptionStatus) {
+        return new PrescriptionApprovalResult(prescriptionId, prescriptionStatus, null);
+    }
+
+    public static PrescriptionApprovalResult failed(Long prescriptionId, String error) {
+        return new PrescriptionApprovalResult(prescriptionId, null, error);
+    }
+}
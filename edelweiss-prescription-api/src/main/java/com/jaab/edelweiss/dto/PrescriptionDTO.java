@@ -5,11 +5,11 @@ import com.jaab.edelweiss.model.Status;
 
 
 public record PrescriptionDTO(Long id, String doctorFirstName, String doctorLastName, String prescriptionName,
-                              Byte prescriptionDosage, Status prescriptionStatus) {
+                              Byte prescriptionDosage, Status prescriptionStatus, Long version) {
 
     public PrescriptionDTO(Prescription prescription) {
         this(prescription.getId(), prescription.getDoctorFirstName(), prescription.getDoctorLastName(),
                 prescription.getPrescriptionName(), prescription.getPrescriptionDosage(),
-                prescription.getPrescriptionStatus());
+                prescription.getPrescriptionStatus(), prescription.getVersion());
     }
 }
@@ -0,0 +1,15 @@
+package com.jaab.edelweiss.dto;
+
+import com.jaab.edelweiss.model.OutboxEvent;
+import com.jaab.edelweiss.model.PrescriptionEventType;
+
+import java.time.Instant;
+
+public record PrescriptionEventDTO(Long eventId, PrescriptionEventType eventType, Long prescriptionId,
+                                   String payload, Instant createdAt) {
+
+    public PrescriptionEventDTO(OutboxEvent outboxEvent) {
+        this(outboxEvent.getId(), outboxEvent.getEventType(), outboxEvent.getPrescriptionId(),
+                outboxEvent.getPayload(), outboxEvent.getCreatedAt());
+    }
+}
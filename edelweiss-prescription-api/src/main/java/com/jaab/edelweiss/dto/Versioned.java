@@ -0,0 +1,4 @@
+package com.jaab.edelweiss.dto;
+
+public record Versioned<T>(T body, String version) {
+}
@@ -0,0 +1,36 @@
+package com.jaab.edelweiss.event;
+
+import com.jaab.edelweiss.dto.PrescriptionEventDTO;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+
+/**
+ * This class is an embedded broker that delivers prescription events to subscribers in the same JVM. It is the
+ * default broker, used for development and tests
+ *
+ * @author Joseph Barr
+ */
+@Component
+@ConditionalOnProperty(name = "edelweiss.outbox.broker", havingValue = "in-process", matchIfMissing = true)
+public class InProcessOutboxPublisher implements OutboxPublisher {
+
+    private final Sinks.Many<PrescriptionEventDTO> events = Sinks.many().multicast().directBestEffort();
+
+    @Override
+    public void publish(PrescriptionEventDTO event) {
+        events.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    /**
+     * Subscribes to the prescription events published from now on
+     *
+     * @return - the stream of prescription events
+     */
+    public Flux<PrescriptionEventDTO> events() {
+        return events.asFlux();
+    }
+}
@@ -0,0 +1,20 @@
+package com.jaab.edelweiss.event;
+
+import com.jaab.edelweiss.dto.PrescriptionEventDTO;
+
+/**
+ * This interface is the broker the outbox relay hands prescription events to. Implementations are selected with the
+ * edelweiss.outbox.broker property
+ *
+ * @author Joseph Barr
+ */
+public interface OutboxPublisher {
+
+    /**
+     * Publishes a prescription event to the broker. The event only counts as delivered if this method returns
+     * normally, so implementations must throw if the broker did not accept it
+     *
+     * @param event - the PrescriptionEventDTO object
+     */
+    void publish(PrescriptionEventDTO event);
+}
@@ -0,0 +1,14 @@
+package com.jaab.edelweiss.event;
+
+import com.jaab.edelweiss.dto.PrescriptionDTO;
+import com.jaab.edelweiss.model.PrescriptionEventType;
+
+/**
+ * This record is the application event published whenever a prescription is created, updated, approved or deleted
+ *
+ * @param prescription - the prescription after the change
+ * @param eventType    - the kind of change
+ * @author Joseph Barr
+ */
+public record PrescriptionChangedEvent(PrescriptionDTO prescription, PrescriptionEventType eventType) {
+}
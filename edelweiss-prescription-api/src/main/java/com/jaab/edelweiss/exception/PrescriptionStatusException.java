@@ -0,0 +1,11 @@
+package com.jaab.edelweiss.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(value = HttpStatus.BAD_REQUEST)
+public class PrescriptionStatusException extends RuntimeException {
+    public PrescriptionStatusException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,39 @@
+package com.jaab.edelweiss.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "prescription_outbox")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "event_id", nullable = false, updatable = false, unique = true)
+    private Long id;
+
+    @Column(name = "event_type", nullable = false, updatable = false, length = 20)
+    @Enumerated(EnumType.STRING)
+    private PrescriptionEventType eventType;
+
+    @Column(name = "prescription_id", nullable = false, updatable = false)
+    private Long prescriptionId;
+
+    @Column(name = "payload", nullable = false, updatable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "published_at")
+    private Instant publishedAt;
+}
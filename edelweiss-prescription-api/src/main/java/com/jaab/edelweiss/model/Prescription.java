@@ -5,9 +5,13 @@ import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
 @Table(name = "prescriptions")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "prescriptions")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -15,7 +19,9 @@ import lombok.Setter;
 public class Prescription {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "prescriptions_prescription_id_seq")
+    @SequenceGenerator(name = "prescriptions_prescription_id_seq", sequenceName = "prescriptions_prescription_id_seq",
+            allocationSize = 50)
     @Column(name = "prescription_id", nullable = false, updatable = false, unique = true)
     private Long id;
 
@@ -34,4 +40,8 @@ public class Prescription {
     @Column(name = "prescription_status", nullable = false, length = 8)
     @Enumerated(EnumType.STRING)
     private Status prescriptionStatus;
+
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 }
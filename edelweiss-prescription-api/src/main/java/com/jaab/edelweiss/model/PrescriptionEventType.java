@@ -0,0 +1,5 @@
+package com.jaab.edelweiss.model;
+
+public enum PrescriptionEventType {
+    CREATED, UPDATED, STATUS_CHANGED, DELETED
+}
@@ -0,0 +1,74 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.dao.OutboxEventRepository;
+import com.jaab.edelweiss.dto.PrescriptionEventDTO;
+import com.jaab.edelweiss.event.OutboxPublisher;
+import com.jaab.edelweiss.model.OutboxEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * This class is a service that relays the events recorded in the outbox table to the broker, oldest first. Delivery
+ * is at least once: an event is marked published only after the broker accepts it, so consumers must ignore event
+ * IDs they have already seen
+ *
+ * @author Joseph Barr
+ */
+@Service
+@Slf4j
+public class OutboxRelay {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final OutboxPublisher outboxPublisher;
+
+    private final int batchSize;
+
+    private final Duration retention;
+
+    public OutboxRelay(OutboxEventRepository outboxEventRepository, OutboxPublisher outboxPublisher,
+                       @Value("${edelweiss.outbox.batch-size:100}") int batchSize,
+                       @Value("${edelweiss.outbox.retention:7d}") Duration retention) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.outboxPublisher = outboxPublisher;
+        this.batchSize = batchSize;
+        this.retention = retention;
+    }
+
+    /**
+     * Publishes the next batch of unpublished events and marks them published. If the broker rejects an event, the
+     * batch stops there and the remaining events are retried on the next run
+     */
+    @Scheduled(fixedDelayString = "${edelweiss.outbox.poll-interval-ms:500}")
+    @Transactional
+    public void relayEvents() {
+        List<OutboxEvent> outboxEvents = outboxEventRepository.lockUnpublishedEvents(batchSize);
+
+        for (OutboxEvent outboxEvent : outboxEvents) {
+            try {
+                outboxPublisher.publish(new PrescriptionEventDTO(outboxEvent));
+            } catch (RuntimeException e) {
+                log.warn("Failed to publish prescription event {}; retrying on the next run", outboxEvent.getId(), e);
+                return;
+            }
+
+            outboxEvent.setPublishedAt(Instant.now());
+        }
+    }
+
+    /**
+     * Deletes the events that were published longer ago than the retention period
+     */
+    @Scheduled(cron = "${edelweiss.outbox.cleanup-cron:0 0 3 * * *}")
+    @Transactional
+    public void deletePublishedEvents() {
+        outboxEventRepository.deletePublishedBefore(Instant.now().minus(retention));
+    }
+}
@@ -0,0 +1,111 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.dto.PrescriptionDTO;
+import com.jaab.edelweiss.event.PrescriptionChangedEvent;
+import com.jaab.edelweiss.model.PrescriptionEventType;
+import com.jaab.edelweiss.model.Status;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.time.Duration;
+
+/**
+ * This class is a service that streams the PENDING prescriptions to the pharmacy API. Each subscriber receives the
+ * current PENDING prescriptions once, followed by only the changes to them as they happen
+ *
+ * @author Joseph Barr
+ */
+@Service
+public class PendingPrescriptionFeed {
+
+    public static final String PENDING_EVENT = "pending";
+
+    public static final String REMOVED_EVENT = "removed";
+
+    private final Sinks.Many<ServerSentEvent<PrescriptionDTO>> changes =
+            Sinks.many().multicast().directBestEffort();
+
+    private final PrescriptionService prescriptionService;
+
+    private final Duration heartbeat;
+
+    private final int bufferSize;
+
+    public PendingPrescriptionFeed(PrescriptionService prescriptionService,
+                                   @Value("${edelweiss.pending-feed.heartbeat:15s}") Duration heartbeat,
+                                   @Value("${edelweiss.pending-feed.buffer-size:256}") int bufferSize) {
+        this.prescriptionService = prescriptionService;
+        this.heartbeat = heartbeat;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * Streams the PENDING prescriptions as server-sent events. A "pending" event carries a prescription that is
+     * new or was updated while PENDING, and a "removed" event carries one that was approved, denied or deleted.
+     * Changes made while the snapshot is being read are buffered and sent after it. A subscriber that falls more
+     * than the buffer size behind has its stream completed so that it reconnects and starts from a new snapshot
+     *
+     * @return - the stream of pending prescription events
+     */
+    public Flux<ServerSentEvent<PrescriptionDTO>> streamPendingPrescriptions() {
+        return Flux.defer(() -> {
+            Sinks.Many<ServerSentEvent<PrescriptionDTO>> buffer = Sinks.many().unicast()
+                    .onBackpressureBuffer(Queues.<ServerSentEvent<PrescriptionDTO>>get(bufferSize).get());
+
+            Sinks.Empty<Void> fellBehind = Sinks.empty();
+
+            Disposable subscription = changes.asFlux().subscribe(event -> {
+                if (buffer.tryEmitNext(event).isFailure())
+                    fellBehind.tryEmitEmpty();
+            });
+
+            Flux<ServerSentEvent<PrescriptionDTO>> snapshot = Flux
+                    .fromIterable(prescriptionService.getPrescriptionsByPrescriptionStatus(Status.PENDING))
+                    .map(prescription -> toEvent(PENDING_EVENT, prescription));
+
+            Flux<ServerSentEvent<PrescriptionDTO>> heartbeats = Flux.interval(heartbeat)
+                    .map(tick -> ServerSentEvent.<PrescriptionDTO>builder().comment("heartbeat").build());
+
+            return Flux.concat(snapshot, Flux.merge(buffer.asFlux(), heartbeats))
+                    .takeUntilOther(fellBehind.asMono())
+                    .doFinally(signal -> subscription.dispose());
+        });
+    }
+
+    /**
+     * Pushes a prescription change to every subscriber once the transaction that made it has committed
+     *
+     * @param event - the PrescriptionChangedEvent object
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onPrescriptionChanged(PrescriptionChangedEvent event) {
+        PrescriptionDTO prescription = event.prescription();
+        boolean pending = prescription.prescriptionStatus() == Status.PENDING;
+        boolean deleted = event.eventType() == PrescriptionEventType.DELETED;
+
+        if (deleted && !pending)
+            return;
+
+        changes.emitNext(toEvent(pending && !deleted ? PENDING_EVENT : REMOVED_EVENT, prescription),
+                Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        changes.tryEmitComplete();
+    }
+
+    private ServerSentEvent<PrescriptionDTO> toEvent(String name, PrescriptionDTO prescription) {
+        return ServerSentEvent.<PrescriptionDTO>builder()
+                .event(name)
+                .data(prescription)
+                .build();
+    }
+}
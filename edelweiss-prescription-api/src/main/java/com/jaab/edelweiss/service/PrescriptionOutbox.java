@@ -0,0 +1,54 @@
+package com.jaab.edelweiss.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jaab.edelweiss.dao.OutboxEventRepository;
+import com.jaab.edelweiss.event.PrescriptionChangedEvent;
+import com.jaab.edelweiss.model.OutboxEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+/**
+ * This class is a service that records every prescription change in the outbox table, in the same transaction as
+ * the change itself, so that an event is stored if and only if the change is committed
+ *
+ * @author Joseph Barr
+ */
+@Service
+public class PrescriptionOutbox {
+
+    private final OutboxEventRepository outboxEventRepository;
+
+    private final ObjectMapper objectMapper;
+
+    public PrescriptionOutbox(OutboxEventRepository outboxEventRepository, ObjectMapper objectMapper) {
+        this.outboxEventRepository = outboxEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Saves the prescription change to the outbox table. Must be called within the transaction that made the change
+     *
+     * @param event - the PrescriptionChangedEvent object
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordChange(PrescriptionChangedEvent event) {
+        OutboxEvent outboxEvent = new OutboxEvent(null, event.eventType(), event.prescription().id(),
+                toJson(event), Instant.now(), null);
+
+        outboxEventRepository.save(outboxEvent);
+    }
+
+    private String toJson(PrescriptionChangedEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event.prescription());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
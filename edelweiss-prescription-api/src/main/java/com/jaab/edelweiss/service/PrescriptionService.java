@@ -1,24 +1,49 @@
 package com.jaab.edelweiss.service;
 
 import com.jaab.edelweiss.dao.PrescriptionRepository;
+import com.jaab.edelweiss.dto.PrescriptionApprovalDTO;
+import com.jaab.edelweiss.dto.PrescriptionApprovalResult;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
 import com.jaab.edelweiss.dto.UpdatePrescriptionDTO;
+import com.jaab.edelweiss.dto.Versioned;
+import com.jaab.edelweiss.event.PrescriptionChangedEvent;
+import com.jaab.edelweiss.exception.PrescriptionModifiedException;
 import com.jaab.edelweiss.exception.PrescriptionNotFoundException;
+import com.jaab.edelweiss.exception.PrescriptionStatusConflictException;
+import com.jaab.edelweiss.exception.PrescriptionStatusException;
 import com.jaab.edelweiss.model.Prescription;
+import com.jaab.edelweiss.model.PrescriptionEventType;
 import com.jaab.edelweiss.model.Status;
 import org.springframework.beans.BeanUtils;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.DigestUtils;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 @Service
 public class PrescriptionService {
 
+    public static final int MAX_BATCH_APPROVALS = 1000;
+
     private final PrescriptionRepository prescriptionRepository;
 
-    public PrescriptionService(PrescriptionRepository prescriptionRepository) {
+    private final ApplicationEventPublisher eventPublisher;
+
+    public PrescriptionService(PrescriptionRepository prescriptionRepository,
+                               ApplicationEventPublisher eventPublisher) {
         this.prescriptionRepository = prescriptionRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -27,25 +52,41 @@ public class PrescriptionService {
      * @param prescriptionDTO - the PrescriptionDTO object from the doctor API
      * @return - the prescription data
      */
+    @Transactional
     public PrescriptionDTO createPrescription(PrescriptionDTO prescriptionDTO) {
         Prescription prescription = new Prescription();
-        BeanUtils.copyProperties(prescriptionDTO, prescription);
+        BeanUtils.copyProperties(prescriptionDTO, prescription, "version");
         prescription.setPrescriptionStatus(Status.PENDING);
 
         prescriptionRepository.save(prescription);
 
-        return new PrescriptionDTO(prescription);
+        return publishChange(prescription, PrescriptionEventType.CREATED);
+    }
+
+    /**
+     * Retrieves a list of prescriptions from the prescription database based on the doctor's name, along with
+     * the version of the list
+     *
+     * @param firstName - the first name of the doctor
+     * @param lastName  - the last name of the doctor
+     * @return - the list of prescriptions matching the criteria and its version
+     */
+    public Versioned<List<PrescriptionDTO>> getPrescriptionsByDoctorName(String firstName, String lastName) {
+        List<Prescription> prescriptions =
+                prescriptionRepository.findByDoctorFirstNameAndDoctorLastName(firstName, lastName);
+
+        return new Versioned<>(getPrescriptions(prescriptions), getPrescriptionsVersion(prescriptions));
     }
 
     /**
-     * Retrieves a list of prescriptions from the prescription database based on the doctor's name
+     * Retrieves only the version of a doctor's prescription list, which is the list's ETag
      *
      * @param firstName - the first name of the doctor
      * @param lastName  - the last name of the doctor
-     * @return - the list of prescriptions matching the criteria
+     * @return - the version of the doctor's prescription list
      */
-    public List<PrescriptionDTO> getPrescriptionsByDoctorName(String firstName, String lastName) {
-        return getPrescriptions(prescriptionRepository.findByDoctorFirstNameAndDoctorLastName(firstName, lastName));
+    public String getPrescriptionsVersionByDoctorName(String firstName, String lastName) {
+        return prescriptionRepository.findPrescriptionsVersionByDoctorName(firstName, lastName);
     }
 
     /**
@@ -59,45 +100,101 @@ public class PrescriptionService {
     }
 
     /**
-     * Updates the prescription with the specified ID and merges it to the prescription database
+     * Updates the prescription with the specified ID in a single conditional statement, so that concurrent updates
+     * cannot overwrite each other, and retrieves the updated prescription. An update that changes nothing keeps
+     * the current version
      *
      * @param prescriptionDTO - the UpdatePrescriptionDTO object from the doctor API
      * @param prescriptionId  - the ID of the prescription
-     * @return - the updated prescription
+     * @param version         - the version the prescription must have, or null to update any version
+     * @return - the updated prescription and its new version
      * @throws PrescriptionNotFoundException if the prescription with the specified ID is not found
+     * @throws PrescriptionModifiedException if the prescription does not have the specified version
      */
-    public PrescriptionDTO updatePrescriptionInfo(UpdatePrescriptionDTO prescriptionDTO,
-                                                  Long prescriptionId) {
-        Prescription prescription = getPrescriptionById(prescriptionId);
-
-        if (prescriptionDTO.prescriptionName() != null)
-            prescription.setPrescriptionName(prescriptionDTO.prescriptionName());
-
-        if (prescriptionDTO.prescriptionDosage() != null)
-            prescription.setPrescriptionDosage(prescriptionDTO.prescriptionDosage());
-
-        prescriptionRepository.save(prescription);
+    @Transactional
+    public Versioned<PrescriptionDTO> updatePrescriptionInfo(UpdatePrescriptionDTO prescriptionDTO,
+                                                             Long prescriptionId, Long version)
+            throws PrescriptionNotFoundException, PrescriptionModifiedException {
+        int updated = prescriptionRepository.updatePrescriptionInfo(prescriptionId,
+                prescriptionDTO.prescriptionName(), prescriptionDTO.prescriptionDosage(), version);
 
-        return new PrescriptionDTO(prescription);
+        return getUpdatedPrescription(updated, prescriptionId, version, PrescriptionEventType.UPDATED);
     }
 
     /**
      * Sets an APPROVED or DENIED status to a PENDING prescription based on a PrescriptionStatusDTO object
-     * from the pharmacy API and merges it to the prescription database
+     * from the pharmacy API. The status check and the update are a single statement, so when several pharmacists
+     * approve the same prescription at once, only the first succeeds
      *
      * @param status         - the PrescriptionStatusDTO object containing the new status
      * @param prescriptionId - the ID of the prescription
-     * @return - the PrescriptionDTO object containing the updated status
-     * @throws PrescriptionNotFoundException if the prescription with the specified ID is not found
+     * @param version        - the version the prescription must have, or null to update any version
+     * @return - the PrescriptionDTO object containing the updated status and its new version
+     * @throws PrescriptionStatusException         if the new status is not APPROVED or DENIED
+     * @throws PrescriptionNotFoundException       if the prescription with the specified ID is not found
+     * @throws PrescriptionStatusConflictException if the prescription has already been approved or denied
+     * @throws PrescriptionModifiedException       if the prescription does not have the specified version
      */
-    public PrescriptionDTO approvePrescription(PrescriptionStatusDTO status, Long prescriptionId)
-            throws PrescriptionNotFoundException {
-        Prescription prescription = getPrescriptionById(prescriptionId);
-        prescription.setPrescriptionStatus(status.prescriptionStatus());
+    @Transactional
+    public Versioned<PrescriptionDTO> approvePrescription(PrescriptionStatusDTO status, Long prescriptionId,
+                                                          Long version)
+            throws PrescriptionStatusException, PrescriptionNotFoundException, PrescriptionStatusConflictException,
+            PrescriptionModifiedException {
+        if (status.prescriptionStatus() == null || status.prescriptionStatus() == Status.PENDING)
+            throw new PrescriptionStatusException("Prescription must be approved or denied.");
 
-        prescriptionRepository.save(prescription);
+        Prescription prescription = prescriptionRepository
+                .transitionPendingPrescription(prescriptionId, status.prescriptionStatus(), version)
+                .orElseThrow(() -> getTransitionFailure(prescriptionId));
+
+        return new Versioned<>(publishChange(prescription, PrescriptionEventType.STATUS_CHANGED),
+                String.valueOf(prescription.getVersion()));
+    }
+
+    /**
+     * Sets an APPROVED or DENIED status to a batch of PENDING prescriptions based on PrescriptionApprovalDTO objects
+     * from the pharmacy API. All valid approvals are made in a single set-based statement, and the outcome of each
+     * approval is reported in the order of the batch
+     *
+     * @param approvals - the PrescriptionApprovalDTO objects containing the IDs and new statuses
+     * @return - the outcome of each approval
+     * @throws PrescriptionStatusException if the batch has more than MAX_BATCH_APPROVALS approvals
+     */
+    @Transactional
+    public List<PrescriptionApprovalResult> approvePrescriptions(List<PrescriptionApprovalDTO> approvals)
+            throws PrescriptionStatusException {
+        if (approvals.size() > MAX_BATCH_APPROVALS)
+            throw new PrescriptionStatusException("At most " + MAX_BATCH_APPROVALS +
+                    " prescriptions can be approved or denied at once.");
+
+        Map<Long, Status> prescriptionStatuses = new LinkedHashMap<>();
+        Map<Integer, String> errors = new HashMap<>();
+
+        for (int i = 0; i < approvals.size(); i++) {
+            PrescriptionApprovalDTO approval = approvals.get(i);
+
+            if (approval.prescriptionId() == null)
+                errors.put(i, "prescriptionId is required.");
+            else if (approval.prescriptionStatus() == null || approval.prescriptionStatus() == Status.PENDING)
+                errors.put(i, "Prescription must be approved or denied.");
+            else if (prescriptionStatuses.putIfAbsent(approval.prescriptionId(), approval.prescriptionStatus()) != null)
+                errors.put(i, "The prescription appears more than once in the batch.");
+        }
+
+        Map<Long, Prescription> updated = prescriptionRepository
+                .transitionPendingPrescriptions(prescriptionStatuses).stream()
+                .collect(Collectors.toMap(Prescription::getId, Function.identity()));
+
+        Map<Long, Status> skipped = prescriptionRepository.findUncachedByIdIn(prescriptionStatuses.keySet().stream()
+                        .filter(prescriptionId -> !updated.containsKey(prescriptionId))
+                        .toList()).stream()
+                .collect(Collectors.toMap(Prescription::getId, Prescription::getPrescriptionStatus));
 
-        return new PrescriptionDTO(prescription);
+        updated.values().forEach(prescription -> publishChange(prescription, PrescriptionEventType.STATUS_CHANGED));
+
+        return IntStream.range(0, approvals.size())
+                .mapToObj(i -> getApprovalResult(approvals.get(i).prescriptionId(), errors.get(i), updated, skipped))
+                .toList();
     }
 
     /**
@@ -106,24 +203,129 @@ public class PrescriptionService {
      * @param prescriptionId - the ID of the prescription
      * @throws PrescriptionNotFoundException if the prescription with the specified ID is not found
      */
+    @Transactional
     public void deletePrescription(Long prescriptionId) throws PrescriptionNotFoundException {
         Prescription prescription = getPrescriptionById(prescriptionId);
 
         prescriptionRepository.deleteById(prescription.getId());
+
+        publishChange(prescription, PrescriptionEventType.DELETED);
     }
 
     /**
-     * Retrieves a prescription from the prescription database based on their ID
+     * Retrieves a prescription from the prescription database based on their ID, bypassing the second-level cache
      *
      * @param prescriptionId - the ID of the prescription
      * @return - the prescription if available
      * @throws PrescriptionNotFoundException if the prescription with the specified ID is not found
      */
     private Prescription getPrescriptionById(Long prescriptionId) throws PrescriptionNotFoundException {
-        return prescriptionRepository.findById(prescriptionId)
+        return prescriptionRepository.findUncachedById(prescriptionId)
                 .orElseThrow(()-> new PrescriptionNotFoundException("No prescription with the specified ID found."));
     }
 
+    /**
+     * Retrieves the prescription changed by a conditional update and publishes the change. When nothing was
+     * updated, the prescription is either missing, has another version or already had the new values, in which
+     * case it is returned unchanged with its current version
+     *
+     * @param updated        - the number of prescriptions updated
+     * @param prescriptionId - the ID of the prescription
+     * @param version        - the version the prescription must have, or null to update any version
+     * @param eventType      - the kind of change
+     * @return - the updated prescription and its new version
+     * @throws PrescriptionNotFoundException if the prescription with the specified ID is not found
+     * @throws PrescriptionModifiedException if the prescription was not updated because of its version
+     */
+    private Versioned<PrescriptionDTO> getUpdatedPrescription(int updated, Long prescriptionId, Long version,
+                                                              PrescriptionEventType eventType)
+            throws PrescriptionNotFoundException, PrescriptionModifiedException {
+        Prescription prescription = getPrescriptionById(prescriptionId);
+
+        if (updated == 0) {
+            if (version != null && !version.equals(prescription.getVersion()))
+                throw new PrescriptionModifiedException("The prescription has been modified since it was retrieved.");
+
+            return new Versioned<>(new PrescriptionDTO(prescription), String.valueOf(prescription.getVersion()));
+        }
+
+        return new Versioned<>(publishChange(prescription, eventType), String.valueOf(prescription.getVersion()));
+    }
+
+    /**
+     * Works out why a PENDING prescription could not be approved or denied
+     *
+     * @param prescriptionId - the ID of the prescription
+     * @return - the exception describing the failure
+     * @throws PrescriptionNotFoundException if the prescription with the specified ID is not found
+     */
+    private RuntimeException getTransitionFailure(Long prescriptionId) throws PrescriptionNotFoundException {
+        Prescription prescription = getPrescriptionById(prescriptionId);
+
+        if (prescription.getPrescriptionStatus() != Status.PENDING)
+            return new PrescriptionStatusConflictException("The prescription has already been " +
+                    prescription.getPrescriptionStatus().name().toLowerCase() + ".");
+
+        return new PrescriptionModifiedException("The prescription has been modified since it was retrieved.");
+    }
+
+    /**
+     * Reports the outcome of one approval of a batch
+     *
+     * @param prescriptionId - the ID of the prescription
+     * @param error          - the reason the approval was rejected before the update, or null
+     * @param updated        - the updated prescriptions, keyed by ID
+     * @param skipped        - the current status of the prescriptions that were not updated, keyed by ID
+     * @return - the outcome of the approval
+     */
+    private PrescriptionApprovalResult getApprovalResult(Long prescriptionId, String error,
+                                                         Map<Long, Prescription> updated, Map<Long, Status> skipped) {
+        if (error != null)
+            return PrescriptionApprovalResult.failed(prescriptionId, error);
+
+        if (updated.containsKey(prescriptionId))
+            return PrescriptionApprovalResult.approved(prescriptionId,
+                    updated.get(prescriptionId).getPrescriptionStatus());
+
+        if (skipped.containsKey(prescriptionId))
+            return PrescriptionApprovalResult.failed(prescriptionId, "The prescription has already been " +
+                    skipped.get(prescriptionId).name().toLowerCase() + ".");
+
+        return PrescriptionApprovalResult.failed(prescriptionId, "No prescription with the specified ID found.");
+    }
+
+    /**
+     * Publishes a PrescriptionChangedEvent for the specified prescription so that listeners such as the outbox and
+     * the pending prescription feed are notified of the change
+     *
+     * @param prescription - the changed prescription
+     * @param eventType    - the kind of change
+     * @return - the PrescriptionDTO object of the changed prescription
+     */
+    private PrescriptionDTO publishChange(Prescription prescription, PrescriptionEventType eventType) {
+        PrescriptionDTO prescriptionDTO = new PrescriptionDTO(prescription);
+
+        eventPublisher.publishEvent(new PrescriptionChangedEvent(prescriptionDTO, eventType));
+
+        return prescriptionDTO;
+    }
+
+    /**
+     * Hashes the IDs and versions of the prescriptions the same way as
+     * PrescriptionRepository.findPrescriptionsVersionByDoctorName
+     *
+     * @param prescriptions - the prescriptions
+     * @return - the version of the prescription list
+     */
+    private String getPrescriptionsVersion(List<Prescription> prescriptions) {
+        String versions = prescriptions.stream()
+                .sorted(Comparator.comparing(Prescription::getId))
+                .map(prescription -> prescription.getId() + ":" + prescription.getVersion())
+                .collect(Collectors.joining(","));
+
+        return DigestUtils.md5DigestAsHex(versions.getBytes(StandardCharsets.UTF_8));
+    }
+
     private List<PrescriptionDTO> getPrescriptions(List<Prescription> prescriptionList) {
         return prescriptionList.stream()
                 .map(PrescriptionDTO::new)
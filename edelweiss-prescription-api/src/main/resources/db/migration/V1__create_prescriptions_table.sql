@@ -0,0 +1,17 @@
+create table if not exists prescriptions (
+    prescription_id bigserial primary key,
+    doctor_first_name VARCHAR(20) not null,
+    doctor_last_name VARCHAR(30) not null,
+    prescription_name VARCHAR(20) not null,
+    prescription_dosage SMALLINT not null,
+    prescription_status VARCHAR(8) not null
+);
+
+-- Databases created from sql/tables.sql have an integer prescription_id, while the entity maps it as a Long
+alter table prescriptions alter column prescription_id type bigint;
+
+do $$
+begin
+    execute format('alter sequence %s as bigint', pg_get_serial_sequence('prescriptions', 'prescription_id'));
+end
+$$;
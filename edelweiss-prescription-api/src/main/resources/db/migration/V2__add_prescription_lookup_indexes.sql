@@ -0,0 +1,9 @@
+-- Serves "my prescriptions": findByDoctorFirstNameAndDoctorLastName
+create index if not exists idx_prescriptions_doctor_name
+    on prescriptions (doctor_last_name, doctor_first_name);
+
+-- Serves the pharmacy's pending prescriptions poll. Pending prescriptions are a small share of the table,
+-- so only they are indexed
+create index if not exists idx_prescriptions_pending
+    on prescriptions (prescription_id)
+    where prescription_status = 'PENDING';
@@ -0,0 +1,15 @@
+-- Prescription changes waiting to be relayed to the event broker. Rows are written in the same transaction as
+-- the change itself and marked published by the outbox relay
+create table if not exists prescription_outbox (
+    event_id bigserial primary key,
+    event_type VARCHAR(20) not null,
+    prescription_id bigint not null,
+    payload text not null,
+    created_at timestamptz not null default now(),
+    published_at timestamptz
+);
+
+-- The relay only ever reads unpublished rows, oldest first
+create index if not exists idx_prescription_outbox_unpublished
+    on prescription_outbox (event_id)
+    where published_at is null;
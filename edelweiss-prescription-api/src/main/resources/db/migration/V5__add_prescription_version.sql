@@ -0,0 +1,4 @@
+-- The version of each prescription row, bumped by Hibernate on every update. The versions of a doctor's
+-- prescriptions are hashed into the ETag of "my prescriptions", so a conditional read can be answered from
+-- idx_prescriptions_doctor_name and this column without loading the prescriptions
+alter table prescriptions add column version bigint not null default 0;
@@ -0,0 +1,83 @@
+package com.jaab.edelweiss.controller;
+
+import com.jaab.edelweiss.dto.PrescriptionDTO;
+import com.jaab.edelweiss.dto.UpdatePrescriptionDTO;
+import com.jaab.edelweiss.service.PrescriptionService;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import java.util.List;
+import java.util.Objects;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+@SpringBootTest(properties = "edelweiss.outbox.poll-interval-ms=3600000")
+@AutoConfigureMockMvc
+@Transactional
+public class PrescriptionConditionalUpdateTest {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Test
+    public void updatePrescriptionInfoWithReadVersionTest() {
+        PrescriptionDTO elixir = prescriptionService.createPrescription(new PrescriptionDTO(null, "Quistis",
+                "Trepe", "Elixir", (byte) 5, null, null));
+
+        List<PrescriptionDTO> prescriptions = webTestClient.get()
+                .uri("/physician/myPrescriptions/Quistis/Trepe")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PrescriptionDTO.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertNotNull(prescriptions);
+
+        Long version = prescriptions.stream()
+                .filter(p -> Objects.equals(p.id(), elixir.id()))
+                .findFirst()
+                .map(PrescriptionDTO::version)
+                .orElseThrow();
+
+        webTestClient.patch()
+                .uri("/physician/updatePrescriptionInfo/" + elixir.id())
+                .header(HttpHeaders.IF_MATCH, ETags.of(version))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UpdatePrescriptionDTO(elixir.id(), "Megalixir", (byte) 10))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETags.of(version + 1))
+                .expectBody()
+                .jsonPath("$.prescriptionName").isEqualTo("Megalixir")
+                .jsonPath("$.version").isEqualTo(version + 1);
+
+        webTestClient.patch()
+                .uri("/physician/updatePrescriptionInfo/" + elixir.id())
+                .header(HttpHeaders.IF_MATCH, ETags.of(version + 1))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UpdatePrescriptionDTO(elixir.id(), "Megalixir", (byte) 10))
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, ETags.of(version + 1))
+                .expectBody()
+                .jsonPath("$.version").isEqualTo(version + 1);
+
+        webTestClient.patch()
+                .uri("/physician/updatePrescriptionInfo/" + elixir.id())
+                .header(HttpHeaders.IF_MATCH, ETags.of(version))
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UpdatePrescriptionDTO(elixir.id(), "Elixir", (byte) 5))
+                .exchange()
+                .expectStatus().isEqualTo(412);
+    }
+}
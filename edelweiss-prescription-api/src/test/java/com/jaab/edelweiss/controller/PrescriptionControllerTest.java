@@ -1,22 +1,34 @@
 package com.jaab.edelweiss.controller;
 
+import com.jaab.edelweiss.dto.PrescriptionApprovalDTO;
+import com.jaab.edelweiss.dto.PrescriptionApprovalResult;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
 import com.jaab.edelweiss.dto.UpdatePrescriptionDTO;
+import com.jaab.edelweiss.dto.Versioned;
+import com.jaab.edelweiss.exception.PrescriptionModifiedException;
+import com.jaab.edelweiss.exception.PrescriptionStatusConflictException;
 import com.jaab.edelweiss.model.Status;
+import com.jaab.edelweiss.service.PendingPrescriptionFeed;
 import com.jaab.edelweiss.service.PrescriptionService;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.boot.test.autoconfigure.web.reactive.WebFluxTest;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.reactive.server.WebTestClient;
 
+import java.util.List;
+
 import static com.jaab.edelweiss.utils.TestUtils.*;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
-@WebFluxTest(controllers = PrescriptionController.class)
+@WebMvcTest(controllers = PrescriptionController.class)
 public class PrescriptionControllerTest {
 
     @Autowired
@@ -25,6 +37,9 @@ public class PrescriptionControllerTest {
     @MockBean
     private PrescriptionService prescriptionService;
 
+    @MockBean
+    private PendingPrescriptionFeed pendingPrescriptionFeed;
+
     @Test
     public void createPrescriptionTest() {
         when(prescriptionService.createPrescription(any(PrescriptionDTO.class))).thenReturn(prescriptionDTO);
@@ -41,15 +56,30 @@ public class PrescriptionControllerTest {
     @Test
     public void getPrescriptionsByDoctorNameTest() {
         when(prescriptionService.getPrescriptionsByDoctorName(anyString(), anyString()))
-                .thenReturn(getPrescriptionDTOsByDoctorName());
+                .thenReturn(new Versioned<>(getPrescriptionDTOsByDoctorName(), "2a"));
 
         webTestClient.get()
                 .uri("/physician/myPrescriptions/" + doctorFirstName + "/" + doctorLastName)
                 .exchange()
                 .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2a\"")
                 .expectBodyList(PrescriptionDTO.class).hasSize(2);
     }
 
+    @Test
+    public void getPrescriptionsByDoctorNameNotModifiedTest() {
+        when(prescriptionService.getPrescriptionsVersionByDoctorName(anyString(), anyString())).thenReturn("2a");
+
+        webTestClient.get()
+                .uri("/physician/myPrescriptions/" + doctorFirstName + "/" + doctorLastName)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"2a\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"2a\"");
+
+        verify(prescriptionService, never()).getPrescriptionsByDoctorName(anyString(), anyString());
+    }
+
     @Test
     public void getPendingPrescriptionsTest() {
         when(prescriptionService.getPrescriptionsByPrescriptionStatus(any(Status.class)))
@@ -66,28 +96,45 @@ public class PrescriptionControllerTest {
     public void updatePrescriptionInfoTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(potion.getId(), potion.getDoctorFirstName(),
                 potion.getDoctorLastName(), updatePrescriptionDTO.prescriptionName(),
-                updatePrescriptionDTO.prescriptionDosage(), potion.getPrescriptionStatus());
+                updatePrescriptionDTO.prescriptionDosage(), potion.getPrescriptionStatus(), potion.getVersion());
 
-        when(prescriptionService.updatePrescriptionInfo(any(UpdatePrescriptionDTO.class), anyLong()))
-                .thenReturn(prescriptionDTO);
+        when(prescriptionService.updatePrescriptionInfo(any(UpdatePrescriptionDTO.class), anyLong(), eq(3L)))
+                .thenReturn(new Versioned<>(prescriptionDTO, "4"));
 
         webTestClient.patch()
                 .uri("/physician/updatePrescriptionInfo/" + prescriptionDTO.id())
                 .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"3\"")
                 .bodyValue(prescriptionDTO)
                 .accept(MediaType.APPLICATION_JSON)
                 .exchange()
-                .expectStatus().isOk();
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"4\"");
+    }
+
+    @Test
+    public void updatePrescriptionInfoModifiedTest() {
+        when(prescriptionService.updatePrescriptionInfo(any(UpdatePrescriptionDTO.class), anyLong(), anyLong()))
+                .thenThrow(PrescriptionModifiedException.class);
+
+        webTestClient.patch()
+                .uri("/physician/updatePrescriptionInfo/" + potion.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(HttpHeaders.IF_MATCH, "\"2\"")
+                .bodyValue(updatePrescriptionDTO)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.PRECONDITION_FAILED);
     }
 
     @Test
     public void approvePrescriptionTest() {
         PrescriptionDTO prescriptionDTO = new PrescriptionDTO(phoenixDown.getId(), phoenixDown.getDoctorFirstName(),
                 phoenixDown.getDoctorLastName(), phoenixDown.getPrescriptionName(),
-                phoenixDown.getPrescriptionDosage(), Status.DENIED);
+                phoenixDown.getPrescriptionDosage(), Status.DENIED, phoenixDown.getVersion());
 
-        when(prescriptionService.approvePrescription(any(PrescriptionStatusDTO.class), anyLong()))
-                .thenReturn(prescriptionDTO);
+        when(prescriptionService.approvePrescription(any(PrescriptionStatusDTO.class), anyLong(), isNull()))
+                .thenReturn(new Versioned<>(prescriptionDTO, "1"));
 
         webTestClient.patch()
                 .uri("/pharmacy/approvePrescription/" + prescriptionDTO.id())
@@ -98,6 +145,42 @@ public class PrescriptionControllerTest {
                 .expectStatus().isOk();
     }
 
+    @Test
+    public void approvePrescriptionConflictTest() {
+        when(prescriptionService.approvePrescription(any(PrescriptionStatusDTO.class), anyLong(), isNull()))
+                .thenThrow(PrescriptionStatusConflictException.class);
+
+        webTestClient.patch()
+                .uri("/pharmacy/approvePrescription/" + darkMatter.getId())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new PrescriptionStatusDTO(Status.DENIED))
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    public void approvePrescriptionsTest() {
+        List<PrescriptionApprovalDTO> approvals = List.of(
+                new PrescriptionApprovalDTO(phoenixDown.getId(), Status.DENIED),
+                new PrescriptionApprovalDTO(darkMatter.getId(), Status.DENIED));
+
+        when(prescriptionService.approvePrescriptions(anyList())).thenReturn(List.of(
+                PrescriptionApprovalResult.approved(phoenixDown.getId(), Status.DENIED),
+                PrescriptionApprovalResult.failed(darkMatter.getId(), "The prescription has already been approved.")));
+
+        webTestClient.patch()
+                .uri("/pharmacy/approvePrescriptions")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(approvals)
+                .accept(MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBodyList(PrescriptionApprovalResult.class)
+                .hasSize(2)
+                .contains(PrescriptionApprovalResult.approved(phoenixDown.getId(), Status.DENIED));
+    }
+
     @Test
     public void deletePrescriptionTest() {
         webTestClient.delete()
@@ -0,0 +1,156 @@
+package com.jaab.edelweiss.dao;
+
+import com.jaab.edelweiss.model.Prescription;
+import com.jaab.edelweiss.model.Status;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static com.jaab.edelweiss.utils.TestUtils.doctorFirstName;
+import static com.jaab.edelweiss.utils.TestUtils.doctorLastName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("l2-cache")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+public class PrescriptionCacheTest {
+
+    @Autowired
+    private PrescriptionRepository prescriptionRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Statistics statistics;
+
+    private Prescription ether;
+
+    @BeforeEach
+    void init() {
+        ether = prescriptionRepository.save(new Prescription(null, doctorFirstName, doctorLastName,
+                "Ether", (byte) 10, Status.PENDING, null));
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @AfterEach
+    void cleanup() {
+        prescriptionRepository.deleteById(ether.getId());
+    }
+
+    @Test
+    public void findByIdUsesSecondLevelCacheTest() {
+        prescriptionRepository.findById(ether.getId());
+        statistics.clear();
+
+        prescriptionRepository.findById(ether.getId());
+        prescriptionRepository.findById(ether.getId());
+
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(2, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void findUncachedByIdBypassesSecondLevelCacheTest() {
+        prescriptionRepository.findById(ether.getId());
+        statistics.clear();
+
+        Prescription prescription = prescriptionRepository.findUncachedById(ether.getId()).orElseThrow();
+
+        assertEquals("Ether", prescription.getPrescriptionName());
+        assertEquals(0, statistics.getSecondLevelCacheHitCount());
+    }
+
+    @Test
+    public void findByPrescriptionStatusUsesQueryCacheTest() {
+        int pending = prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size();
+
+        assertEquals(pending, prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size());
+        assertEquals(1, statistics.getQueryCacheHitCount());
+        assertTrue(pending > 0);
+    }
+
+    @Test
+    public void writesInvalidateQueryCacheTest() {
+        int pending = prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size();
+
+        Prescription potion = prescriptionRepository.save(new Prescription(null, doctorFirstName,
+                doctorLastName, "Potion", (byte) 20, Status.PENDING, null));
+
+        try {
+            assertEquals(pending + 1, prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size());
+        } finally {
+            prescriptionRepository.deleteById(potion.getId());
+        }
+    }
+
+    @Test
+    public void transitionsInvalidateSecondLevelCacheTest() {
+        int pending = prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size();
+        prescriptionRepository.findById(ether.getId());
+
+        prescriptionRepository.transitionPendingPrescription(ether.getId(), Status.APPROVED, null);
+
+        assertEquals(pending - 1, prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size());
+        assertEquals(Status.APPROVED,
+                prescriptionRepository.findById(ether.getId()).orElseThrow().getPrescriptionStatus());
+    }
+
+    @Test
+    public void batchTransitionsInvalidateSecondLevelCacheTest() {
+        int pending = prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size();
+        prescriptionRepository.findById(ether.getId());
+
+        prescriptionRepository.transitionPendingPrescriptions(Map.of(ether.getId(), Status.DENIED));
+
+        assertEquals(pending - 1, prescriptionRepository.findByPrescriptionStatus(Status.PENDING).size());
+        assertEquals(Status.DENIED,
+                prescriptionRepository.findById(ether.getId()).orElseThrow().getPrescriptionStatus());
+    }
+
+    @Test
+    public void transitionsEvictReadsCachedBeforeCommitTest() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            prescriptionRepository.transitionPendingPrescription(ether.getId(), Status.APPROVED, null);
+
+            assertEquals(Status.PENDING, CompletableFuture.supplyAsync(() ->
+                    prescriptionRepository.findById(ether.getId()).orElseThrow().getPrescriptionStatus()).join());
+        });
+
+        assertEquals(Status.APPROVED,
+                prescriptionRepository.findById(ether.getId()).orElseThrow().getPrescriptionStatus());
+    }
+
+    @Test
+    public void batchTransitionsEvictReadsCachedBeforeCommitTest() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            prescriptionRepository.transitionPendingPrescriptions(Map.of(ether.getId(), Status.DENIED));
+
+            assertEquals(Status.PENDING, CompletableFuture.supplyAsync(() ->
+                    prescriptionRepository.findById(ether.getId()).orElseThrow().getPrescriptionStatus()).join());
+        });
+
+        assertEquals(Status.DENIED,
+                prescriptionRepository.findById(ether.getId()).orElseThrow().getPrescriptionStatus());
+    }
+}
@@ -2,6 +2,7 @@ package com.jaab.edelweiss.dao;
 
 import com.jaab.edelweiss.model.Prescription;
 import com.jaab.edelweiss.model.Status;
+import com.jaab.edelweiss.service.PrescriptionService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -9,11 +10,16 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
 import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 import static com.jaab.edelweiss.utils.TestUtils.doctorFirstName;
 import static com.jaab.edelweiss.utils.TestUtils.doctorLastName;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @DataJpaTest
 @AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
@@ -28,13 +34,13 @@ public class PrescriptionRepositoryTest {
     @BeforeEach
     void init() {
         Prescription potion = new Prescription(null, doctorFirstName, doctorLastName,
-                "Potion", (byte) 20, Status.PENDING);
+                "Potion", (byte) 20, Status.PENDING, null);
 
         Prescription phoenixDown = new Prescription(null, doctorFirstName, doctorLastName,
-                "Phoenix Down", (byte) 50, Status.PENDING);
+                "Phoenix Down", (byte) 50, Status.PENDING, null);
 
         Prescription darkMatter = new Prescription(null, "Squall", "Heartily",
-                "Dark Matter", (byte) 75, Status.APPROVED);
+                "Dark Matter", (byte) 75, Status.APPROVED, null);
 
         entityManager.persist(potion);
         entityManager.persist(phoenixDown);
@@ -57,6 +63,91 @@ public class PrescriptionRepositoryTest {
         assertEquals(0, prescriptions.size());
     }
 
+    @Test
+    public void getPrescriptionsVersionByDoctorNameTest() {
+        PrescriptionService prescriptionService = new PrescriptionService(prescriptionRepository, event -> {
+        });
+        entityManager.flush();
+
+        String version = prescriptionRepository.findPrescriptionsVersionByDoctorName(doctorFirstName, doctorLastName);
+
+        assertEquals(version, prescriptionService.getPrescriptionsByDoctorName(doctorFirstName, doctorLastName)
+                .version());
+
+        prescriptionRepository.findByDoctorFirstNameAndDoctorLastName(doctorFirstName, doctorLastName).get(0)
+                .setPrescriptionDosage((byte) 30);
+        entityManager.flush();
+
+        String updatedVersion =
+                prescriptionRepository.findPrescriptionsVersionByDoctorName(doctorFirstName, doctorLastName);
+
+        assertNotEquals(version, updatedVersion);
+        assertEquals(updatedVersion, prescriptionService.getPrescriptionsByDoctorName(doctorFirstName,
+                doctorLastName).version());
+    }
+
+    @Test
+    public void updatePrescriptionInfoTest() {
+        Prescription potion = prescriptionRepository
+                .findByDoctorFirstNameAndDoctorLastName(doctorFirstName, doctorLastName).get(0);
+        entityManager.flush();
+
+        assertEquals(0, prescriptionRepository.updatePrescriptionInfo(potion.getId(), "Hi-Potion", null, 1L));
+        assertEquals(1, prescriptionRepository.updatePrescriptionInfo(potion.getId(), "Hi-Potion", null, 0L));
+        assertEquals(0, prescriptionRepository.updatePrescriptionInfo(potion.getId(), "Hi-Potion", (byte) 20, 1L));
+        assertEquals(0, prescriptionRepository.updatePrescriptionInfo(potion.getId(), null, null, 1L));
+
+        Prescription updatedPotion = prescriptionRepository.findUncachedById(potion.getId()).orElseThrow();
+
+        assertEquals("Hi-Potion", updatedPotion.getPrescriptionName());
+        assertEquals((byte) 20, updatedPotion.getPrescriptionDosage());
+        assertEquals(1L, updatedPotion.getVersion());
+    }
+
+    @Test
+    public void transitionPendingPrescriptionTest() {
+        Long potionId = prescriptionRepository
+                .findByDoctorFirstNameAndDoctorLastName(doctorFirstName, doctorLastName).get(0).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertTrue(prescriptionRepository.transitionPendingPrescription(potionId, Status.APPROVED, 1L).isEmpty());
+
+        Prescription approvedPotion =
+                prescriptionRepository.transitionPendingPrescription(potionId, Status.APPROVED, 0L).orElseThrow();
+
+        assertEquals(Status.APPROVED, approvedPotion.getPrescriptionStatus());
+        assertEquals(1L, approvedPotion.getVersion());
+        assertTrue(prescriptionRepository.transitionPendingPrescription(potionId, Status.DENIED, null).isEmpty());
+        assertTrue(prescriptionRepository.transitionPendingPrescription(-1L, Status.DENIED, null).isEmpty());
+    }
+
+    @Test
+    public void transitionPendingPrescriptionsTest() {
+        List<Prescription> prescriptions =
+                prescriptionRepository.findByDoctorFirstNameAndDoctorLastName(doctorFirstName, doctorLastName);
+        Long potionId = prescriptions.get(0).getId();
+        Long phoenixDownId = prescriptions.get(1).getId();
+        Long darkMatterId = prescriptionRepository.findByPrescriptionStatus(Status.APPROVED).get(0).getId();
+        entityManager.flush();
+        entityManager.clear();
+
+        Map<Long, Status> prescriptionStatuses = new LinkedHashMap<>();
+        prescriptionStatuses.put(potionId, Status.APPROVED);
+        prescriptionStatuses.put(phoenixDownId, Status.DENIED);
+        prescriptionStatuses.put(darkMatterId, Status.DENIED);
+        prescriptionStatuses.put(-1L, Status.APPROVED);
+
+        Map<Long, Status> updated = prescriptionRepository.transitionPendingPrescriptions(prescriptionStatuses)
+                .stream()
+                .collect(Collectors.toMap(Prescription::getId, Prescription::getPrescriptionStatus));
+
+        assertEquals(Map.of(potionId, Status.APPROVED, phoenixDownId, Status.DENIED), updated);
+        assertEquals(Status.APPROVED, prescriptionRepository.findById(darkMatterId).orElseThrow().getPrescriptionStatus());
+        assertTrue(prescriptionRepository.transitionPendingPrescriptions(prescriptionStatuses).isEmpty());
+        assertTrue(prescriptionRepository.transitionPendingPrescriptions(Map.of()).isEmpty());
+    }
+
     @Test
     public void getPrescriptionsByPrescriptionStatusTest() {
         List<Prescription> prescriptions = prescriptionRepository.findByPrescriptionStatus(Status.APPROVED);
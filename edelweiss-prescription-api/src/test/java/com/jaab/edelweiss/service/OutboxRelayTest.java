@@ -0,0 +1,76 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.dao.OutboxEventRepository;
+import com.jaab.edelweiss.dto.PrescriptionEventDTO;
+import com.jaab.edelweiss.event.OutboxPublisher;
+import com.jaab.edelweiss.model.OutboxEvent;
+import com.jaab.edelweiss.model.PrescriptionEventType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+public class OutboxRelayTest {
+
+    @Mock
+    private OutboxEventRepository outboxEventRepository;
+
+    @Mock
+    private OutboxPublisher outboxPublisher;
+
+    private OutboxRelay outboxRelay;
+
+    private OutboxEvent created;
+
+    private OutboxEvent approved;
+
+    @BeforeEach
+    void init() {
+        outboxRelay = new OutboxRelay(outboxEventRepository, outboxPublisher, 100, Duration.ofDays(7));
+
+        created = new OutboxEvent(1L, PrescriptionEventType.CREATED, 1L, "{}", Instant.now(), null);
+        approved = new OutboxEvent(2L, PrescriptionEventType.STATUS_CHANGED, 1L, "{}", Instant.now(), null);
+    }
+
+    @Test
+    public void relayEventsTest() {
+        when(outboxEventRepository.lockUnpublishedEvents(anyInt())).thenReturn(List.of(created, approved));
+
+        outboxRelay.relayEvents();
+
+        verify(outboxPublisher, times(1)).publish(new PrescriptionEventDTO(created));
+        verify(outboxPublisher, times(1)).publish(new PrescriptionEventDTO(approved));
+        assertNotNull(created.getPublishedAt());
+        assertNotNull(approved.getPublishedAt());
+    }
+
+    @Test
+    public void relayEventsBrokerFailureTest() {
+        when(outboxEventRepository.lockUnpublishedEvents(anyInt())).thenReturn(List.of(created, approved));
+        doNothing().doThrow(IllegalStateException.class).when(outboxPublisher).publish(any(PrescriptionEventDTO.class));
+
+        outboxRelay.relayEvents();
+
+        assertNotNull(created.getPublishedAt());
+        assertNull(approved.getPublishedAt());
+    }
+
+    @Test
+    public void deletePublishedEventsTest() {
+        outboxRelay.deletePublishedEvents();
+
+        verify(outboxEventRepository, times(1)).deletePublishedBefore(any(Instant.class));
+    }
+}
@@ -0,0 +1,107 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.dto.PrescriptionDTO;
+import com.jaab.edelweiss.event.PrescriptionChangedEvent;
+import com.jaab.edelweiss.model.Status;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import reactor.test.StepVerifier;
+
+import java.time.Duration;
+import java.util.List;
+
+import static com.jaab.edelweiss.model.PrescriptionEventType.*;
+import static com.jaab.edelweiss.service.PendingPrescriptionFeed.PENDING_EVENT;
+import static com.jaab.edelweiss.service.PendingPrescriptionFeed.REMOVED_EVENT;
+import static com.jaab.edelweiss.utils.TestUtils.doctorFirstName;
+import static com.jaab.edelweiss.utils.TestUtils.doctorLastName;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class PendingPrescriptionFeedTest {
+
+    @Mock
+    private PrescriptionService prescriptionService;
+
+    private PendingPrescriptionFeed pendingPrescriptionFeed;
+
+    private final PrescriptionDTO potion = new PrescriptionDTO(1L, doctorFirstName, doctorLastName,
+            "Potion", (byte) 20, Status.PENDING, null);
+
+    private final PrescriptionDTO elixir = new PrescriptionDTO(4L, doctorFirstName, doctorLastName,
+            "Elixir", (byte) 5, Status.PENDING, null);
+
+    @BeforeEach
+    void init() {
+        pendingPrescriptionFeed = new PendingPrescriptionFeed(prescriptionService, Duration.ofHours(1), 4);
+    }
+
+    @Test
+    public void streamPendingPrescriptionsTest() {
+        PrescriptionDTO approvedPotion = new PrescriptionDTO(1L, doctorFirstName, doctorLastName,
+                "Potion", (byte) 20, Status.APPROVED, null);
+
+        when(prescriptionService.getPrescriptionsByPrescriptionStatus(Status.PENDING)).thenReturn(List.of(potion));
+
+        StepVerifier.create(pendingPrescriptionFeed.streamPendingPrescriptions())
+                .expectNextMatches(event -> PENDING_EVENT.equals(event.event()) && potion.equals(event.data()))
+                .then(() -> pendingPrescriptionFeed
+                        .onPrescriptionChanged(new PrescriptionChangedEvent(elixir, CREATED)))
+                .expectNextMatches(event -> PENDING_EVENT.equals(event.event()) && elixir.equals(event.data()))
+                .then(() -> pendingPrescriptionFeed
+                        .onPrescriptionChanged(new PrescriptionChangedEvent(approvedPotion, STATUS_CHANGED)))
+                .expectNextMatches(event -> REMOVED_EVENT.equals(event.event()) &&
+                        approvedPotion.equals(event.data()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void streamPendingPrescriptionsChangedDuringSnapshotTest() {
+        when(prescriptionService.getPrescriptionsByPrescriptionStatus(Status.PENDING)).thenAnswer(invocation -> {
+            pendingPrescriptionFeed.onPrescriptionChanged(new PrescriptionChangedEvent(elixir, CREATED));
+
+            return List.of(potion);
+        });
+
+        StepVerifier.create(pendingPrescriptionFeed.streamPendingPrescriptions())
+                .expectNextMatches(event -> potion.equals(event.data()))
+                .expectNextMatches(event -> elixir.equals(event.data()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void streamPendingPrescriptionsIgnoresDeletedNonPendingTest() {
+        PrescriptionDTO darkMatter = new PrescriptionDTO(3L, "Squall", "Leonheart",
+                "Dark Matter", (byte) 75, Status.APPROVED, null);
+
+        when(prescriptionService.getPrescriptionsByPrescriptionStatus(Status.PENDING)).thenReturn(List.of());
+
+        StepVerifier.create(pendingPrescriptionFeed.streamPendingPrescriptions())
+                .then(() -> {
+                    pendingPrescriptionFeed.onPrescriptionChanged(new PrescriptionChangedEvent(darkMatter, DELETED));
+                    pendingPrescriptionFeed.onPrescriptionChanged(new PrescriptionChangedEvent(elixir, DELETED));
+                })
+                .expectNextMatches(event -> REMOVED_EVENT.equals(event.event()) && elixir.equals(event.data()))
+                .thenCancel()
+                .verify();
+    }
+
+    @Test
+    public void streamPendingPrescriptionsFellBehindTest() {
+        when(prescriptionService.getPrescriptionsByPrescriptionStatus(Status.PENDING)).thenReturn(List.of());
+
+        StepVerifier.create(pendingPrescriptionFeed.streamPendingPrescriptions(), 0)
+                .then(() -> {
+                    for (int i = 0; i < 10; i++)
+                        pendingPrescriptionFeed.onPrescriptionChanged(new PrescriptionChangedEvent(elixir, CREATED));
+                })
+                .thenRequest(Long.MAX_VALUE)
+                .thenConsumeWhile(event -> true)
+                .verifyComplete();
+    }
+}
@@ -0,0 +1,74 @@
+package com.jaab.edelweiss.service;
+
+import com.jaab.edelweiss.dao.OutboxEventRepository;
+import com.jaab.edelweiss.dto.PrescriptionDTO;
+import com.jaab.edelweiss.dto.PrescriptionEventDTO;
+import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
+import com.jaab.edelweiss.event.InProcessOutboxPublisher;
+import com.jaab.edelweiss.model.OutboxEvent;
+import com.jaab.edelweiss.model.PrescriptionEventType;
+import com.jaab.edelweiss.model.Status;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import reactor.test.StepVerifier;
+
+import java.util.List;
+
+import static com.jaab.edelweiss.utils.TestUtils.doctorFirstName;
+import static com.jaab.edelweiss.utils.TestUtils.doctorLastName;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "edelweiss.outbox.poll-interval-ms=3600000")
+@Transactional
+public class PrescriptionOutboxTest {
+
+    @Autowired
+    private PrescriptionService prescriptionService;
+
+    @Autowired
+    private OutboxRelay outboxRelay;
+
+    @Autowired
+    private OutboxEventRepository outboxEventRepository;
+
+    @Autowired
+    private InProcessOutboxPublisher inProcessOutboxPublisher;
+
+    private final PrescriptionDTO elixir = new PrescriptionDTO(null, doctorFirstName, doctorLastName,
+            "Elixir", (byte) 5, null, null);
+
+    @Test
+    public void recordChangeTest() {
+        PrescriptionDTO newPrescription = prescriptionService.createPrescription(elixir);
+
+        prescriptionService.approvePrescription(new PrescriptionStatusDTO(Status.APPROVED), newPrescription.id(),
+                null);
+
+        List<OutboxEvent> outboxEvents = outboxEventRepository.findAll().stream()
+                .filter(e -> e.getPrescriptionId().equals(newPrescription.id()))
+                .toList();
+
+        assertEquals(2, outboxEvents.size());
+        assertEquals(PrescriptionEventType.CREATED, outboxEvents.get(0).getEventType());
+        assertEquals(PrescriptionEventType.STATUS_CHANGED, outboxEvents.get(1).getEventType());
+    }
+
+    @Test
+    public void relayEventsTest() {
+        StepVerifier.create(inProcessOutboxPublisher.events()
+                        .filter(e -> e.eventType() == PrescriptionEventType.CREATED)
+                        .map(PrescriptionEventDTO::prescriptionId)
+                        .take(1))
+                .then(() -> {
+                    prescriptionService.createPrescription(elixir);
+
+                    outboxRelay.relayEvents();
+
+                    assertEquals(0, outboxEventRepository.lockUnpublishedEvents(10).size());
+                })
+                .expectNextCount(1)
+                .verifyComplete();
+    }
+}
@@ -1,17 +1,29 @@
 package com.jaab.edelweiss.service;
 
 import com.jaab.edelweiss.dao.PrescriptionRepository;
+import com.jaab.edelweiss.dto.PrescriptionApprovalDTO;
+import com.jaab.edelweiss.dto.PrescriptionApprovalResult;
 import com.jaab.edelweiss.dto.PrescriptionDTO;
 import com.jaab.edelweiss.dto.PrescriptionStatusDTO;
+import com.jaab.edelweiss.dto.Versioned;
+import com.jaab.edelweiss.event.PrescriptionChangedEvent;
+import com.jaab.edelweiss.exception.PrescriptionModifiedException;
 import com.jaab.edelweiss.exception.PrescriptionNotFoundException;
+import com.jaab.edelweiss.exception.PrescriptionStatusConflictException;
+import com.jaab.edelweiss.exception.PrescriptionStatusException;
+import com.jaab.edelweiss.model.Prescription;
+import com.jaab.edelweiss.model.PrescriptionEventType;
 import com.jaab.edelweiss.model.Status;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import static com.jaab.edelweiss.utils.TestUtils.*;
@@ -29,6 +41,9 @@ public class PrescriptionServiceTest {
     @Mock
     private PrescriptionRepository prescriptionRepository;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Test
     public void createPrescriptionTest() {
         PrescriptionDTO newPrescription = prescriptionService.createPrescription(prescriptionDTO);
@@ -42,10 +57,10 @@ public class PrescriptionServiceTest {
         when(prescriptionRepository.findByDoctorFirstNameAndDoctorLastName(anyString(), anyString()))
                 .thenReturn(getPrescriptionsByDoctorName());
 
-        List<PrescriptionDTO> prescriptions =
+        Versioned<List<PrescriptionDTO>> prescriptions =
                 prescriptionService.getPrescriptionsByDoctorName(doctorFirstName, doctorLastName);
 
-        assertEquals(2, prescriptions.size());
+        assertEquals(2, prescriptions.body().size());
     }
 
     @Test
@@ -61,34 +76,62 @@ public class PrescriptionServiceTest {
 
     @Test
     public void updatePrescriptionInfoTest() {
-        assertEquals("Potion", potion.getPrescriptionName());
-        assertEquals((byte) 20, potion.getPrescriptionDosage());
+        when(prescriptionRepository.updatePrescriptionInfo(potion.getId(), "Hi-Potion", (byte) 10, 3L))
+                .thenReturn(1);
+        when(prescriptionRepository.findUncachedById(anyLong())).thenReturn(Optional.of(potion));
+
+        Versioned<PrescriptionDTO> prescription =
+                prescriptionService.updatePrescriptionInfo(updatePrescriptionDTO, potion.getId(), 3L);
+
+        assertEquals(new PrescriptionDTO(potion), prescription.body());
+        assertEquals(String.valueOf(potion.getVersion()), prescription.version());
+        verify(prescriptionRepository, never()).save(any(Prescription.class));
+        verify(eventPublisher, times(1))
+                .publishEvent(new PrescriptionChangedEvent(new PrescriptionDTO(potion), PrescriptionEventType.UPDATED));
+    }
 
-        when(prescriptionRepository.findById(anyLong())).thenReturn(Optional.of(potion));
+    @Test
+    public void updatePrescriptionInfoExceptionTest() {
+        assertThrows(PrescriptionNotFoundException.class, () ->
+                prescriptionService.updatePrescriptionInfo(updatePrescriptionDTO, potion.getId(), null));
+    }
 
-        prescriptionService.updatePrescriptionInfo(updatePrescriptionDTO, potion.getId());
+    @Test
+    public void updatePrescriptionInfoModifiedExceptionTest() {
+        when(prescriptionRepository.findUncachedById(anyLong())).thenReturn(Optional.of(potion));
 
-        assertEquals("Hi-Potion", potion.getPrescriptionName());
-        assertEquals((byte) 10, potion.getPrescriptionDosage());
+        assertThrows(PrescriptionModifiedException.class, () ->
+                prescriptionService.updatePrescriptionInfo(updatePrescriptionDTO, potion.getId(), 3L));
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
-    public void updatePrescriptionInfoExceptionTest() {
-        assertThrows(PrescriptionNotFoundException.class, () ->
-                prescriptionService.updatePrescriptionInfo(updatePrescriptionDTO, potion.getId()));
+    public void updatePrescriptionInfoUnchangedTest() {
+        Prescription unchangedPotion = new Prescription(potion.getId(), doctorFirstName, doctorLastName,
+                "Potion", (byte) 20, Status.PENDING, 3L);
+
+        when(prescriptionRepository.findUncachedById(anyLong())).thenReturn(Optional.of(unchangedPotion));
+
+        Versioned<PrescriptionDTO> prescription =
+                prescriptionService.updatePrescriptionInfo(updatePrescriptionDTO, potion.getId(), 3L);
+
+        assertEquals(new PrescriptionDTO(unchangedPotion), prescription.body());
+        assertEquals("3", prescription.version());
+        verify(eventPublisher, never()).publishEvent(any());
     }
 
     @Test
     public void approvePrescriptionTest() {
-        assertEquals(Status.PENDING, phoenixDown.getPrescriptionStatus());
-
         PrescriptionStatusDTO status = new PrescriptionStatusDTO(Status.DENIED);
 
-        when(prescriptionRepository.findById(anyLong())).thenReturn(Optional.of(phoenixDown));
+        when(prescriptionRepository.transitionPendingPrescription(phoenixDown.getId(), Status.DENIED, null))
+                .thenReturn(Optional.of(phoenixDown));
 
-        prescriptionService.approvePrescription(status, phoenixDown.getId());
+        prescriptionService.approvePrescription(status, phoenixDown.getId(), null);
 
-        assertEquals(Status.DENIED, phoenixDown.getPrescriptionStatus());
+        verify(prescriptionRepository, never()).findUncachedById(anyLong());
+        verify(eventPublisher, times(1))
+                .publishEvent(new PrescriptionChangedEvent(new PrescriptionDTO(phoenixDown), PrescriptionEventType.STATUS_CHANGED));
     }
 
     @Test
@@ -96,16 +139,81 @@ public class PrescriptionServiceTest {
         PrescriptionStatusDTO status = new PrescriptionStatusDTO(Status.DENIED);
 
         assertThrows(PrescriptionNotFoundException.class, () ->
-                prescriptionService.approvePrescription(status, phoenixDown.getId()));
+                prescriptionService.approvePrescription(status, phoenixDown.getId(), null));
+    }
+
+    @Test
+    public void approvePrescriptionConflictExceptionTest() {
+        PrescriptionStatusDTO status = new PrescriptionStatusDTO(Status.DENIED);
+
+        when(prescriptionRepository.findUncachedById(anyLong())).thenReturn(Optional.of(darkMatter));
+
+        assertThrows(PrescriptionStatusConflictException.class, () ->
+                prescriptionService.approvePrescription(status, darkMatter.getId(), null));
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void approvePrescriptionStatusExceptionTest() {
+        PrescriptionStatusDTO status = new PrescriptionStatusDTO(Status.PENDING);
+
+        assertThrows(PrescriptionStatusException.class, () ->
+                prescriptionService.approvePrescription(status, phoenixDown.getId(), null));
+        verify(prescriptionRepository, never()).transitionPendingPrescription(anyLong(), any(), any());
+    }
+
+    @Test
+    public void approvePrescriptionsTest() {
+        List<PrescriptionApprovalDTO> approvals = List.of(
+                new PrescriptionApprovalDTO(phoenixDown.getId(), Status.DENIED),
+                new PrescriptionApprovalDTO(darkMatter.getId(), Status.DENIED),
+                new PrescriptionApprovalDTO(phoenixDown.getId(), Status.APPROVED),
+                new PrescriptionApprovalDTO(potion.getId(), Status.PENDING),
+                new PrescriptionApprovalDTO(null, Status.APPROVED),
+                new PrescriptionApprovalDTO(4L, Status.APPROVED));
+
+        Prescription deniedPhoenixDown = new Prescription(phoenixDown.getId(), phoenixDown.getDoctorFirstName(),
+                phoenixDown.getDoctorLastName(), phoenixDown.getPrescriptionName(),
+                phoenixDown.getPrescriptionDosage(), Status.DENIED, 1L);
+
+        when(prescriptionRepository.transitionPendingPrescriptions(anyMap())).thenReturn(List.of(deniedPhoenixDown));
+        when(prescriptionRepository.findUncachedByIdIn(anyCollection())).thenReturn(List.of(darkMatter));
+
+        List<PrescriptionApprovalResult> results = prescriptionService.approvePrescriptions(approvals);
+
+        assertEquals(List.of(
+                PrescriptionApprovalResult.approved(phoenixDown.getId(), Status.DENIED),
+                PrescriptionApprovalResult.failed(darkMatter.getId(), "The prescription has already been approved."),
+                PrescriptionApprovalResult.failed(phoenixDown.getId(),
+                        "The prescription appears more than once in the batch."),
+                PrescriptionApprovalResult.failed(potion.getId(), "Prescription must be approved or denied."),
+                PrescriptionApprovalResult.failed(null, "prescriptionId is required."),
+                PrescriptionApprovalResult.failed(4L, "No prescription with the specified ID found.")), results);
+        verify(prescriptionRepository, times(1)).transitionPendingPrescriptions(
+                Map.of(phoenixDown.getId(), Status.DENIED, darkMatter.getId(), Status.DENIED, 4L, Status.APPROVED));
+        verify(prescriptionRepository, times(1)).findUncachedByIdIn(List.of(darkMatter.getId(), 4L));
+        verify(eventPublisher, times(1)).publishEvent(new PrescriptionChangedEvent(
+                new PrescriptionDTO(deniedPhoenixDown), PrescriptionEventType.STATUS_CHANGED));
+    }
+
+    @Test
+    public void approvePrescriptionsStatusExceptionTest() {
+        List<PrescriptionApprovalDTO> approvals = Collections.nCopies(PrescriptionService.MAX_BATCH_APPROVALS + 1,
+                new PrescriptionApprovalDTO(potion.getId(), Status.APPROVED));
+
+        assertThrows(PrescriptionStatusException.class, () -> prescriptionService.approvePrescriptions(approvals));
+        verify(prescriptionRepository, never()).transitionPendingPrescriptions(anyMap());
     }
 
     @Test
     public void deletePrescriptionTest() {
-        when(prescriptionRepository.findById(anyLong())).thenReturn(Optional.of(darkMatter));
+        when(prescriptionRepository.findUncachedById(anyLong())).thenReturn(Optional.of(darkMatter));
 
         prescriptionService.deletePrescription(darkMatter.getId());
 
         verify(prescriptionRepository, times(1)).deleteById(darkMatter.getId());
+        verify(eventPublisher, times(1))
+                .publishEvent(new PrescriptionChangedEvent(new PrescriptionDTO(darkMatter), PrescriptionEventType.DELETED));
     }
 
     @Test
@@ -16,13 +16,13 @@ public abstract class TestUtils {
     public static String doctorLastName = "Heartily";
 
     public static Prescription potion = new Prescription(1L, doctorFirstName, doctorLastName,
-            "Potion", (byte) 20, Status.PENDING);
+            "Potion", (byte) 20, Status.PENDING, null);
 
     public static Prescription phoenixDown = new Prescription(2L, doctorFirstName, doctorLastName,
-            "Phoenix Down", (byte) 50, Status.PENDING);
+            "Phoenix Down", (byte) 50, Status.PENDING, null);
 
     public static Prescription darkMatter = new Prescription(3L, "Squall", "Leonheart",
-            "Dark Matter", (byte) 75, Status.APPROVED);
+            "Dark Matter", (byte) 75, Status.APPROVED, null);
 
     public static PrescriptionDTO prescriptionDTO = new PrescriptionDTO(potion);
 
@@ -0,0 +1,53 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+// Measures create throughput of the prescription and appointment APIs. Run it before and after a change to how
+// rows are inserted, against a freshly migrated database each time, and compare http_reqs and
+// http_req_duration.
+//
+//   k6 run -e VUS=200 load-test/bulk-create.js
+
+const PRESCRIPTION_API = __ENV.PRESCRIPTION_API || 'http://localhost:8084';
+const APPOINTMENT_API = __ENV.APPOINTMENT_API || 'http://localhost:8085';
+const VUS = parseInt(__ENV.VUS || '200');
+
+const params = { headers: { 'Content-Type': 'application/json' } };
+
+export const options = {
+    scenarios: {
+        writes: {
+            executor: 'constant-vus',
+            vus: VUS,
+            duration: '2m',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+    },
+};
+
+export default function () {
+    const day = 1 + (__ITER % 28);
+    const minute = (__VU * 7 + __ITER) % 60;
+
+    const responses = http.batch([
+        ['POST', `${PRESCRIPTION_API}/physician/newPrescription`, JSON.stringify({
+            doctorFirstName: 'Varric',
+            doctorLastName: 'Tethras',
+            prescriptionName: `Drug${__ITER % 40}`,
+            prescriptionDosage: 5,
+        }), params],
+        ['POST', `${APPOINTMENT_API}/physician/newAppointment`, JSON.stringify({
+            doctorFirstName: 'Varric',
+            doctorLastName: 'Tethras',
+            patientFirstName: 'Load',
+            patientLastName: `Test${__VU}`,
+            appointmentDate: `2030-01-${String(day).padStart(2, '0')}`,
+            appointmentTime: `${String(9 + (__ITER % 8)).padStart(2, '0')}:${String(minute).padStart(2, '0')}:00`,
+        }), params],
+    ]);
+
+    responses.forEach(response => check(response, {
+        'created': r => r.status < 300,
+    }));
+}
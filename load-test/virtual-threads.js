@@ -0,0 +1,42 @@
+import http from 'k6/http';
+import { check } from 'k6';
+
+// Compares request throughput of the prescription and appointment APIs with and without the virtual-threads
+// profile. Run once against each mode and compare http_reqs and http_req_duration.
+//
+//   k6 run -e VUS=1200 load-test/virtual-threads.js
+
+const PRESCRIPTION_API = __ENV.PRESCRIPTION_API || 'http://localhost:8084';
+const APPOINTMENT_API = __ENV.APPOINTMENT_API || 'http://localhost:8085';
+const VUS = parseInt(__ENV.VUS || '1200');
+
+export const options = {
+    scenarios: {
+        burst: {
+            executor: 'ramping-vus',
+            startVUs: 0,
+            stages: [
+                { duration: '30s', target: VUS },
+                { duration: '2m', target: VUS },
+                { duration: '15s', target: 0 },
+            ],
+            gracefulRampDown: '10s',
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        http_req_duration: ['p(95)<1000'],
+    },
+};
+
+export default function () {
+    const responses = http.batch([
+        ['GET', `${PRESCRIPTION_API}/pharmacy/getPendingPrescriptions`],
+        ['GET', `${PRESCRIPTION_API}/physician/myPrescriptions/Varric/Tethras`],
+        ['GET', `${APPOINTMENT_API}/physician/myAppointments/Varric/Tethras`],
+    ]);
+
+    responses.forEach(response => check(response, {
+        'not a server error': r => r.status < 500,
+    }));
+}
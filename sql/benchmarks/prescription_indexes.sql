@@ -0,0 +1,41 @@
+-- Benchmark for the prescription lookup indexes added by the prescription API's
+-- V2__add_prescription_lookup_indexes.sql migration.
+--
+-- Run it against a scratch database after the prescription API has applied its migrations:
+--   psql -h localhost -U postgres -d edelweiss -f sql/benchmarks/prescription_indexes.sql
+--
+-- Everything runs in one transaction that is rolled back, so no rows or indexes are left behind. The indexes
+-- are dropped inside the transaction, which locks the prescriptions table until the rollback.
+
+begin;
+
+-- 3 million prescriptions from 2,000 doctors, 1% of them pending
+insert into prescriptions (doctor_first_name, doctor_last_name, prescription_name, prescription_dosage,
+                           prescription_status)
+select 'First' || (n % 2000),
+       'Last' || (n % 2000),
+       'Drug' || (n % 500),
+       (n % 100) + 1,
+       case when n % 100 = 0 then 'PENDING' when n % 3 = 0 then 'DENIED' else 'APPROVED' end
+from generate_series(1, 3000000) as n;
+
+analyze prescriptions;
+
+-- With the indexes: expect index or bitmap scans on idx_prescriptions_doctor_name and idx_prescriptions_pending
+explain (analyze, buffers)
+select * from prescriptions where doctor_first_name = 'First42' and doctor_last_name = 'Last42';
+
+explain (analyze, buffers)
+select * from prescriptions where prescription_status = 'PENDING';
+
+drop index idx_prescriptions_doctor_name;
+drop index idx_prescriptions_pending;
+
+-- Without the indexes: both queries fall back to sequential scans of the whole table
+explain (analyze, buffers)
+select * from prescriptions where doctor_first_name = 'First42' and doctor_last_name = 'Last42';
+
+explain (analyze, buffers)
+select * from prescriptions where prescription_status = 'PENDING';
+
+rollback;